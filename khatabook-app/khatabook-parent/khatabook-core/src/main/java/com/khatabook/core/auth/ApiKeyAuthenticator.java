@@ -0,0 +1,147 @@
+package com.khatabook.core.auth;
+
+import com.khatabook.core.model.ApiKey;
+import com.khatabook.core.repository.ApiKeyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Authenticates "keyId.secret" API key credentials without leaving the process.
+ *
+ * Key records are read from the database and kept in memory for the cache TTL, including the absence
+ * of a key, so an authenticated call costs one HMAC and no query. A revocation or rotation made on this
+ * node takes effect at once; one made on another node takes effect here within the TTL. No restart is
+ * needed either way. Without an HMAC secret configured every API key is rejected.
+ */
+public class ApiKeyAuthenticator {
+    private static final Logger logger = LoggerFactory.getLogger(ApiKeyAuthenticator.class);
+
+    private final ApiKeyRepository apiKeyRepository;
+    // Null when API keys are disabled
+    private final ApiKeySecrets secrets;
+    private final long cacheTtlNanos;
+    private final int maxEntries;
+    private final Map<String, CachedKey> keys = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    public ApiKeyAuthenticator(ApiKeyRepository apiKeyRepository, ApiKeySecrets secrets, long cacheTtlSeconds,
+            int maxEntries) {
+        this.apiKeyRepository = apiKeyRepository;
+        this.secrets = secrets;
+        this.cacheTtlNanos = TimeUnit.SECONDS.toNanos(cacheTtlSeconds);
+        this.maxEntries = maxEntries;
+    }
+
+    public boolean isEnabled() {
+        return secrets != null;
+    }
+
+    public ApiKeyPrincipal authenticate(String credentials) {
+        if (secrets == null) {
+            rejections.increment();
+            throw new IllegalArgumentException("API keys are not enabled");
+        }
+        int separator = credentials.indexOf('.');
+        if (separator <= 0 || separator == credentials.length() - 1) {
+            rejections.increment();
+            throw new IllegalArgumentException("API key must be keyId.secret");
+        }
+        String keyId = credentials.substring(0, separator);
+        String secret = credentials.substring(separator + 1);
+
+        CachedKey key = lookup(keyId);
+        // The HMAC is computed even for unknown keys, so timing does not reveal which key ids exist
+        boolean secretMatches = secrets.matches(secret, key.secretHash);
+        if (key.organizationId == null || !secretMatches) {
+            rejections.increment();
+            throw new IllegalArgumentException("Invalid API key");
+        }
+        if (key.revoked || (key.expiresAt != null && !key.expiresAt.isAfter(LocalDateTime.now()))) {
+            rejections.increment();
+            throw new IllegalArgumentException("API key has been revoked or has expired");
+        }
+        return new ApiKeyPrincipal(keyId, key.organizationId);
+    }
+
+    // Forgets a key so its next use reads the database again
+    public void evict(String keyId) {
+        keys.remove(keyId);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cachedKeys", keys.size());
+        stats.put("cacheTtlSeconds", TimeUnit.NANOSECONDS.toSeconds(cacheTtlNanos));
+        stats.put("hits", hits.sum());
+        stats.put("loads", loads.sum());
+        stats.put("rejections", rejections.sum());
+        return stats;
+    }
+
+    private CachedKey lookup(String keyId) {
+        long now = System.nanoTime();
+        CachedKey cached = keys.get(keyId);
+        if (cached != null && now - cached.loadedAt < cacheTtlNanos) {
+            hits.increment();
+            return cached;
+        }
+
+        loads.increment();
+        Optional<ApiKey> apiKey = apiKeyRepository.findByKeyId(keyId);
+        CachedKey loaded = apiKey.map(key -> new CachedKey(key, now)).orElseGet(() -> CachedKey.absent(now));
+        if (keys.size() >= maxEntries) {
+            keys.values().removeIf(entry -> now - entry.loadedAt >= cacheTtlNanos);
+        }
+        // Unknown key ids are only remembered while there is room, so guessing cannot evict real keys
+        if (apiKey.isPresent() || keys.size() < maxEntries) {
+            keys.put(keyId, loaded);
+        }
+        if (apiKey.isEmpty()) {
+            logger.warn("Unknown API key id {}", keyId);
+        }
+        return loaded;
+    }
+
+    private static final class CachedKey {
+        // Hash of no real secret, compared against for unknown keys
+        private static final byte[] NO_HASH = new byte[32];
+
+        private final Long organizationId;
+        private final byte[] secretHash;
+        private final LocalDateTime expiresAt;
+        private final boolean revoked;
+        private final long loadedAt;
+
+        private CachedKey(ApiKey apiKey, long loadedAt) {
+            this.organizationId = apiKey.getOrganization().getId();
+            this.secretHash = Base64.getDecoder().decode(apiKey.getSecretHash());
+            this.expiresAt = apiKey.getExpiresAt();
+            this.revoked = apiKey.getRevokedAt() != null;
+            this.loadedAt = loadedAt;
+        }
+
+        private CachedKey(long loadedAt) {
+            this.organizationId = null;
+            this.secretHash = NO_HASH;
+            this.expiresAt = null;
+            this.revoked = true;
+            this.loadedAt = loadedAt;
+        }
+
+        private static CachedKey absent(long loadedAt) {
+            return new CachedKey(loadedAt);
+        }
+    }
+}
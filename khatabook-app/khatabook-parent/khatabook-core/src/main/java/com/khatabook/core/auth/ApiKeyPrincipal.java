@@ -0,0 +1,20 @@
+package com.khatabook.core.auth;
+
+// A machine client authenticated by API key, allowed to act on one organization only
+public class ApiKeyPrincipal {
+    private final String keyId;
+    private final Long organizationId;
+
+    public ApiKeyPrincipal(String keyId, Long organizationId) {
+        this.keyId = keyId;
+        this.organizationId = organizationId;
+    }
+
+    public String getKeyId() {
+        return keyId;
+    }
+
+    public Long getOrganizationId() {
+        return organizationId;
+    }
+}
@@ -0,0 +1,76 @@
+package com.khatabook.core.auth;
+
+import com.khatabook.core.config.AppSettings;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Generates API key credentials and hashes their secrets with HMAC-SHA256 under a server-side key
+ * (khatabook.api_keys.hmac_secret). A leaked api_keys table is useless without that key, and checking
+ * a secret is one HMAC and a constant-time comparison.
+ */
+public class ApiKeySecrets {
+    private static final int MIN_HMAC_KEY_LENGTH = 32;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Base64.Encoder URL_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final ThreadLocal<Mac> mac;
+
+    public ApiKeySecrets(byte[] hmacKey) {
+        if (hmacKey.length < MIN_HMAC_KEY_LENGTH) {
+            throw new IllegalArgumentException("The API key HMAC secret must be at least " + MIN_HMAC_KEY_LENGTH + " bytes");
+        }
+        SecretKeySpec key = new SecretKeySpec(hmacKey.clone(), "HmacSHA256");
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance("HmacSHA256");
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 is not available", e);
+            }
+        });
+    }
+
+    // Empty when no HMAC secret is configured, which disables API keys
+    public static Optional<ApiKeySecrets> fromSettings() {
+        String hmacSecret = AppSettings.getString("khatabook.api_keys.hmac_secret", null);
+        if (hmacSecret == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new ApiKeySecrets(hmacSecret.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public static String newKeyId() {
+        return "kb_" + URL_ENCODER.encodeToString(randomBytes(12));
+    }
+
+    public static String newSecret() {
+        return URL_ENCODER.encodeToString(randomBytes(32));
+    }
+
+    public String hash(String secret) {
+        return Base64.getEncoder().encodeToString(hmac(secret));
+    }
+
+    public boolean matches(String secret, byte[] expectedHash) {
+        return MessageDigest.isEqual(hmac(secret), expectedHash);
+    }
+
+    private byte[] hmac(String secret) {
+        return mac.get().doFinal(secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        RANDOM.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,33 @@
+package com.khatabook.core.auth;
+
+import com.google.firebase.auth.FirebaseToken;
+import com.khatabook.core.config.FirebaseConfig;
+
+import java.util.Map;
+
+// Verifies tokens through the Firebase Admin SDK, for deployments that cannot use the local verifier
+public class FirebaseSdkTokenVerifier implements TokenVerifier {
+
+    @Override
+    public VerifiedToken verify(String idToken) {
+        FirebaseToken token;
+        try {
+            token = FirebaseConfig.verifyToken(idToken);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Token is invalid", e);
+        }
+        Map<String, Object> claims = token.getClaims();
+        Object phoneNumber = claims.get("phone_number");
+        return new VerifiedToken(
+            token.getUid(),
+            phoneNumber == null ? null : phoneNumber.toString(),
+            epochSeconds(claims.get("iat")),
+            epochSeconds(claims.get("exp")),
+            Boolean.TRUE.equals(claims.get(FirebaseTokenVerifier.ADMIN_CLAIM))
+        );
+    }
+
+    private static long epochSeconds(Object claim) {
+        return claim instanceof Number ? ((Number) claim).longValue() : 0;
+    }
+}
@@ -0,0 +1,111 @@
+package com.khatabook.core.auth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.time.Clock;
+import java.util.Base64;
+
+/**
+ * Verifies Firebase ID tokens locally: an RS256 signature by one of the signing keys, and the audience,
+ * issuer, subject and time claims Firebase documents for ID tokens. No network call is made as long
+ * as the signing key is known.
+ */
+public class FirebaseTokenVerifier implements TokenVerifier {
+    private static final String ISSUER_PREFIX = "https://securetoken.google.com/";
+    private static final int MAX_UID_LENGTH = 128;
+    static final String ADMIN_CLAIM = "admin";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String projectId;
+    private final String issuer;
+    private final SigningKeys signingKeys;
+    private final long clockSkewSeconds;
+    private final Clock clock;
+
+    public FirebaseTokenVerifier(String projectId, SigningKeys signingKeys, long clockSkewSeconds, Clock clock) {
+        if (projectId == null || projectId.isEmpty()) {
+            throw new IllegalArgumentException("A Firebase project id is required to verify tokens");
+        }
+        this.projectId = projectId;
+        this.issuer = ISSUER_PREFIX + projectId;
+        this.signingKeys = signingKeys;
+        this.clockSkewSeconds = clockSkewSeconds;
+        this.clock = clock;
+    }
+
+    @Override
+    public VerifiedToken verify(String idToken) {
+        String[] parts = idToken.split("\\.", -1);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Token is not a JWT");
+        }
+        JsonNode header = decodeJson(parts[0]);
+        JsonNode payload = decodeJson(parts[1]);
+
+        if (!"RS256".equals(header.path("alg").asText())) {
+            throw new IllegalArgumentException("Token must be signed with RS256");
+        }
+        PublicKey key = signingKeys.get(header.path("kid").asText());
+        if (key == null) {
+            throw new IllegalArgumentException("Token is signed with an unknown key");
+        }
+        if (!signatureMatches(key, parts)) {
+            throw new IllegalArgumentException("Token signature is invalid");
+        }
+
+        long now = clock.millis() / 1000;
+        long expiresAt = payload.path("exp").asLong(0);
+        long issuedAt = payload.path("iat").asLong(Long.MAX_VALUE);
+        long authTime = payload.path("auth_time").asLong(Long.MAX_VALUE);
+        String uid = payload.path("sub").asText("");
+        if (!projectId.equals(payload.path("aud").asText())) {
+            throw new IllegalArgumentException("Token was issued for another project");
+        }
+        if (!issuer.equals(payload.path("iss").asText())) {
+            throw new IllegalArgumentException("Token has an unexpected issuer");
+        }
+        if (uid.isEmpty() || uid.length() > MAX_UID_LENGTH) {
+            throw new IllegalArgumentException("Token has an invalid subject");
+        }
+        if (expiresAt + clockSkewSeconds <= now) {
+            throw new IllegalArgumentException("Token has expired");
+        }
+        if (issuedAt - clockSkewSeconds > now || authTime - clockSkewSeconds > now) {
+            throw new IllegalArgumentException("Token is not valid yet");
+        }
+
+        JsonNode phoneNumber = payload.get("phone_number");
+        return new VerifiedToken(uid, phoneNumber == null ? null : phoneNumber.asText(), issuedAt, expiresAt,
+            payload.path(ADMIN_CLAIM).asBoolean(false));
+    }
+
+    private JsonNode decodeJson(String part) {
+        try {
+            return objectMapper.readTree(Base64.getUrlDecoder().decode(part));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Token is not a JWT", e);
+        }
+    }
+
+    private static boolean signatureMatches(PublicKey key, String[] parts) {
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initVerify(key);
+            signature.update((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+            return signature.verify(Base64.getUrlDecoder().decode(parts[2]));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        signingKeys.shutdown();
+    }
+}
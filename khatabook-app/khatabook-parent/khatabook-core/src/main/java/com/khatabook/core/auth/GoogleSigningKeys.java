@@ -0,0 +1,136 @@
+package com.khatabook.core.auth;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The public keys Firebase signs ID tokens with, fetched from Google and held in memory.
+ *
+ * Keys are refreshed in the background before the max-age Google sends runs out, so verification
+ * never waits on the network. A token signed with a key id we have not seen triggers one immediate
+ * refresh, at most once a minute, to pick up a rotation early. When a refresh fails the current keys
+ * stay in use and the refresh is retried.
+ */
+public class GoogleSigningKeys implements SigningKeys {
+    private static final Logger logger = LoggerFactory.getLogger(GoogleSigningKeys.class);
+    private static final String KEYS_URL =
+        "https://www.googleapis.com/robot/v1/metadata/x509/securetoken@system.gserviceaccount.com";
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+    private static final long DEFAULT_MAX_AGE_SECONDS = 3600;
+    private static final long MIN_REFRESH_SECONDS = 60;
+    private static final long RETRY_SECONDS = 30;
+    private static final long UNKNOWN_KEY_REFRESH_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+    private final ScheduledExecutorService refresher;
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private volatile long lastOnDemandRefresh = System.nanoTime() - UNKNOWN_KEY_REFRESH_INTERVAL_NANOS;
+
+    public GoogleSigningKeys() {
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "signing-key-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Fetches the keys once and keeps them fresh from then on; a failed first fetch is retried
+    public GoogleSigningKeys start() {
+        refreshAndReschedule();
+        return this;
+    }
+
+    @Override
+    public PublicKey get(String keyId) {
+        PublicKey key = keys.get(keyId);
+        if (key != null) {
+            return key;
+        }
+        synchronized (this) {
+            key = keys.get(keyId);
+            if (key == null && System.nanoTime() - lastOnDemandRefresh >= UNKNOWN_KEY_REFRESH_INTERVAL_NANOS) {
+                lastOnDemandRefresh = System.nanoTime();
+                logger.info("Unknown signing key {}, refreshing keys", keyId);
+                try {
+                    refresh();
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Could not refresh signing keys: {}", e.getMessage());
+                }
+                key = keys.get(keyId);
+            }
+        }
+        return key;
+    }
+
+    private void refreshAndReschedule() {
+        long delaySeconds;
+        try {
+            long maxAgeSeconds = refresh();
+            // Refresh well before the published keys expire
+            delaySeconds = Math.max(MIN_REFRESH_SECONDS, maxAgeSeconds * 3 / 4);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not refresh signing keys, retrying in {} s: {}", RETRY_SECONDS, e.getMessage());
+            delaySeconds = RETRY_SECONDS;
+        }
+        if (!refresher.isShutdown()) {
+            refresher.schedule(this::refreshAndReschedule, delaySeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    // Replaces the keys and returns how long Google says they may be cached, in seconds
+    private synchronized long refresh() throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(KEYS_URL))
+            .timeout(Duration.ofSeconds(10))
+            .GET()
+            .build();
+        HttpResponse<String> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching signing keys", e);
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Signing key request returned status " + response.statusCode());
+        }
+
+        Map<String, String> certificates = objectMapper.readValue(response.body(),
+            new TypeReference<Map<String, String>>() {});
+        Map<String, PublicKey> parsed = new HashMap<>();
+        certificates.forEach((keyId, pem) -> parsed.put(keyId, PemSigningKeys.parse(pem)));
+        keys = Map.copyOf(parsed);
+
+        long maxAgeSeconds = response.headers().firstValue("Cache-Control")
+            .map(MAX_AGE::matcher)
+            .filter(Matcher::find)
+            .map(matcher -> Long.parseLong(matcher.group(1)))
+            .orElse(DEFAULT_MAX_AGE_SECONDS);
+        logger.info("Loaded {} signing keys, valid for {} s", parsed.size(), maxAgeSeconds);
+        return maxAgeSeconds;
+    }
+
+    @Override
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+}
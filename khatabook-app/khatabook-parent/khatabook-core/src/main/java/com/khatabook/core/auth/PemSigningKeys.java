@@ -0,0 +1,65 @@
+package com.khatabook.core.auth;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.cert.CertificateFactory;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * A fixed set of signing keys, e.g. a local key pair standing in for Firebase during development and
+ * load tests. Keys are PEM, either an X.509 certificate (as Google publishes them) or a public key.
+ */
+public class PemSigningKeys implements SigningKeys {
+    private static final String CERTIFICATE_HEADER = "-----BEGIN CERTIFICATE-----";
+    private static final String PUBLIC_KEY_HEADER = "-----BEGIN PUBLIC KEY-----";
+
+    private final Map<String, PublicKey> keys;
+
+    public PemSigningKeys(Map<String, PublicKey> keys) {
+        this.keys = Map.copyOf(keys);
+    }
+
+    public static PemSigningKeys fromFile(Path path, String keyId) {
+        try {
+            String pem = new String(Files.readAllBytes(path), StandardCharsets.US_ASCII);
+            return new PemSigningKeys(Map.of(keyId, parse(pem)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read signing key " + path, e);
+        }
+    }
+
+    @Override
+    public PublicKey get(String keyId) {
+        return keys.get(keyId);
+    }
+
+    public static PublicKey parse(String pem) {
+        try {
+            if (pem.contains(CERTIFICATE_HEADER)) {
+                return CertificateFactory.getInstance("X.509")
+                    .generateCertificate(new ByteArrayInputStream(pem.getBytes(StandardCharsets.US_ASCII)))
+                    .getPublicKey();
+            }
+            if (pem.contains(PUBLIC_KEY_HEADER)) {
+                return KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(decodeBody(pem)));
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Invalid signing key: " + e.getMessage(), e);
+        }
+        throw new IllegalArgumentException("Signing key must be a PEM certificate or public key");
+    }
+
+    // The base64 between the BEGIN and END lines
+    static byte[] decodeBody(String pem) {
+        String body = pem.replaceAll("-----(BEGIN|END) [A-Z ]+-----", "").replaceAll("\\s", "");
+        return Base64.getDecoder().decode(body);
+    }
+}
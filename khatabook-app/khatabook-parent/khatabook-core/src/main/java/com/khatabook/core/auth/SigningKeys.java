@@ -0,0 +1,12 @@
+package com.khatabook.core.auth;
+
+import java.security.PublicKey;
+
+// Public keys that ID tokens may be signed with, by key id (the token header's "kid")
+public interface SigningKeys {
+    // Null when no key has this id
+    PublicKey get(String keyId);
+
+    default void shutdown() {
+    }
+}
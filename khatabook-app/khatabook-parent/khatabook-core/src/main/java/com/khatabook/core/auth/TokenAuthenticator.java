@@ -0,0 +1,219 @@
+package com.khatabook.core.auth;
+
+import com.khatabook.core.config.AppSettings;
+import com.khatabook.core.config.FirebaseConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Authenticates API requests by ID token, remembering tokens it has already verified.
+ *
+ * A client sends the same token with every request until it expires, so after the first request a
+ * token costs one SHA-256 and a map lookup. Entries are keyed by the token's hash, so raw tokens are
+ * never held in memory, and are kept until the token expires or the max TTL has passed, whichever is
+ * first. The max TTL bounds how long a token revoked on another node stays usable here.
+ *
+ * {@link #revokeUser(String)} drops a user's cached tokens and rejects any token of theirs issued
+ * before the revocation, on this node.
+ */
+public class TokenAuthenticator {
+    private static final Logger logger = LoggerFactory.getLogger(TokenAuthenticator.class);
+    // Firebase ID tokens live for an hour; with clock skew, a revocation two hours old cannot match a valid token
+    private static final long REVOCATION_RETENTION_SECONDS = 7200;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private final TokenVerifier verifier;
+    private final int maxEntries;
+    private final long maxTtlSeconds;
+    private final Clock clock;
+    private final Map<TokenKey, CachedToken> tokens = new ConcurrentHashMap<>();
+    private final Map<String, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TokenAuthenticator(TokenVerifier verifier, int maxEntries, long maxTtlSeconds, Clock clock) {
+        this.verifier = verifier;
+        this.maxEntries = maxEntries;
+        this.maxTtlSeconds = maxTtlSeconds;
+        this.clock = clock;
+    }
+
+    /**
+     * Local verification against a key pair when khatabook.auth.local_key_file is set, otherwise
+     * against Google's published keys (khatabook.auth.verifier=offline, the default) or through the
+     * Firebase Admin SDK (khatabook.auth.verifier=sdk).
+     */
+    public static TokenAuthenticator fromSettings() {
+        long clockSkewSeconds = AppSettings.getLong("khatabook.auth.clock_skew_seconds", 300);
+        String localKeyFile = AppSettings.getString("khatabook.auth.local_key_file", null);
+        TokenVerifier verifier;
+        if (localKeyFile != null) {
+            String projectId = AppSettings.getString("khatabook.auth.project_id", "khatabook-local");
+            logger.warn("Verifying tokens against the local key {} for project {}; Firebase tokens will be rejected",
+                localKeyFile, projectId);
+            SigningKeys keys = PemSigningKeys.fromFile(Paths.get(localKeyFile),
+                AppSettings.getString("khatabook.auth.local_key_id", "local"));
+            verifier = new FirebaseTokenVerifier(projectId, keys, clockSkewSeconds, Clock.systemUTC());
+        } else if ("sdk".equalsIgnoreCase(AppSettings.getString("khatabook.auth.verifier", "offline"))) {
+            FirebaseConfig.initialize();
+            verifier = new FirebaseSdkTokenVerifier();
+        } else {
+            FirebaseConfig.initialize();
+            String projectId = AppSettings.getString("khatabook.auth.project_id", FirebaseConfig.getProjectId());
+            verifier = new FirebaseTokenVerifier(projectId, new GoogleSigningKeys().start(), clockSkewSeconds,
+                Clock.systemUTC());
+        }
+        return new TokenAuthenticator(
+            verifier,
+            AppSettings.getInt("khatabook.auth.token_cache.max_entries", 100_000),
+            AppSettings.getLong("khatabook.auth.token_cache.max_ttl_seconds", 300),
+            Clock.systemUTC()
+        );
+    }
+
+    public VerifiedToken authenticate(String idToken) {
+        TokenKey key = TokenKey.of(idToken);
+        long now = clock.millis() / 1000;
+        CachedToken cached = tokens.get(key);
+        if (cached != null) {
+            if (cached.cacheUntil > now) {
+                hits.increment();
+                return cached.token;
+            }
+            tokens.remove(key, cached);
+        }
+
+        misses.increment();
+        VerifiedToken token;
+        try {
+            token = verifier.verify(idToken);
+        } catch (RuntimeException e) {
+            rejections.increment();
+            throw e;
+        }
+        if (isRevoked(token)) {
+            rejections.increment();
+            throw new IllegalArgumentException("Token has been revoked");
+        }
+
+        long cacheUntil = Math.min(token.getExpiresAt(), now + maxTtlSeconds);
+        if (cacheUntil > now) {
+            makeRoom(now);
+            tokens.put(key, new CachedToken(token, cacheUntil));
+            // A revocation that ran while this token was being verified has to win
+            if (isRevoked(token)) {
+                tokens.remove(key);
+            }
+        }
+        return token;
+    }
+
+    // Revocation hook: forget the user's tokens and refuse any issued before the current second. Issue
+    // times are whole seconds, so a token from the same second passes: that is the one a user who signs
+    // in again right away is given.
+    public void revokeUser(String uid) {
+        long now = clock.millis() / 1000;
+        revokedBefore.put(uid, now);
+        revokedBefore.values().removeIf(revokedAt -> revokedAt < now - REVOCATION_RETENTION_SECONDS);
+        int before = tokens.size();
+        tokens.values().removeIf(cached -> cached.token.getUid().equals(uid));
+        logger.info("Revoked tokens of user {}, evicted {} cached tokens", uid, before - tokens.size());
+    }
+
+    private boolean isRevoked(VerifiedToken token) {
+        Long revokedAt = revokedBefore.get(token.getUid());
+        return revokedAt != null && token.getIssuedAt() < revokedAt;
+    }
+
+    public void clear() {
+        tokens.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", tokens.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("maxTtlSeconds", maxTtlSeconds);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("rejections", rejections.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("revokedUsers", revokedBefore.size());
+        return stats;
+    }
+
+    public void shutdown() {
+        verifier.shutdown();
+    }
+
+    // Drops expired entries when full, then arbitrary ones down to 90% so this does not run every time
+    private void makeRoom(long now) {
+        if (tokens.size() < maxEntries) {
+            return;
+        }
+        int before = tokens.size();
+        tokens.values().removeIf(cached -> cached.cacheUntil <= now);
+        Iterator<TokenKey> iterator = tokens.keySet().iterator();
+        while (tokens.size() >= maxEntries * 9 / 10 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+        evictions.add(Math.max(0, before - tokens.size()));
+    }
+
+    private static final class CachedToken {
+        private final VerifiedToken token;
+        private final long cacheUntil;
+
+        private CachedToken(VerifiedToken token, long cacheUntil) {
+            this.token = token;
+            this.cacheUntil = cacheUntil;
+        }
+    }
+
+    private static final class TokenKey {
+        private final byte[] hash;
+        private final int hashCode;
+
+        private TokenKey(byte[] hash) {
+            this.hash = hash;
+            this.hashCode = Arrays.hashCode(hash);
+        }
+
+        static TokenKey of(String idToken) {
+            return new TokenKey(SHA_256.get().digest(idToken.getBytes(StandardCharsets.US_ASCII)));
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof TokenKey && Arrays.equals(hash, ((TokenKey) other).hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.khatabook.core.auth;
+
+/**
+ * Checks an ID token's signature and claims. Throws IllegalArgumentException for a token that is
+ * malformed, badly signed, expired or meant for another project.
+ */
+public interface TokenVerifier {
+    VerifiedToken verify(String idToken);
+
+    default void shutdown() {
+    }
+}
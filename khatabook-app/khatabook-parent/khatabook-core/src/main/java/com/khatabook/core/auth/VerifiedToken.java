@@ -0,0 +1,41 @@
+package com.khatabook.core.auth;
+
+/**
+ * The claims of an ID token whose signature and claims have been checked. Times are epoch seconds.
+ * Admin is the "admin" custom claim, set on operators' accounts through the Firebase Admin SDK.
+ */
+public class VerifiedToken {
+    private final String uid;
+    private final String phoneNumber;
+    private final long issuedAt;
+    private final long expiresAt;
+    private final boolean admin;
+
+    public VerifiedToken(String uid, String phoneNumber, long issuedAt, long expiresAt, boolean admin) {
+        this.uid = uid;
+        this.phoneNumber = phoneNumber;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+        this.admin = admin;
+    }
+
+    public String getUid() {
+        return uid;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public long getIssuedAt() {
+        return issuedAt;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isAdmin() {
+        return admin;
+    }
+}
@@ -0,0 +1,63 @@
+package com.khatabook.core.cache;
+
+import com.khatabook.core.event.DataChangeListener;
+import com.khatabook.core.event.DataScope;
+import com.khatabook.core.model.DataVersion;
+import com.khatabook.core.repository.DataVersionRepository;
+
+import java.util.Set;
+
+/**
+ * A version per organization and data scope, incremented with every change, from which entity tags
+ * for conditional GETs are built.
+ *
+ * Versions are stored in the data_versions table and incremented in the writing transaction (it is
+ * registered as a transactional listener), so every app node builds the same tag for the same data and
+ * a change committed on one node invalidates tags on all of them. Reading a tag costs one primary key
+ * lookup. A tag must be read before the data it describes, so it is never newer than the data.
+ */
+public class DataVersions implements DataChangeListener {
+    private final DataVersionRepository dataVersionRepository;
+
+    public DataVersions(DataVersionRepository dataVersionRepository) {
+        this.dataVersionRepository = dataVersionRepository;
+    }
+
+    // Strictly increases whenever any of the scopes changes, so it identifies their combined state
+    public long getVersion(Long organizationId, Set<DataScope> scopes) {
+        DataVersion dataVersion = dataVersionRepository.findByOrganization(organizationId).orElse(null);
+        if (dataVersion == null) {
+            return 0;
+        }
+        long version = 0;
+        for (DataScope scope : scopes) {
+            version += getVersion(dataVersion, scope);
+        }
+        return version;
+    }
+
+    // The opaque value of a strong entity tag, without quotes
+    public String getTag(Long organizationId, Set<DataScope> scopes) {
+        return organizationId + "-" + getVersion(organizationId, scopes);
+    }
+
+    @Override
+    public void onDataChanged(Long organizationId, Set<DataScope> scopes) {
+        dataVersionRepository.increment(organizationId, scopes);
+    }
+
+    private static long getVersion(DataVersion dataVersion, DataScope scope) {
+        switch (scope) {
+            case ORGANIZATION:
+                return dataVersion.getOrganizationVersion();
+            case CONTACTS:
+                return dataVersion.getContactsVersion();
+            case EXPENSE_CATEGORIES:
+                return dataVersion.getExpenseCategoriesVersion();
+            case TRANSACTIONS:
+                return dataVersion.getTransactionsVersion();
+            default:
+                throw new IllegalArgumentException("Unknown data scope: " + scope);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.khatabook.core.cache;
+
+import com.khatabook.core.event.DataChangeListener;
+import com.khatabook.core.event.DataScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of report results, invalidated per organization when its data changes.
+ *
+ * Changes committed through this node invalidate entries at once. Each entry also records the
+ * organization's persisted data versions (see {@link DataVersions}) for the scopes its report depends
+ * on, read before the report was built, and a hit whose versions have moved on is discarded; so a
+ * change committed on any node retires the reports it affects everywhere.
+ *
+ * Entries are weighed by the number of values they hold (map entries and list elements), so a
+ * multi-year statement counts for far more of the budget than a balance summary. A result computed
+ * while an invalidation for its organization was in flight is returned but not stored.
+ */
+public class ReportCache implements DataChangeListener {
+    private static final Logger logger = LoggerFactory.getLogger(ReportCache.class);
+
+    public enum ReportType {
+        CONTACT_BALANCE_SUMMARY(DataScope.ORGANIZATION, DataScope.CONTACTS),
+        CONTACT_STATEMENT(DataScope.CONTACTS, DataScope.TRANSACTIONS),
+        OVERALL_STATEMENT(DataScope.ORGANIZATION, DataScope.CONTACTS, DataScope.TRANSACTIONS),
+        EXPENSE_SUMMARY(DataScope.ORGANIZATION, DataScope.CONTACTS, DataScope.EXPENSE_CATEGORIES, DataScope.TRANSACTIONS),
+        PERIOD_WISE_EXPENSE_SUMMARY(DataScope.ORGANIZATION, DataScope.EXPENSE_CATEGORIES, DataScope.TRANSACTIONS);
+
+        private final Set<DataScope> dependsOn;
+
+        ReportType(DataScope... dependsOn) {
+            this.dependsOn = EnumSet.copyOf(Arrays.asList(dependsOn));
+        }
+
+        public boolean dependsOnAny(Set<DataScope> scopes) {
+            return !Collections.disjoint(dependsOn, scopes);
+        }
+
+        public Set<DataScope> getDependsOn() {
+            return Collections.unmodifiableSet(dependsOn);
+        }
+    }
+
+    private final long maxWeight;
+    private final DataVersions dataVersions;
+    private final LinkedHashMap<Key, CacheEntry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<Long, Set<Key>> keysByOrganization = new HashMap<>();
+    private final Map<Long, Long> generations = new HashMap<>();
+    private long currentWeight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder outdated = new LongAdder();
+
+    // Without data versions only this node's changes invalidate entries
+    public ReportCache(long maxWeight) {
+        this(maxWeight, null);
+    }
+
+    public ReportCache(long maxWeight, DataVersions dataVersions) {
+        this.maxWeight = maxWeight;
+        this.dataVersions = dataVersions;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(
+        Long organizationId,
+        ReportType type,
+        LocalDateTime startDate,
+        LocalDateTime endDate,
+        String parameters,
+        Supplier<T> loader
+    ) {
+        if (maxWeight <= 0) {
+            return loader.get();
+        }
+
+        Key key = new Key(organizationId, type, normalize(startDate), normalize(endDate), parameters);
+        // Read before the report is built, so an entry never claims a newer version than its data
+        long version = dataVersions == null ? 0 : dataVersions.getVersion(organizationId, type.getDependsOn());
+        long generation;
+        synchronized (this) {
+            CacheEntry entry = entries.get(key);
+            if (entry != null && entry.version == version) {
+                hits.increment();
+                return (T) entry.value;
+            }
+            if (entry != null) {
+                // Changed through another node since the report was built
+                remove(key);
+                outdated.increment();
+            }
+            generation = generations.getOrDefault(organizationId, 0L);
+        }
+        misses.increment();
+
+        T value = loader.get();
+        long weight = weigh(value);
+        if (weight > maxWeight) {
+            logger.debug("Report {} for organization {} is too large to cache (weight {})",
+                type, organizationId, weight);
+            return value;
+        }
+
+        synchronized (this) {
+            if (generations.getOrDefault(organizationId, 0L) != generation) {
+                return value;
+            }
+            CacheEntry previous = entries.put(key, new CacheEntry(value, weight, version));
+            if (previous != null) {
+                currentWeight -= previous.weight;
+            }
+            currentWeight += weight;
+            keysByOrganization.computeIfAbsent(organizationId, k -> new HashSet<>()).add(key);
+            evictToCapacity();
+        }
+        return value;
+    }
+
+    @Override
+    public synchronized void onDataChanged(Long organizationId, Set<DataScope> scopes) {
+        generations.merge(organizationId, 1L, Long::sum);
+
+        Set<Key> keys = keysByOrganization.get(organizationId);
+        if (keys == null) {
+            return;
+        }
+        Iterator<Key> iterator = keys.iterator();
+        while (iterator.hasNext()) {
+            Key key = iterator.next();
+            if (key.type.dependsOnAny(scopes)) {
+                CacheEntry removed = entries.remove(key);
+                if (removed != null) {
+                    currentWeight -= removed.weight;
+                    invalidations.increment();
+                }
+                iterator.remove();
+            }
+        }
+        if (keys.isEmpty()) {
+            keysByOrganization.remove(organizationId);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        keysByOrganization.clear();
+        currentWeight = 0;
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", requests == 0 ? 0.0 : (double) hitCount / requests);
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("outdated", outdated.sum());
+        synchronized (this) {
+            stats.put("entries", entries.size());
+            stats.put("weight", currentWeight);
+        }
+        stats.put("maxWeight", maxWeight);
+        return stats;
+    }
+
+    private void remove(Key key) {
+        CacheEntry removed = entries.remove(key);
+        if (removed != null) {
+            currentWeight -= removed.weight;
+        }
+        Set<Key> keys = keysByOrganization.get(key.organizationId);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByOrganization.remove(key.organizationId);
+            }
+        }
+    }
+
+    private void evictToCapacity() {
+        Iterator<Map.Entry<Key, CacheEntry>> iterator = entries.entrySet().iterator();
+        while (currentWeight > maxWeight && iterator.hasNext()) {
+            Map.Entry<Key, CacheEntry> eldest = iterator.next();
+            iterator.remove();
+            currentWeight -= eldest.getValue().weight;
+            Set<Key> keys = keysByOrganization.get(eldest.getKey().organizationId);
+            if (keys != null) {
+                keys.remove(eldest.getKey());
+                if (keys.isEmpty()) {
+                    keysByOrganization.remove(eldest.getKey().organizationId);
+                }
+            }
+            evictions.increment();
+        }
+    }
+
+    // Reports are requested with second-level precision; finer parts would only fragment the cache
+    private static LocalDateTime normalize(LocalDateTime dateTime) {
+        return dateTime == null ? null : dateTime.truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    private static long weigh(Object value) {
+        if (value instanceof Map) {
+            long weight = 1;
+            for (Object nested : ((Map<?, ?>) value).values()) {
+                weight += weigh(nested);
+            }
+            return weight;
+        }
+        if (value instanceof Collection) {
+            long weight = 1;
+            for (Object nested : (Collection<?>) value) {
+                weight += weigh(nested);
+            }
+            return weight;
+        }
+        return 1;
+    }
+
+    private static final class CacheEntry {
+        private final Object value;
+        private final long weight;
+        private final long version;
+
+        private CacheEntry(Object value, long weight, long version) {
+            this.value = value;
+            this.weight = weight;
+            this.version = version;
+        }
+    }
+
+    private static final class Key {
+        private final Long organizationId;
+        private final ReportType type;
+        private final LocalDateTime startDate;
+        private final LocalDateTime endDate;
+        private final String parameters;
+
+        private Key(Long organizationId, ReportType type, LocalDateTime startDate, LocalDateTime endDate, String parameters) {
+            this.organizationId = organizationId;
+            this.type = type;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.parameters = parameters;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return organizationId.equals(key.organizationId)
+                && type == key.type
+                && Objects.equals(startDate, key.startDate)
+                && Objects.equals(endDate, key.endDate)
+                && Objects.equals(parameters, key.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(organizationId, type, startDate, endDate, parameters);
+        }
+    }
+}
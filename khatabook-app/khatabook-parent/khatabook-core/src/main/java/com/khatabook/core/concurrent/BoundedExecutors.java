@@ -0,0 +1,186 @@
+package com.khatabook.core.concurrent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors with a fixed concurrency limit and a bounded backlog. Tasks beyond the backlog are
+ * rejected with a RejectedExecutionException instead of queueing without limit.
+ *
+ * On JVMs with virtual threads each task gets its own virtual thread and the limit is enforced by a
+ * semaphore; otherwise a fixed pool of daemon platform threads is used.
+ */
+public final class BoundedExecutors {
+    private static final Logger logger = LoggerFactory.getLogger(BoundedExecutors.class);
+    private static final Method VIRTUAL_THREAD_FACTORY = findVirtualThreadFactory();
+
+    private BoundedExecutors() {}
+
+    public static boolean virtualThreadsAvailable() {
+        return VIRTUAL_THREAD_FACTORY != null;
+    }
+
+    public static ExecutorService newBoundedExecutor(String name, int parallelism, int queueCapacity) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism for " + name + " must be at least 1");
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("Queue capacity for " + name + " cannot be negative");
+        }
+
+        ThreadFactory virtualThreads = newVirtualThreadFactory(name);
+        if (virtualThreads != null) {
+            logger.info("Executor {} uses virtual threads (parallelism {}, queue {})", name, parallelism, queueCapacity);
+            return new VirtualThreadBoundedExecutor(virtualThreads, parallelism, queueCapacity);
+        }
+
+        logger.info("Executor {} uses platform threads (parallelism {}, queue {})", name, parallelism, queueCapacity);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            parallelism, parallelism, 60L, TimeUnit.SECONDS,
+            queueCapacity == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(queueCapacity),
+            new NamedThreadFactory(name),
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public static void shutdown(ExecutorService executor, long timeout, TimeUnit unit) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeout, unit)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Thread.ofVirtual() only exists from Java 21, so it is looked up reflectively
+    private static Method findVirtualThreadFactory() {
+        try {
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Object builder = ofVirtual.invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builderType.getMethod("factory").invoke(builder);
+            return ofVirtual;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory newVirtualThreadFactory(String name) {
+        if (VIRTUAL_THREAD_FACTORY == null) {
+            return null;
+        }
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = VIRTUAL_THREAD_FACTORY.invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, name + "-", 1L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warn("Virtual threads unavailable for executor {}: {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        private NamedThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    // One virtual thread per task; at most `parallelism` run at once and at most `queueCapacity` wait
+    private static final class VirtualThreadBoundedExecutor extends AbstractExecutorService {
+        private final ThreadFactory threadFactory;
+        private final Semaphore running;
+        private final Semaphore admitted;
+        private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        private volatile boolean shutdown;
+
+        private VirtualThreadBoundedExecutor(ThreadFactory threadFactory, int parallelism, int queueCapacity) {
+            this.threadFactory = threadFactory;
+            this.running = new Semaphore(parallelism);
+            this.admitted = new Semaphore(parallelism + queueCapacity);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (shutdown) {
+                throw new RejectedExecutionException("Executor has been shut down");
+            }
+            if (!admitted.tryAcquire()) {
+                throw new RejectedExecutionException("Executor is saturated");
+            }
+            Thread thread = threadFactory.newThread(() -> {
+                try {
+                    running.acquire();
+                    try {
+                        command.run();
+                    } finally {
+                        running.release();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    threads.remove(Thread.currentThread());
+                    admitted.release();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            threads.forEach(Thread::interrupt);
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown && threads.isEmpty();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (!isTerminated()) {
+                if (System.nanoTime() >= deadline) {
+                    return false;
+                }
+                Thread.sleep(10);
+            }
+            return true;
+        }
+    }
+}
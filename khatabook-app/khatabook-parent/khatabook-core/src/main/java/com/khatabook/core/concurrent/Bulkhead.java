@@ -0,0 +1,87 @@
+package com.khatabook.core.concurrent;
+
+import com.khatabook.core.config.AppSettings;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded executor reserved for one class of requests, so that work of one class waiting on the
+ * database cannot take the threads another class needs. Work beyond the parallelism and the queue
+ * is rejected rather than queued, and callers give up on work that has not finished within the
+ * timeout.
+ */
+public class Bulkhead {
+    private final String name;
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final int queueCapacity;
+    private final long timeoutMillis;
+
+    private final LatencyHistogram queueTimes = new LatencyHistogram();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    public Bulkhead(String name, int parallelism, int queueCapacity, long timeoutMillis) {
+        if (timeoutMillis < 1) {
+            throw new IllegalArgumentException("Timeout for " + name + " must be positive");
+        }
+        this.name = name;
+        this.executor = BoundedExecutors.newBoundedExecutor(name + "-bulkhead", parallelism, queueCapacity);
+        this.parallelism = parallelism;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    // Reads khatabook.bulkhead.<name>.parallelism, .queue_capacity and .timeout_millis
+    public static Bulkhead fromSettings(String name, int parallelism, int queueCapacity, long timeoutMillis) {
+        String prefix = "khatabook.bulkhead." + name + ".";
+        return new Bulkhead(
+            name,
+            AppSettings.getInt(prefix + "parallelism", parallelism),
+            AppSettings.getInt(prefix + "queue_capacity", queueCapacity),
+            AppSettings.getLong(prefix + "timeout_millis", timeoutMillis)
+        );
+    }
+
+    // Throws RejectedExecutionException when the bulkhead is full
+    public void execute(Runnable task) {
+        long submittedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                queueTimes.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                task.run();
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public void recordTimeout() {
+        timedOut.increment();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("parallelism", parallelism);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("timeoutMillis", timeoutMillis);
+        stats.put("rejected", rejected.sum());
+        stats.put("timedOut", timedOut.sum());
+        stats.put("queueTime", queueTimes.snapshot());
+        return stats;
+    }
+
+    public void shutdown() {
+        BoundedExecutors.shutdown(executor, 30, TimeUnit.SECONDS);
+    }
+}
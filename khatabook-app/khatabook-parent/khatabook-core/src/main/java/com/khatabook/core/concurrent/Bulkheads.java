@@ -0,0 +1,55 @@
+package com.khatabook.core.concurrent;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The bulkheads API requests run on: reports, writes and reads each get their own threads, so a
+ * burst of slow reports leaves the threads for balance lookups and new transactions alone.
+ */
+public class Bulkheads {
+    private final Bulkhead reports;
+    private final Bulkhead writes;
+    private final Bulkhead reads;
+
+    public Bulkheads(Bulkhead reports, Bulkhead writes, Bulkhead reads) {
+        this.reports = reports;
+        this.writes = writes;
+        this.reads = reads;
+    }
+
+    // Reports are few and long, reads many and short, hence the different limits and timeouts
+    public static Bulkheads fromSettings() {
+        return new Bulkheads(
+            Bulkhead.fromSettings("reports", 4, 16, 60_000),
+            Bulkhead.fromSettings("writes", 16, 64, 15_000),
+            Bulkhead.fromSettings("reads", 32, 128, 10_000)
+        );
+    }
+
+    public Bulkhead getReports() {
+        return reports;
+    }
+
+    public Bulkhead getWrites() {
+        return writes;
+    }
+
+    public Bulkhead getReads() {
+        return reads;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("reports", reports.getStats());
+        stats.put("writes", writes.getStats());
+        stats.put("reads", reads.getStats());
+        return stats;
+    }
+
+    public void shutdown() {
+        reports.shutdown();
+        writes.shutdown();
+        reads.shutdown();
+    }
+}
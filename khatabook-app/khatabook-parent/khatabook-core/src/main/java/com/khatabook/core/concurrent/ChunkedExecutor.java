@@ -0,0 +1,94 @@
+package com.khatabook.core.concurrent;
+
+import com.khatabook.core.config.AppSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Splits a list into fixed-size chunks and processes them concurrently on a dedicated bounded
+ * executor. Results come back in chunk order, so merging them is deterministic. A chunk that the
+ * executor cannot accept runs on the calling thread instead of failing the whole job.
+ */
+public class ChunkedExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedExecutor.class);
+
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final int chunkSize;
+
+    public ChunkedExecutor(String name, int parallelism, int queueCapacity, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size for " + name + " must be at least 1");
+        }
+        this.executor = BoundedExecutors.newBoundedExecutor(name, parallelism, queueCapacity);
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+    }
+
+    // Report parallelism defaults to half the cores so request threads keep the rest
+    public static ChunkedExecutor forReports() {
+        int parallelism = AppSettings.getInt("khatabook.report.parallelism",
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        int queueCapacity = AppSettings.getInt("khatabook.report.queue_capacity", 64);
+        int chunkSize = AppSettings.getInt("khatabook.report.chunk_size", 500);
+        return new ChunkedExecutor("report-worker", parallelism, queueCapacity, chunkSize);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    // Worth splitting only when there is more than one chunk and more than one worker
+    public boolean shouldSplit(int itemCount) {
+        return parallelism > 1 && itemCount > chunkSize;
+    }
+
+    public <T, R> List<R> map(List<T> items, Function<List<T>, R> work) {
+        List<Future<R>> futures = new ArrayList<>();
+        try {
+            for (int from = 0; from < items.size(); from += chunkSize) {
+                List<T> chunk = items.subList(from, Math.min(from + chunkSize, items.size()));
+                futures.add(submit(chunk, work));
+            }
+
+            List<R> results = new ArrayList<>(futures.size());
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for chunked work", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException("Chunked work failed", cause);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    public void shutdown() {
+        BoundedExecutors.shutdown(executor, 30, TimeUnit.SECONDS);
+    }
+
+    private <T, R> Future<R> submit(List<T> chunk, Function<List<T>, R> work) {
+        try {
+            return executor.submit(() -> work.apply(chunk));
+        } catch (RejectedExecutionException e) {
+            logger.debug("Executor saturated, running chunk of {} items on the calling thread", chunk.size());
+            return CompletableFuture.completedFuture(work.apply(chunk));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.khatabook.core.concurrent;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token buckets per key, implemented as the generic cell rate algorithm: each bucket is a single
+ * "theoretical arrival time" updated by compare-and-set, so acquiring never takes a lock and different
+ * keys never contend. A bucket refills at `tokensPerSecond` and holds at most `burst` tokens.
+ *
+ * A bucket that has fully refilled is the same as no bucket, so those are swept once the map grows
+ * large, by one caller at most once a second. A request racing with the sweep of its own bucket may go
+ * uncounted, which errs on the side of admitting it. The map never holds more than `maxBuckets` keys:
+ * when it is full even after a sweep, keys without a bucket are limited until room frees up.
+ */
+public class RateLimiter {
+    private static final int SWEEP_THRESHOLD = 100_000;
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    public static final int DEFAULT_MAX_BUCKETS = 1_000_000;
+
+    private final String name;
+    private final double tokensPerSecond;
+    private final int burst;
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final int maxBuckets;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep = new AtomicLong(System.nanoTime());
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder limited = new LongAdder();
+    private final LongAdder refusedAtCapacity = new LongAdder();
+    private final LongAdder sweeps = new LongAdder();
+
+    public RateLimiter(String name, double tokensPerSecond, int burst) {
+        this(name, tokensPerSecond, burst, DEFAULT_MAX_BUCKETS);
+    }
+
+    public RateLimiter(String name, double tokensPerSecond, int burst, int maxBuckets) {
+        if (tokensPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate limiter " + name + " needs a positive rate and burst");
+        }
+        if (maxBuckets < 1) {
+            throw new IllegalArgumentException("Rate limiter " + name + " needs room for at least one bucket");
+        }
+        this.name = name;
+        this.maxBuckets = maxBuckets;
+        this.tokensPerSecond = tokensPerSecond;
+        this.burst = burst;
+        this.emissionIntervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / tokensPerSecond));
+        this.burstToleranceNanos = burst * emissionIntervalNanos;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    // Takes `cost` tokens and returns 0, or takes nothing and returns the nanoseconds until they would be available
+    public long tryAcquire(String key, int cost) {
+        long now = System.nanoTime();
+        AtomicLong arrival = buckets.get(key);
+        if (arrival == null) {
+            if (buckets.size() >= maxBuckets) {
+                sweep(now);
+                if (buckets.size() >= maxBuckets) {
+                    refusedAtCapacity.increment();
+                    limited.increment();
+                    return SWEEP_INTERVAL_NANOS;
+                }
+            }
+            arrival = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        long increment = cost * emissionIntervalNanos;
+        while (true) {
+            long current = arrival.get();
+            long next = (current - now > 0 ? current : now) + increment;
+            long excess = next - now - burstToleranceNanos;
+            if (excess > 0) {
+                limited.increment();
+                return excess;
+            }
+            if (arrival.compareAndSet(current, next)) {
+                admitted.increment();
+                if (buckets.size() > SWEEP_THRESHOLD) {
+                    sweep(now);
+                }
+                return 0;
+            }
+        }
+    }
+
+    // Drops fully refilled buckets, unless another caller has swept within the interval
+    private void sweep(long now) {
+        long due = nextSweep.get();
+        if (now - due < 0 || !nextSweep.compareAndSet(due, now + SWEEP_INTERVAL_NANOS)) {
+            return;
+        }
+        sweeps.increment();
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+
+    // Gives back tokens taken for a request that was refused further on
+    public void refund(String key, int cost) {
+        AtomicLong arrival = buckets.get(key);
+        if (arrival != null) {
+            arrival.addAndGet(-cost * emissionIntervalNanos);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("tokensPerSecond", tokensPerSecond);
+        stats.put("burst", burst);
+        stats.put("buckets", buckets.size());
+        stats.put("maxBuckets", maxBuckets);
+        stats.put("admitted", admitted.sum());
+        stats.put("limited", limited.sum());
+        stats.put("refusedAtCapacity", refusedAtCapacity.sum());
+        stats.put("sweeps", sweeps.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,92 @@
+package com.khatabook.core.concurrent;
+
+import com.khatabook.core.config.AppSettings;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Limits API requests per user and per organization, so one client polling reports in a loop cannot
+ * take the connection pool from every other tenant. Each request costs tokens by kind, and must get
+ * them from both the caller's bucket and its organization's bucket.
+ */
+public class RequestRateLimiter {
+
+    public enum RequestKind {
+        READ, WRITE, REPORT
+    }
+
+    private final RateLimiter userLimiter;
+    private final RateLimiter organizationLimiter;
+    private final Map<RequestKind, Integer> costs;
+
+    public RequestRateLimiter(RateLimiter userLimiter, RateLimiter organizationLimiter,
+            Map<RequestKind, Integer> costs) {
+        for (RequestKind kind : RequestKind.values()) {
+            int cost = costs.getOrDefault(kind, 0);
+            if (cost < 1 || cost > userLimiter.getBurst() || cost > organizationLimiter.getBurst()) {
+                throw new IllegalArgumentException("Rate limit cost of " + kind + " must be between 1 and the burst");
+            }
+        }
+        this.userLimiter = userLimiter;
+        this.organizationLimiter = organizationLimiter;
+        this.costs = new EnumMap<>(costs);
+    }
+
+    public static boolean isEnabled() {
+        return AppSettings.getBoolean("khatabook.rate_limit.enabled", true);
+    }
+
+    public static RequestRateLimiter fromSettings() {
+        Map<RequestKind, Integer> costs = new EnumMap<>(RequestKind.class);
+        costs.put(RequestKind.READ, AppSettings.getInt("khatabook.rate_limit.cost.read", 1));
+        costs.put(RequestKind.WRITE, AppSettings.getInt("khatabook.rate_limit.cost.write", 2));
+        costs.put(RequestKind.REPORT, AppSettings.getInt("khatabook.rate_limit.cost.report", 10));
+        int maxBuckets = AppSettings.getInt("khatabook.rate_limit.max_buckets", RateLimiter.DEFAULT_MAX_BUCKETS);
+        return new RequestRateLimiter(
+            new RateLimiter("user",
+                AppSettings.getInt("khatabook.rate_limit.user.tokens_per_second", 20),
+                AppSettings.getInt("khatabook.rate_limit.user.burst", 100),
+                maxBuckets),
+            new RateLimiter("organization",
+                AppSettings.getInt("khatabook.rate_limit.organization.tokens_per_second", 100),
+                AppSettings.getInt("khatabook.rate_limit.organization.burst", 500),
+                maxBuckets),
+            costs
+        );
+    }
+
+    /**
+     * Returns 0 when the request may proceed, otherwise the nanoseconds until it could. Either id may be
+     * null, e.g. for requests outside an organization.
+     */
+    public long acquire(String userId, Long organizationId, RequestKind kind) {
+        int cost = costs.get(kind);
+        if (userId != null) {
+            long wait = userLimiter.tryAcquire(userId, cost);
+            if (wait > 0) {
+                return wait;
+            }
+        }
+        if (organizationId != null) {
+            long wait = organizationLimiter.tryAcquire(organizationId.toString(), cost);
+            if (wait > 0) {
+                // A refused request should not use up the user's own allowance
+                if (userId != null) {
+                    userLimiter.refund(userId, cost);
+                }
+                return wait;
+            }
+        }
+        return 0;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("costs", costs);
+        stats.put("user", userLimiter.getStats());
+        stats.put("organization", organizationLimiter.getStats());
+        return stats;
+    }
+}
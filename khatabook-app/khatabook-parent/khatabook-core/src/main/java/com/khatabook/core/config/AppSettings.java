@@ -0,0 +1,55 @@
+package com.khatabook.core.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Deployment settings looked up by key, first as a JVM system property (-Dkhatabook.report.parallelism=4)
+ * and then as an environment variable with dots replaced by underscores (KHATABOOK_REPORT_PARALLELISM=4).
+ */
+public class AppSettings {
+    private static final Logger logger = LoggerFactory.getLogger(AppSettings.class);
+
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            value = System.getenv(toEnvironmentName(key));
+        }
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            logger.error("Invalid integer for setting {}: {}", key, value);
+            throw new IllegalStateException("Invalid integer for setting " + key + ": " + value, e);
+        }
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            logger.error("Invalid number for setting {}: {}", key, value);
+            throw new IllegalStateException("Invalid number for setting " + key + ": " + value, e);
+        }
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    public static String toEnvironmentName(String key) {
+        return key.toUpperCase().replace('.', '_').replace('-', '_');
+    }
+}
@@ -4,111 +4,218 @@ import com.khatabook.core.model.*;
 import org.hibernate.SessionFactory;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
 import org.hibernate.cfg.Configuration;
-import org.hibernate.cfg.Environment;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.hibernate.service.ServiceRegistry;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.TreeMap;
 
 public class DatabaseConfig {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseConfig.class);
-    private static SessionFactory sessionFactory;
+    // Each factory is built at most once, even when several threads ask for it at the same time
+    private static final Object PRIMARY_LOCK = new Object();
+    private static final Object REPLICA_LOCK = new Object();
+    private static volatile SessionFactory sessionFactory;
+    private static volatile SessionFactory replicaSessionFactory;
+    private static volatile PersistenceSettings persistenceSettings;
 
     public static SessionFactory getSessionFactory() {
-        if (sessionFactory == null) {
-            try {
-                Configuration configuration = new Configuration();
-
-                // Load database properties
-                Properties settings = new Properties();
-                try (var inputStream = DatabaseConfig.class.getClassLoader()
-                        .getResourceAsStream("database.properties")) {
-                    if (inputStream == null) {
-                        throw new RuntimeException("Unable to find database.properties");
+        SessionFactory factory = sessionFactory;
+        if (factory == null) {
+            synchronized (PRIMARY_LOCK) {
+                factory = sessionFactory;
+                if (factory == null) {
+                    try {
+                        PersistenceSettings settings = getPersistenceSettings();
+                        factory = buildSessionFactory(settings.toHibernateProperties());
+                        sessionFactory = factory;
+                        logger.info("Hibernate SessionFactory created successfully");
+                    } catch (Exception e) {
+                        logger.error("Error initializing Hibernate SessionFactory: {}", e.getMessage(), e);
+                        throw new RuntimeException("Failed to initialize Hibernate SessionFactory", e);
                     }
-                    settings.load(inputStream);
-                } catch (IOException e) {
-                    logger.error("Error loading database properties: {}", e.getMessage(), e);
-                    throw new RuntimeException("Failed to load database properties", e);
                 }
+            }
+        }
+        return factory;
+    }
 
-                // Map properties to Hibernate settings
-                Properties hibernateProps = new Properties();
-                
-                // Database connection settings
-                hibernateProps.put(Environment.DRIVER, settings.getProperty("db.driver"));
-                hibernateProps.put(Environment.URL, settings.getProperty("db.url"));
-                hibernateProps.put(Environment.USER, settings.getProperty("db.username"));
-                hibernateProps.put(Environment.PASS, settings.getProperty("db.password"));
-                
-                // Hibernate properties
-                hibernateProps.put(Environment.DIALECT, settings.getProperty("hibernate.dialect"));
-                hibernateProps.put(Environment.SHOW_SQL, settings.getProperty("hibernate.show_sql"));
-                hibernateProps.put(Environment.FORMAT_SQL, settings.getProperty("hibernate.format_sql"));
-                hibernateProps.put(Environment.HBM2DDL_AUTO, settings.getProperty("hibernate.hbm2ddl.auto"));
-                hibernateProps.put(Environment.CURRENT_SESSION_CONTEXT_CLASS, 
-                    settings.getProperty("hibernate.current_session_context_class"));
-                
-                // C3P0 connection pool settings
-                hibernateProps.put(Environment.C3P0_MIN_SIZE, settings.getProperty("hibernate.c3p0.min_size"));
-                hibernateProps.put(Environment.C3P0_MAX_SIZE, settings.getProperty("hibernate.c3p0.max_size"));
-                hibernateProps.put(Environment.C3P0_ACQUIRE_INCREMENT, 
-                    settings.getProperty("hibernate.c3p0.acquire_increment"));
-                hibernateProps.put(Environment.C3P0_TIMEOUT, settings.getProperty("hibernate.c3p0.timeout"));
-                hibernateProps.put(Environment.C3P0_MAX_STATEMENTS, 
-                    settings.getProperty("hibernate.c3p0.max_statements"));
-                hibernateProps.put(Environment.C3P0_IDLE_TEST_PERIOD, 
-                    settings.getProperty("hibernate.c3p0.idle_test_period"));
-                
-                // Second-level cache settings
-                hibernateProps.put(Environment.USE_SECOND_LEVEL_CACHE, 
-                    settings.getProperty("hibernate.cache.use_second_level_cache"));
-                hibernateProps.put(Environment.USE_QUERY_CACHE, 
-                    settings.getProperty("hibernate.cache.use_query_cache"));
-                hibernateProps.put(Environment.CACHE_REGION_FACTORY, 
-                    settings.getProperty("hibernate.cache.region.factory_class"));
-
-                configuration.setProperties(settings);
-
-                // Register entity classes
-                configuration.addAnnotatedClass(Organization.class);
-                configuration.addAnnotatedClass(Contact.class);
-                configuration.addAnnotatedClass(ExpenseCategory.class);
-                configuration.addAnnotatedClass(Transaction.class);
-                configuration.addAnnotatedClass(ExpenseTransaction.class);
-                configuration.addAnnotatedClass(GiveTakeTransaction.class);
-
-                ServiceRegistry serviceRegistry = new StandardServiceRegistryBuilder()
-                    .applySettings(configuration.getProperties())
-                    .build();
-
-                sessionFactory = configuration.buildSessionFactory(serviceRegistry);
-                
-                logger.info("Hibernate SessionFactory created successfully");
+    // The read replica's SessionFactory, when db.replica.url is set
+    public static Optional<SessionFactory> getReplicaSessionFactory() {
+        PersistenceSettings settings = getPersistenceSettings();
+        if (!settings.hasReplica()) {
+            return Optional.empty();
+        }
+        SessionFactory factory = replicaSessionFactory;
+        if (factory == null) {
+            // Separate lock from the primary's, so both factories can be built in parallel
+            synchronized (REPLICA_LOCK) {
+                factory = replicaSessionFactory;
+                if (factory == null) {
+                    try {
+                        factory = buildSessionFactory(settings.toReplicaHibernateProperties());
+                        replicaSessionFactory = factory;
+                        logger.info("Hibernate SessionFactory for the read replica created successfully");
+                    } catch (Exception e) {
+                        logger.error("Error initializing read replica SessionFactory: {}", e.getMessage(), e);
+                        throw new RuntimeException("Failed to initialize read replica SessionFactory", e);
+                    }
+                }
+            }
+        }
+        return Optional.of(factory);
+    }
 
-            } catch (Exception e) {
-                logger.error("Error initializing Hibernate SessionFactory: {}", e.getMessage(), e);
-                if (sessionFactory != null) {
-                    sessionFactory.close();
+    // Resolves the profile, file and environment into validated settings, once
+    public static PersistenceSettings getPersistenceSettings() {
+        PersistenceSettings settings = persistenceSettings;
+        if (settings == null) {
+            synchronized (DatabaseConfig.class) {
+                settings = persistenceSettings;
+                if (settings == null) {
+                    settings = PersistenceSettings.load(loadDatabaseProperties());
+                    settings.logEffectiveSettings();
+                    persistenceSettings = settings;
                 }
-                throw new RuntimeException("Failed to initialize Hibernate SessionFactory", e);
             }
         }
-        return sessionFactory;
+        return settings;
+    }
+
+    private static SessionFactory buildSessionFactory(Properties hibernateProperties) {
+        Configuration configuration = new Configuration();
+        configuration.setProperties(hibernateProperties);
+
+        // Register entity classes
+        configuration.addAnnotatedClass(Organization.class);
+        configuration.addAnnotatedClass(Contact.class);
+        configuration.addAnnotatedClass(ExpenseCategory.class);
+        configuration.addAnnotatedClass(Transaction.class);
+        configuration.addAnnotatedClass(ExpenseTransaction.class);
+        configuration.addAnnotatedClass(GiveTakeTransaction.class);
+        configuration.addAnnotatedClass(DailyExpenseRollup.class);
+        configuration.addAnnotatedClass(ApiKey.class);
+        configuration.addAnnotatedClass(DataVersion.class);
+
+        ServiceRegistry serviceRegistry = new StandardServiceRegistryBuilder()
+            .applySettings(configuration.getProperties())
+            .build();
+        try {
+            return configuration.buildSessionFactory(serviceRegistry);
+        } catch (RuntimeException e) {
+            StandardServiceRegistryBuilder.destroy(serviceRegistry);
+            throw e;
+        }
+    }
+
+    // database.properties is optional: every setting can also come from the environment
+    private static Properties loadDatabaseProperties() {
+        Properties properties = new Properties();
+        try (var inputStream = DatabaseConfig.class.getClassLoader()
+                .getResourceAsStream("database.properties")) {
+            if (inputStream == null) {
+                logger.warn("No database.properties found, using profile defaults and environment settings");
+                return properties;
+            }
+            properties.load(inputStream);
+            return properties;
+        } catch (IOException e) {
+            logger.error("Error loading database properties: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to load database properties", e);
+        }
+    }
+
+    // Pool gauges and connection acquire-time percentiles; only the HikariCP provider records them
+    public static Map<String, Object> getConnectionPoolStats() {
+        return hikariProvider(getSessionFactory())
+            .map(HikariConnectionProvider::getStats)
+            .orElseGet(() -> Map.of("provider", PersistenceSettings.POOL_C3P0));
+    }
+
+    public static Optional<Map<String, Object>> getReplicaConnectionPoolStats() {
+        return getReplicaSessionFactory().map(replica -> hikariProvider(replica)
+            .map(HikariConnectionProvider::getStats)
+            .orElseGet(() -> Map.of("provider", PersistenceSettings.POOL_C3P0)));
+    }
+
+    // Hit ratio and size of each second-level cache region, including the natural id region
+    public static Map<String, Object> getSecondLevelCacheStats() {
+        Statistics statistics = getSessionFactory().getStatistics();
+        Map<String, Object> regions = new TreeMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(regionName);
+            long hits = region.getHitCount();
+            long misses = region.getMissCount();
+            Map<String, Object> regionStats = new LinkedHashMap<>();
+            regionStats.put("hits", hits);
+            regionStats.put("misses", misses);
+            regionStats.put("puts", region.getPutCount());
+            regionStats.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+            regionStats.put("elementsInMemory", region.getElementCountInMemory());
+            regions.put(regionName, regionStats);
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", getPersistenceSettings().isCacheEnabled());
+        stats.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        stats.put("regions", regions);
+        return stats;
+    }
+
+    public static void evictSecondLevelCache() {
+        getSessionFactory().getCache().evictAllRegions();
+    }
+
+    public static void resetConnectionAcquireTimes() {
+        hikariProvider(getSessionFactory()).ifPresent(HikariConnectionProvider::resetAcquireTimes);
+    }
+
+    private static Optional<HikariConnectionProvider> hikariProvider(SessionFactory factory) {
+        ConnectionProvider provider = factory.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(ConnectionProvider.class);
+        return provider instanceof HikariConnectionProvider
+            ? Optional.of((HikariConnectionProvider) provider)
+            : Optional.empty();
     }
 
     public static void shutdown() {
-        if (sessionFactory != null && !sessionFactory.isClosed()) {
-            sessionFactory.close();
-            logger.info("Hibernate SessionFactory closed successfully");
+        synchronized (REPLICA_LOCK) {
+            if (replicaSessionFactory != null && !replicaSessionFactory.isClosed()) {
+                replicaSessionFactory.close();
+                logger.info("Read replica SessionFactory closed successfully");
+            }
+        }
+        synchronized (PRIMARY_LOCK) {
+            if (sessionFactory != null && !sessionFactory.isClosed()) {
+                sessionFactory.close();
+                logger.info("Hibernate SessionFactory closed successfully");
+            }
         }
     }
 
     // Helper method to recreate the session factory (useful for testing)
     public static void recreateSessionFactory() {
         shutdown();
-        sessionFactory = null;
+        // Same order as getSessionFactory, which reads the settings while holding the primary's lock
+        synchronized (PRIMARY_LOCK) {
+            synchronized (REPLICA_LOCK) {
+                synchronized (DatabaseConfig.class) {
+                    sessionFactory = null;
+                    replicaSessionFactory = null;
+                    persistenceSettings = null;
+                }
+            }
+        }
         getSessionFactory();
     }
 
@@ -117,12 +224,15 @@ public class DatabaseConfig {
         try (var session = getSessionFactory().openSession()) {
             var transaction = session.beginTransaction();
             try {
+                session.createQuery("delete from DailyExpenseRollup").executeUpdate();
+                session.createQuery("delete from ApiKey").executeUpdate();
                 session.createQuery("delete from GiveTakeTransaction").executeUpdate();
                 session.createQuery("delete from ExpenseTransaction").executeUpdate();
                 session.createQuery("delete from Transaction").executeUpdate();
                 session.createQuery("delete from Contact").executeUpdate();
                 session.createQuery("delete from ExpenseCategory").executeUpdate();
                 session.createQuery("delete from Organization").executeUpdate();
+                session.createQuery("delete from DataVersion").executeUpdate();
                 
                 transaction.commit();
                 logger.info("Database cleared successfully");
@@ -1,6 +1,7 @@
 package com.khatabook.core.config;
 
 import com.google.auth.oauth2.GoogleCredentials;
+import com.google.auth.oauth2.ServiceAccountCredentials;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import com.google.firebase.auth.FirebaseAuth;
@@ -14,24 +15,35 @@ import java.io.InputStream;
 
 public class FirebaseConfig {
     private static final Logger logger = LoggerFactory.getLogger(FirebaseConfig.class);
-    private static FirebaseApp firebaseApp;
+    private static volatile FirebaseApp firebaseApp;
+    private static volatile String projectId;
     private static final String FIREBASE_CONFIG_PATH = "firebase-service-account.json";
 
+    // Safe to call from several threads; the app is initialized exactly once
     public static void initialize() {
-        if (firebaseApp == null) {
-            try {
-                InputStream serviceAccount = FirebaseConfig.class
+        if (firebaseApp != null) {
+            return;
+        }
+        synchronized (FirebaseConfig.class) {
+            if (firebaseApp != null) {
+                return;
+            }
+            try (InputStream serviceAccount = FirebaseConfig.class
                     .getClassLoader()
-                    .getResourceAsStream(FIREBASE_CONFIG_PATH);
+                    .getResourceAsStream(FIREBASE_CONFIG_PATH)) {
 
                 if (serviceAccount == null) {
                     throw new IllegalStateException("Firebase configuration file not found: " + FIREBASE_CONFIG_PATH);
                 }
 
+                GoogleCredentials credentials = GoogleCredentials.fromStream(serviceAccount);
                 FirebaseOptions options = FirebaseOptions.builder()
-                    .setCredentials(GoogleCredentials.fromStream(serviceAccount))
+                    .setCredentials(credentials)
                     .build();
 
+                if (credentials instanceof ServiceAccountCredentials) {
+                    projectId = ((ServiceAccountCredentials) credentials).getProjectId();
+                }
                 firebaseApp = FirebaseApp.initializeApp(options);
                 logger.info("Firebase has been initialized successfully");
             } catch (IOException e) {
@@ -41,11 +53,19 @@ public class FirebaseConfig {
         }
     }
 
+    public static boolean isInitialized() {
+        return firebaseApp != null;
+    }
+
+    // The project ID tokens are issued for, from the service account; null if it names none
+    public static String getProjectId() {
+        initialize();
+        return projectId;
+    }
+
     public static FirebaseToken verifyToken(String idToken) {
         try {
-            if (firebaseApp == null) {
-                initialize();
-            }
+            initialize();
             return FirebaseAuth.getInstance().verifyIdToken(idToken);
         } catch (Exception e) {
             logger.error("Error verifying Firebase token: {}", e.getMessage());
@@ -63,7 +83,7 @@ public class FirebaseConfig {
         return decodedToken.getClaims().get("phone_number", String.class);
     }
 
-    public static void shutdown() {
+    public static synchronized void shutdown() {
         if (firebaseApp != null) {
             firebaseApp.delete();
             firebaseApp = null;
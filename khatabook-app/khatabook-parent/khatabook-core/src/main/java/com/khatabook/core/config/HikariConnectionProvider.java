@@ -0,0 +1,159 @@
+package com.khatabook.core.config;
+
+import com.khatabook.core.concurrent.LatencyHistogram;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.hibernate.cfg.Environment;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hibernate ConnectionProvider backed by a HikariCP pool that also measures how long each connection
+ * checkout takes. Selected with db.pool.provider=hikari; its pool settings come from the khatabook.pool.*
+ * keys that PersistenceSettings adds to the Hibernate properties.
+ */
+public class HikariConnectionProvider implements ConnectionProvider, Configurable, Stoppable {
+    private static final Logger logger = LoggerFactory.getLogger(HikariConnectionProvider.class);
+
+    static final String POOL_NAME = "khatabook.pool.name";
+    static final String MIN_IDLE = "khatabook.pool.min_idle";
+    static final String MAX_SIZE = "khatabook.pool.max_size";
+    static final String IDLE_TIMEOUT_MS = "khatabook.pool.idle_timeout_ms";
+    static final String CONNECTION_TIMEOUT_MS = "khatabook.pool.connection_timeout_ms";
+    static final String LEAK_DETECTION_MS = "khatabook.pool.leak_detection_ms";
+    static final String STATEMENT_CACHE_SIZE = "khatabook.pool.statement_cache_size";
+
+    private final LatencyHistogram acquireTimes = new LatencyHistogram();
+    private final LongAdder acquireFailures = new LongAdder();
+    private HikariDataSource dataSource;
+    private long leakDetectionMillis;
+
+    @Override
+    public void configure(Map configurationValues) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(setting(configurationValues, POOL_NAME, "khatabook"));
+        config.setJdbcUrl(setting(configurationValues, Environment.URL, null));
+        config.setUsername(setting(configurationValues, Environment.USER, null));
+        config.setPassword(setting(configurationValues, Environment.PASS, null));
+        String driver = setting(configurationValues, Environment.DRIVER, null);
+        if (driver != null) {
+            config.setDriverClassName(driver);
+        }
+        config.setMinimumIdle(Integer.parseInt(setting(configurationValues, MIN_IDLE, "2")));
+        config.setMaximumPoolSize(Integer.parseInt(setting(configurationValues, MAX_SIZE, "10")));
+        config.setIdleTimeout(Long.parseLong(setting(configurationValues, IDLE_TIMEOUT_MS, "300000")));
+        config.setConnectionTimeout(Long.parseLong(setting(configurationValues, CONNECTION_TIMEOUT_MS, "30000")));
+        leakDetectionMillis = Long.parseLong(setting(configurationValues, LEAK_DETECTION_MS, "0"));
+        config.setLeakDetectionThreshold(leakDetectionMillis);
+        // Hibernate decides commit boundaries itself
+        config.setAutoCommit(false);
+
+        // Hikari has no statement cache of its own; MySQL Connector/J caches prepared statements per connection
+        int statementCacheSize = Integer.parseInt(setting(configurationValues, STATEMENT_CACHE_SIZE, "0"));
+        if (statementCacheSize > 0) {
+            config.addDataSourceProperty("cachePrepStmts", "true");
+            config.addDataSourceProperty("prepStmtCacheSize", String.valueOf(statementCacheSize));
+            config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+            config.addDataSourceProperty("useServerPrepStmts", "true");
+        }
+
+        dataSource = new HikariDataSource(config);
+        logger.info("HikariCP pool {} started: {}-{} connections, leak detection {}", config.getPoolName(),
+            config.getMinimumIdle(), config.getMaximumPoolSize(),
+            leakDetectionMillis > 0 ? leakDetectionMillis + " ms" : "off");
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            Connection connection = dataSource.getConnection();
+            acquireTimes.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return connection;
+        } catch (SQLException e) {
+            acquireFailures.increment();
+            logger.error("Could not acquire a connection from pool {} after {} ms: {}", dataSource.getPoolName(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), e.getMessage());
+            throw e;
+        }
+    }
+
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    // Live pool gauges and connection acquire-time percentiles since start or the last reset
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("provider", "hikari");
+        stats.put("pool", dataSource.getPoolName());
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool != null) {
+            stats.put("active", pool.getActiveConnections());
+            stats.put("idle", pool.getIdleConnections());
+            stats.put("pending", pool.getThreadsAwaitingConnection());
+            stats.put("total", pool.getTotalConnections());
+        }
+        stats.put("maxPoolSize", dataSource.getMaximumPoolSize());
+        stats.put("leakDetectionThresholdMs", leakDetectionMillis);
+        stats.put("acquireFailures", acquireFailures.sum());
+        stats.put("acquireTime", acquireTimes.snapshot());
+        return stats;
+    }
+
+    public void resetAcquireTimes() {
+        acquireTimes.reset();
+        acquireFailures.reset();
+    }
+
+    @Override
+    public void stop() {
+        if (dataSource != null && !dataSource.isClosed()) {
+            dataSource.close();
+            logger.info("HikariCP pool {} closed", dataSource.getPoolName());
+        }
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class unwrapType) {
+        return ConnectionProvider.class.equals(unwrapType)
+            || HikariConnectionProvider.class.isAssignableFrom(unwrapType)
+            || DataSource.class.isAssignableFrom(unwrapType);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (ConnectionProvider.class.equals(unwrapType) || HikariConnectionProvider.class.isAssignableFrom(unwrapType)) {
+            return (T) this;
+        }
+        if (DataSource.class.isAssignableFrom(unwrapType)) {
+            return (T) dataSource;
+        }
+        throw new UnknownUnwrapTypeException(unwrapType);
+    }
+
+    private static String setting(Map<?, ?> values, String key, String defaultValue) {
+        Object value = values.get(key);
+        return value == null || value.toString().trim().isEmpty() ? defaultValue : value.toString().trim();
+    }
+}
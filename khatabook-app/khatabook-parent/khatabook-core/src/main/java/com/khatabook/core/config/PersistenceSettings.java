@@ -0,0 +1,483 @@
+package com.khatabook.core.config;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.Environment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Typed, validated database and Hibernate settings.
+ *
+ * Every value is resolved from, in order: the `khatabook.`-prefixed system property or environment
+ * variable (khatabook.db.pool.max_size or KHATABOOK_DB_POOL_MAX_SIZE), the same key without the prefix
+ * in database.properties (db.pool.max_size), and finally the defaults of the selected profile. The
+ * profile itself is chosen with db.profile the same way and defaults to dev.
+ *
+ * database.properties files written before these settings used Hibernate's own keys. Those with a db.*
+ * equivalent (hibernate.jdbc.batch_size, hibernate.c3p0.max_size, ...) are read as that setting; any
+ * other hibernate.* key is handed to Hibernate unchanged, with a warning since it is not validated.
+ */
+public class PersistenceSettings {
+    private static final Logger logger = LoggerFactory.getLogger(PersistenceSettings.class);
+    private static final String OVERRIDE_PREFIX = "khatabook.";
+    private static final Set<String> PROD_FORBIDDEN_SCHEMA_ACTIONS = Set.of("create", "create-drop", "update");
+    public static final String POOL_C3P0 = "c3p0";
+    public static final String POOL_HIKARI = "hikari";
+
+    public enum Profile {
+        // Small pool, schema kept up to date, no caching so changes made by hand show up immediately
+        DEV(Map.ofEntries(
+            Map.entry("db.statistics", "true"),
+            Map.entry("db.schema_action", "update"),
+            Map.entry("db.show_sql", "false"),
+            Map.entry("db.pool.min_size", "2"),
+            Map.entry("db.pool.max_size", "10"),
+            Map.entry("db.pool.leak_detection_ms", "10000"),
+            Map.entry("db.statement_cache_size", "0"),
+            Map.entry("db.jdbc.batch_size", "50"),
+            Map.entry("db.jdbc.fetch_size", "100"),
+            Map.entry("db.cache.enabled", "false")
+        )),
+        // Schema changes are applied by migrations and only validated here
+        PROD(Map.ofEntries(
+            Map.entry("db.statistics", "true"),
+            Map.entry("db.schema_action", "validate"),
+            Map.entry("db.show_sql", "false"),
+            Map.entry("db.pool.min_size", "10"),
+            Map.entry("db.pool.max_size", "40"),
+            Map.entry("db.pool.leak_detection_ms", "60000"),
+            Map.entry("db.statement_cache_size", "250"),
+            Map.entry("db.jdbc.batch_size", "50"),
+            Map.entry("db.jdbc.fetch_size", "100"),
+            Map.entry("db.cache.enabled", "true")
+        )),
+        // Throughput runs: a large pool and batches, and no caches or statistics hiding database cost
+        BENCH(Map.ofEntries(
+            Map.entry("db.statistics", "false"),
+            Map.entry("db.schema_action", "update"),
+            Map.entry("db.show_sql", "false"),
+            Map.entry("db.pool.min_size", "20"),
+            Map.entry("db.pool.max_size", "64"),
+            Map.entry("db.pool.leak_detection_ms", "0"),
+            Map.entry("db.statement_cache_size", "500"),
+            Map.entry("db.jdbc.batch_size", "100"),
+            Map.entry("db.jdbc.fetch_size", "500"),
+            Map.entry("db.cache.enabled", "false")
+        ));
+
+        private final Map<String, String> defaults;
+
+        Profile(Map<String, String> defaults) {
+            this.defaults = defaults;
+        }
+    }
+
+    // Defaults shared by every profile
+    private static final Map<String, String> COMMON_DEFAULTS = Map.ofEntries(
+        Map.entry("db.driver", "com.mysql.cj.jdbc.Driver"),
+        Map.entry("db.dialect", "org.hibernate.dialect.MySQL8Dialect"),
+        Map.entry("db.format_sql", "false"),
+        Map.entry("db.pool.provider", POOL_C3P0),
+        Map.entry("db.pool.acquire_increment", "2"),
+        Map.entry("db.pool.connection_timeout_ms", "30000"),
+        Map.entry("db.pool.idle_timeout_seconds", "300"),
+        Map.entry("db.pool.idle_test_period_seconds", "60"),
+        Map.entry("db.order_inserts", "true"),
+        Map.entry("db.order_updates", "true"),
+        Map.entry("db.cache.query_cache", "false"),
+        Map.entry("db.cache.region_factory", "jcache"),
+        Map.entry("db.cache.config", "ehcache.xml"),
+        Map.entry("db.cache.region_prefix", "khatabook"),
+        Map.entry("db.replica.schema_action", "none"),
+        Map.entry("db.replica.pin_window_ms", "3000")
+    );
+
+    // Hibernate keys from older database.properties files and the setting each one stands for
+    private static final Map<String, String> LEGACY_KEYS = Map.ofEntries(
+        Map.entry(Environment.DRIVER, "db.driver"),
+        Map.entry(Environment.URL, "db.url"),
+        Map.entry(Environment.USER, "db.username"),
+        Map.entry(Environment.PASS, "db.password"),
+        Map.entry(Environment.DIALECT, "db.dialect"),
+        Map.entry(Environment.HBM2DDL_AUTO, "db.schema_action"),
+        Map.entry(Environment.SHOW_SQL, "db.show_sql"),
+        Map.entry(Environment.FORMAT_SQL, "db.format_sql"),
+        Map.entry(Environment.C3P0_MIN_SIZE, "db.pool.min_size"),
+        Map.entry(Environment.C3P0_MAX_SIZE, "db.pool.max_size"),
+        Map.entry(Environment.C3P0_ACQUIRE_INCREMENT, "db.pool.acquire_increment"),
+        Map.entry(Environment.C3P0_TIMEOUT, "db.pool.idle_timeout_seconds"),
+        Map.entry(Environment.C3P0_IDLE_TEST_PERIOD, "db.pool.idle_test_period_seconds"),
+        Map.entry(Environment.C3P0_MAX_STATEMENTS, "db.statement_cache_size"),
+        Map.entry(Environment.STATEMENT_BATCH_SIZE, "db.jdbc.batch_size"),
+        Map.entry(Environment.STATEMENT_FETCH_SIZE, "db.jdbc.fetch_size"),
+        Map.entry(Environment.ORDER_INSERTS, "db.order_inserts"),
+        Map.entry(Environment.ORDER_UPDATES, "db.order_updates"),
+        Map.entry(Environment.USE_SECOND_LEVEL_CACHE, "db.cache.enabled"),
+        Map.entry(Environment.USE_QUERY_CACHE, "db.cache.query_cache"),
+        Map.entry(Environment.CACHE_REGION_FACTORY, "db.cache.region_factory"),
+        Map.entry(Environment.CACHE_REGION_PREFIX, "db.cache.region_prefix"),
+        Map.entry(Environment.GENERATE_STATISTICS, "db.statistics")
+    );
+    private static final String HIBERNATE_PREFIX = "hibernate.";
+
+    private final Profile profile;
+    private final Map<String, String> hibernatePassthrough;
+    private final String driver;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String dialect;
+    private final String schemaAction;
+    private final boolean showSql;
+    private final boolean formatSql;
+    private final String poolProvider;
+    private final int poolMinSize;
+    private final int poolMaxSize;
+    private final int poolAcquireIncrement;
+    private final int poolIdleTimeoutSeconds;
+    private final int poolIdleTestPeriodSeconds;
+    private final long poolConnectionTimeoutMillis;
+    private final long poolLeakDetectionMillis;
+    private final int statementCacheSize;
+    private final int jdbcBatchSize;
+    private final int jdbcFetchSize;
+    private final boolean orderInserts;
+    private final boolean orderUpdates;
+    private final boolean cacheEnabled;
+    private final boolean queryCacheEnabled;
+    private final String cacheRegionFactory;
+    private final String cacheRegionPrefix;
+    private final String cacheConfig;
+    private final boolean statisticsEnabled;
+    private final String replicaUrl;
+    private final String replicaUsername;
+    private final String replicaPassword;
+    private final String replicaSchemaAction;
+    private final long replicaPinWindowMillis;
+
+    private PersistenceSettings(Profile profile, Properties file, Map<String, String> hibernatePassthrough) {
+        this.profile = profile;
+        this.hibernatePassthrough = hibernatePassthrough;
+        Resolver resolver = new Resolver(profile, file);
+        this.driver = resolver.string("db.driver");
+        this.url = resolver.string("db.url");
+        this.username = resolver.string("db.username");
+        this.password = resolver.string("db.password");
+        this.dialect = resolver.string("db.dialect");
+        this.schemaAction = resolver.string("db.schema_action");
+        this.showSql = resolver.bool("db.show_sql");
+        this.formatSql = resolver.bool("db.format_sql");
+        this.poolProvider = resolver.string("db.pool.provider").toLowerCase(Locale.ROOT);
+        this.poolMinSize = resolver.integer("db.pool.min_size");
+        this.poolMaxSize = resolver.integer("db.pool.max_size");
+        this.poolAcquireIncrement = resolver.integer("db.pool.acquire_increment");
+        this.poolIdleTimeoutSeconds = resolver.integer("db.pool.idle_timeout_seconds");
+        this.poolIdleTestPeriodSeconds = resolver.integer("db.pool.idle_test_period_seconds");
+        this.poolConnectionTimeoutMillis = resolver.integer("db.pool.connection_timeout_ms");
+        this.poolLeakDetectionMillis = resolver.integer("db.pool.leak_detection_ms");
+        this.statementCacheSize = resolver.integer("db.statement_cache_size");
+        this.jdbcBatchSize = resolver.integer("db.jdbc.batch_size");
+        this.jdbcFetchSize = resolver.integer("db.jdbc.fetch_size");
+        this.orderInserts = resolver.bool("db.order_inserts");
+        this.orderUpdates = resolver.bool("db.order_updates");
+        this.cacheEnabled = resolver.bool("db.cache.enabled");
+        this.queryCacheEnabled = resolver.bool("db.cache.query_cache");
+        this.cacheRegionFactory = resolver.string("db.cache.region_factory");
+        this.cacheRegionPrefix = resolver.string("db.cache.region_prefix");
+        this.cacheConfig = resolver.string("db.cache.config");
+        this.statisticsEnabled = resolver.bool("db.statistics");
+        // The replica shares the primary's credentials unless given its own
+        this.replicaUrl = resolver.string("db.replica.url");
+        String replicaUser = resolver.string("db.replica.username");
+        this.replicaUsername = replicaUser != null ? replicaUser : username;
+        String replicaPass = resolver.string("db.replica.password");
+        this.replicaPassword = replicaPass != null ? replicaPass : password;
+        this.replicaSchemaAction = resolver.string("db.replica.schema_action");
+        this.replicaPinWindowMillis = resolver.integer("db.replica.pin_window_ms");
+    }
+
+    // Resolves and validates the settings, failing fast on anything that would misconfigure the pool
+    public static PersistenceSettings load(Properties properties) {
+        Properties file = new Properties();
+        Map<String, String> hibernatePassthrough = new TreeMap<>();
+        readFile(properties, file, hibernatePassthrough);
+        String profileName = AppSettings.getString(OVERRIDE_PREFIX + "db.profile", file.getProperty("db.profile", "dev"));
+        Profile profile;
+        try {
+            profile = Profile.valueOf(profileName.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Unknown database profile: " + profileName, e);
+        }
+
+        PersistenceSettings settings = new PersistenceSettings(profile, file,
+            Collections.unmodifiableMap(hibernatePassthrough));
+        settings.validate();
+        return settings;
+    }
+
+    // Copies db.* keys as they are, translates legacy Hibernate keys and sets aside the other hibernate.* keys
+    private static void readFile(Properties properties, Properties file, Map<String, String> hibernatePassthrough) {
+        for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key);
+            String setting = LEGACY_KEYS.get(key);
+            if (setting != null) {
+                // An explicit db.* key wins over its legacy spelling
+                if (properties.getProperty(setting) == null) {
+                    logger.warn("database.properties: {} is deprecated, read as {}", key, setting);
+                    file.setProperty(setting, value);
+                } else {
+                    logger.warn("database.properties: {} is ignored in favor of {}", key, setting);
+                }
+            } else if (key.startsWith(HIBERNATE_PREFIX)) {
+                logger.warn("database.properties: {} has no db.* setting and is passed to Hibernate unvalidated", key);
+                hibernatePassthrough.put(key, value);
+            } else {
+                file.setProperty(key, value);
+            }
+        }
+    }
+
+    private void validate() {
+        require(url != null, "db.url must be set");
+        require(POOL_C3P0.equals(poolProvider) || POOL_HIKARI.equals(poolProvider),
+            "db.pool.provider must be c3p0 or hikari");
+        require(poolMinSize >= 0, "db.pool.min_size must not be negative");
+        require(poolMaxSize >= 1, "db.pool.max_size must be at least 1");
+        require(poolMinSize <= poolMaxSize, "db.pool.min_size must not exceed db.pool.max_size");
+        require(poolAcquireIncrement >= 1, "db.pool.acquire_increment must be at least 1");
+        require(poolConnectionTimeoutMillis >= 250, "db.pool.connection_timeout_ms must be at least 250");
+        // Hikari ignores thresholds under two seconds
+        require(poolLeakDetectionMillis == 0 || poolLeakDetectionMillis >= 2000,
+            "db.pool.leak_detection_ms must be 0 (off) or at least 2000");
+        require(statementCacheSize >= 0, "db.statement_cache_size must not be negative");
+        require(jdbcBatchSize >= 0 && jdbcBatchSize <= 1000, "db.jdbc.batch_size must be between 0 and 1000");
+        require(jdbcFetchSize >= 0, "db.jdbc.fetch_size must not be negative");
+        require(!cacheEnabled || cacheRegionFactory != null,
+            "db.cache.region_factory must be set when db.cache.enabled is true");
+        require(!queryCacheEnabled || cacheEnabled, "db.cache.query_cache requires db.cache.enabled");
+        require(profile != Profile.PROD || !PROD_FORBIDDEN_SCHEMA_ACTIONS.contains(schemaAction),
+            "db.schema_action " + schemaAction + " is not allowed in the prod profile");
+        require(profile != Profile.PROD || !PROD_FORBIDDEN_SCHEMA_ACTIONS.contains(replicaSchemaAction),
+            "db.replica.schema_action " + replicaSchemaAction + " is not allowed in the prod profile");
+        require(replicaPinWindowMillis >= 0, "db.replica.pin_window_ms must not be negative");
+    }
+
+    private static void require(boolean condition, String message) {
+        if (!condition) {
+            logger.error("Invalid persistence settings: {}", message);
+            throw new IllegalStateException("Invalid persistence settings: " + message);
+        }
+    }
+
+    public Properties toHibernateProperties() {
+        Properties properties = new Properties();
+        // Set first, so none of them can replace a validated setting
+        properties.putAll(hibernatePassthrough);
+        putIfSet(properties, Environment.DRIVER, driver);
+        putIfSet(properties, Environment.URL, url);
+        putIfSet(properties, Environment.USER, username);
+        putIfSet(properties, Environment.PASS, password);
+        putIfSet(properties, Environment.DIALECT, dialect);
+        putIfSet(properties, Environment.HBM2DDL_AUTO, schemaAction);
+        properties.put(Environment.SHOW_SQL, String.valueOf(showSql));
+        properties.put(Environment.FORMAT_SQL, String.valueOf(formatSql));
+
+        if (POOL_HIKARI.equals(poolProvider)) {
+            // HikariCP connection pool
+            properties.put(Environment.CONNECTION_PROVIDER, HikariConnectionProvider.class.getName());
+            properties.put(HikariConnectionProvider.MIN_IDLE, String.valueOf(poolMinSize));
+            properties.put(HikariConnectionProvider.MAX_SIZE, String.valueOf(poolMaxSize));
+            properties.put(HikariConnectionProvider.IDLE_TIMEOUT_MS, String.valueOf(poolIdleTimeoutSeconds * 1000L));
+            properties.put(HikariConnectionProvider.CONNECTION_TIMEOUT_MS, String.valueOf(poolConnectionTimeoutMillis));
+            properties.put(HikariConnectionProvider.LEAK_DETECTION_MS, String.valueOf(poolLeakDetectionMillis));
+            properties.put(HikariConnectionProvider.STATEMENT_CACHE_SIZE, String.valueOf(statementCacheSize));
+        } else {
+            // C3P0 connection pool
+            properties.put(Environment.C3P0_MIN_SIZE, String.valueOf(poolMinSize));
+            properties.put(Environment.C3P0_MAX_SIZE, String.valueOf(poolMaxSize));
+            properties.put(Environment.C3P0_ACQUIRE_INCREMENT, String.valueOf(poolAcquireIncrement));
+            properties.put(Environment.C3P0_TIMEOUT, String.valueOf(poolIdleTimeoutSeconds));
+            properties.put(Environment.C3P0_IDLE_TEST_PERIOD, String.valueOf(poolIdleTestPeriodSeconds));
+            properties.put(Environment.C3P0_MAX_STATEMENTS, String.valueOf(statementCacheSize));
+        }
+
+        // JDBC batching and fetching
+        properties.put(Environment.STATEMENT_BATCH_SIZE, String.valueOf(jdbcBatchSize));
+        properties.put(Environment.STATEMENT_FETCH_SIZE, String.valueOf(jdbcFetchSize));
+        properties.put(Environment.ORDER_INSERTS, String.valueOf(orderInserts));
+        properties.put(Environment.ORDER_UPDATES, String.valueOf(orderUpdates));
+
+        // Second-level cache
+        properties.put(Environment.USE_SECOND_LEVEL_CACHE, String.valueOf(cacheEnabled));
+        properties.put(Environment.USE_QUERY_CACHE, String.valueOf(queryCacheEnabled));
+        putIfSet(properties, Environment.CACHE_REGION_PREFIX, cacheRegionPrefix);
+        if (cacheEnabled) {
+            properties.put(Environment.CACHE_REGION_FACTORY, cacheRegionFactory);
+            // Regions are defined in the Ehcache configuration; any it lacks are created with defaults
+            properties.put(ConfigSettings.PROVIDER, "org.ehcache.jsr107.EhcacheCachingProvider");
+            putIfSet(properties, ConfigSettings.CONFIG_URI, cacheConfig);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "create-warn");
+        }
+        // Per-region hit and miss counts
+        properties.put(Environment.GENERATE_STATISTICS, String.valueOf(statisticsEnabled));
+        return properties;
+    }
+
+    public boolean hasReplica() {
+        return replicaUrl != null;
+    }
+
+    // The primary's settings pointed at the read replica, which never has its schema changed from here
+    public Properties toReplicaHibernateProperties() {
+        if (replicaUrl == null) {
+            throw new IllegalStateException("No read replica is configured");
+        }
+        Properties properties = toHibernateProperties();
+        properties.put(Environment.URL, replicaUrl);
+        properties.remove(Environment.USER);
+        properties.remove(Environment.PASS);
+        putIfSet(properties, Environment.USER, replicaUsername);
+        putIfSet(properties, Environment.PASS, replicaPassword);
+        putIfSet(properties, Environment.HBM2DDL_AUTO, replicaSchemaAction);
+        // Entities read from a lagging replica must not land in a cache the primary relies on
+        properties.put(Environment.USE_SECOND_LEVEL_CACHE, "false");
+        properties.put(Environment.USE_QUERY_CACHE, "false");
+        properties.remove(Environment.CACHE_REGION_FACTORY);
+        properties.put(HikariConnectionProvider.POOL_NAME, "khatabook-replica");
+        return properties;
+    }
+
+    // The effective settings with credentials left out, for logs and diagnostics
+    public Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("profile", profile.name().toLowerCase(Locale.ROOT));
+        description.put("url", url);
+        description.put("schemaAction", schemaAction);
+        description.put("hibernatePassthrough", hibernatePassthrough.keySet());
+        description.put("poolProvider", poolProvider);
+        description.put("poolMinSize", poolMinSize);
+        description.put("poolMaxSize", poolMaxSize);
+        description.put("poolLeakDetectionMs", poolLeakDetectionMillis);
+        description.put("statementCacheSize", statementCacheSize);
+        description.put("jdbcBatchSize", jdbcBatchSize);
+        description.put("jdbcFetchSize", jdbcFetchSize);
+        description.put("orderInserts", orderInserts);
+        description.put("orderUpdates", orderUpdates);
+        description.put("secondLevelCache", cacheEnabled);
+        description.put("queryCache", queryCacheEnabled);
+        description.put("cacheRegionFactory", cacheRegionFactory);
+        description.put("cacheRegionPrefix", cacheRegionPrefix);
+        description.put("cacheConfig", cacheConfig);
+        description.put("statistics", statisticsEnabled);
+        description.put("replicaUrl", replicaUrl);
+        description.put("replicaPinWindowMs", replicaPinWindowMillis);
+        return description;
+    }
+
+    public void logEffectiveSettings() {
+        logger.info("Persistence settings: {}", describe());
+    }
+
+    private static void putIfSet(Properties properties, String key, String value) {
+        if (value != null) {
+            properties.put(key, value);
+        }
+    }
+
+    public Profile getProfile() {
+        return profile;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getSchemaAction() {
+        return schemaAction;
+    }
+
+    public String getPoolProvider() {
+        return poolProvider;
+    }
+
+    public int getPoolMinSize() {
+        return poolMinSize;
+    }
+
+    public int getPoolMaxSize() {
+        return poolMaxSize;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public int getJdbcBatchSize() {
+        return jdbcBatchSize;
+    }
+
+    public int getJdbcFetchSize() {
+        return jdbcFetchSize;
+    }
+
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    public boolean isQueryCacheEnabled() {
+        return queryCacheEnabled;
+    }
+
+    public Duration getReplicaPinWindow() {
+        return Duration.ofMillis(replicaPinWindowMillis);
+    }
+
+    private static final class Resolver {
+        private final Profile profile;
+        private final Properties file;
+
+        private Resolver(Profile profile, Properties file) {
+            this.profile = profile;
+            this.file = file;
+        }
+
+        // Blank values count as unset at every level
+        private String string(String key) {
+            String fallback = blankToNull(file.getProperty(key));
+            if (fallback == null) {
+                fallback = blankToNull(profile.defaults.getOrDefault(key, COMMON_DEFAULTS.get(key)));
+            }
+            return AppSettings.getString(OVERRIDE_PREFIX + key, fallback);
+        }
+
+        private int integer(String key) {
+            String value = string(key);
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalStateException("Invalid integer for setting " + key + ": " + value, e);
+            }
+        }
+
+        private boolean bool(String key) {
+            String value = string(key);
+            if (!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) {
+                throw new IllegalStateException("Invalid boolean for setting " + key + ": " + value);
+            }
+            return Boolean.parseBoolean(value);
+        }
+
+        private static String blankToNull(String value) {
+            return value == null || value.trim().isEmpty() ? null : value.trim();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.khatabook.core.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+/**
+ * Outcome of one entry of a bulk transaction request: CREATED with the new transaction id, or
+ * REJECTED with the reason.
+ */
+public class BulkItemResult {
+    public static final String CREATED = "CREATED";
+    public static final String REJECTED = "REJECTED";
+
+    private final int index;
+    private final String status;
+    private final Long transactionId;
+    private final String error;
+
+    private BulkItemResult(int index, String status, Long transactionId, String error) {
+        this.index = index;
+        this.status = status;
+        this.transactionId = transactionId;
+        this.error = error;
+    }
+
+    public static BulkItemResult created(int index, Long transactionId) {
+        return new BulkItemResult(index, CREATED, transactionId, null);
+    }
+
+    public static BulkItemResult rejected(int index, String error) {
+        return new BulkItemResult(index, REJECTED, null, error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    // A string in JSON, like every transaction id
+    @JsonSerialize(using = ToStringSerializer.class)
+    public Long getTransactionId() {
+        return transactionId;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,23 @@
+package com.khatabook.core.dto;
+
+import com.khatabook.core.model.ApiKey;
+
+// A newly created API key with its full credential, which is never available again after this
+public class IssuedApiKey {
+    private final ApiKey apiKey;
+    private final String credential;
+
+    public IssuedApiKey(ApiKey apiKey, String credential) {
+        this.apiKey = apiKey;
+        this.credential = credential;
+    }
+
+    public ApiKey getApiKey() {
+        return apiKey;
+    }
+
+    // keyId.secret, as sent in the Authorization header
+    public String getCredential() {
+        return credential;
+    }
+}
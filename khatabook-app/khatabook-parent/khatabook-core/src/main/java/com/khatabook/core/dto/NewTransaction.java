@@ -0,0 +1,50 @@
+package com.khatabook.core.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * One entry of a bulk transaction request. index is the entry's position in the request, so results
+ * can be reported against it; categoryId is only used for EXPENSE entries.
+ */
+public class NewTransaction {
+    private final int index;
+    private final String type;
+    private final BigDecimal amount;
+    private final Long contactId;
+    private final Long categoryId;
+    private final String notes;
+
+    public NewTransaction(int index, String type, BigDecimal amount, Long contactId, Long categoryId, String notes) {
+        this.index = index;
+        this.type = type;
+        this.amount = amount;
+        this.contactId = contactId;
+        this.categoryId = categoryId;
+        this.notes = notes;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    // GIVE, TAKE or EXPENSE
+    public String getType() {
+        return type;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public Long getContactId() {
+        return contactId;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+}
@@ -0,0 +1,53 @@
+package com.khatabook.core.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a newest-first transaction listing: the (date, id) of the last row a client has seen.
+ * Clients receive it as an opaque URL-safe token and pass it back unchanged to get the next page.
+ */
+public class TransactionCursor {
+    private final LocalDateTime date;
+    private final Long id;
+
+    public TransactionCursor(LocalDateTime date, Long id) {
+        this.date = date;
+        this.id = id;
+    }
+
+    public static TransactionCursor after(TransactionRow row) {
+        return new TransactionCursor(row.getDate(), row.getId());
+    }
+
+    public static TransactionCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new TransactionCursor(
+                LocalDateTime.parse(value.substring(0, separator)),
+                Long.valueOf(value.substring(separator + 1))
+            );
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    public String encode() {
+        String value = date + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getDate() {
+        return date;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,24 @@
+package com.khatabook.core.dto;
+
+import java.util.List;
+
+/**
+ * One page of a transaction listing. nextCursor is null on the last page.
+ */
+public class TransactionPage {
+    private final List<TransactionRow> transactions;
+    private final String nextCursor;
+
+    public TransactionPage(List<TransactionRow> transactions, String nextCursor) {
+        this.transactions = transactions;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<TransactionRow> getTransactions() {
+        return transactions;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,100 @@
+package com.khatabook.core.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Flat, read-only view of a transaction with its contact and category names already resolved.
+ * Reports and listings use it instead of entities so nothing is lazily loaded after the query.
+ */
+public class TransactionRow {
+    public static final String TYPE_GIVE = "GIVE";
+    public static final String TYPE_TAKE = "TAKE";
+    public static final String TYPE_EXPENSE = "EXPENSE";
+
+    private final Long id;
+    private final LocalDateTime date;
+    private final BigDecimal amount;
+    private final String type;
+    private final Long contactId;
+    private final String contactName;
+    private final Long categoryId;
+    private final String categoryName;
+    private final String notes;
+
+    public TransactionRow(
+        Long id,
+        LocalDateTime date,
+        BigDecimal amount,
+        String type,
+        Long contactId,
+        String contactName,
+        Long categoryId,
+        String categoryName,
+        String notes
+    ) {
+        this.id = id;
+        this.date = date;
+        this.amount = amount;
+        this.type = type;
+        this.contactId = contactId;
+        this.contactName = contactName;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.notes = notes;
+    }
+
+    // A string in JSON, like every transaction id
+    @JsonSerialize(using = ToStringSerializer.class)
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDateTime getDate() {
+        return date;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    // GIVE, TAKE or EXPENSE
+    public String getType() {
+        return type;
+    }
+
+    public Long getContactId() {
+        return contactId;
+    }
+
+    public String getContactName() {
+        return contactName;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public boolean isGive() {
+        return TYPE_GIVE.equals(type);
+    }
+
+    public boolean isTake() {
+        return TYPE_TAKE.equals(type);
+    }
+
+    public boolean isExpense() {
+        return TYPE_EXPENSE.equals(type);
+    }
+}
@@ -0,0 +1,10 @@
+package com.khatabook.core.event;
+
+import java.util.Set;
+
+public interface DataChangeListener {
+
+    // Called after a mutation of an organization's data has been committed, or inside its transaction
+    // for a transactional listener (see DataChangeNotifier)
+    void onDataChanged(Long organizationId, Set<DataScope> scopes);
+}
@@ -0,0 +1,71 @@
+package com.khatabook.core.event;
+
+import com.khatabook.core.repository.UnitOfWork;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class DataChangeNotifier {
+    private static final Logger logger = LoggerFactory.getLogger(DataChangeNotifier.class);
+
+    private final List<DataChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<DataChangeListener> transactionalListeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(DataChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    // Called inside the writing unit of work, before it commits, so what the listener writes commits
+    // with the change; a failure fails the change. Without a unit it is called after the change.
+    public void addTransactionalListener(DataChangeListener listener) {
+        transactionalListeners.add(listener);
+    }
+
+    public void removeListener(DataChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    public void notifyChanged(Long organizationId, DataScope... scopes) {
+        if (organizationId == null || scopes.length == 0) {
+            return;
+        }
+        Set<DataScope> changed = EnumSet.copyOf(Arrays.asList(scopes));
+        if (UnitOfWork.current().isPresent()) {
+            for (DataChangeListener listener : transactionalListeners) {
+                listener.onDataChanged(organizationId, changed);
+            }
+        } else {
+            dispatch(transactionalListeners, organizationId, changed);
+        }
+        // Inside a unit of work the change is not visible to other sessions until it commits
+        UnitOfWork.afterCommit(() -> dispatch(listeners, organizationId, changed));
+    }
+
+    // For a change that has already committed outside the unit of work, e.g. by group commit
+    public void notifyCommitted(Long organizationId, DataScope... scopes) {
+        if (organizationId == null || scopes.length == 0) {
+            return;
+        }
+        Set<DataScope> changed = EnumSet.copyOf(Arrays.asList(scopes));
+        // Outside the unit, so nothing a transactional listener writes is rolled back with it
+        UnitOfWork.runOutside(() -> dispatch(transactionalListeners, organizationId, changed));
+        dispatch(listeners, organizationId, changed);
+    }
+
+    private void dispatch(List<DataChangeListener> listeners, Long organizationId, Set<DataScope> changed) {
+        for (DataChangeListener listener : listeners) {
+            try {
+                listener.onDataChanged(organizationId, changed);
+            } catch (RuntimeException e) {
+                // A failing listener must not fail the write that has already been committed
+                logger.error("Data change listener {} failed for organization {}: {}", 
+                    listener.getClass().getSimpleName(), organizationId, e.getMessage(), e);
+            }
+        }
+    }
+}
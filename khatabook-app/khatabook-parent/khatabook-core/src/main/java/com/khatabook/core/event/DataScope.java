@@ -0,0 +1,8 @@
+package com.khatabook.core.event;
+
+public enum DataScope {
+    ORGANIZATION,       // Organization details such as its name
+    CONTACTS,           // Contacts, including their balances
+    EXPENSE_CATEGORIES, // Expense categories
+    TRANSACTIONS        // Expense and give/take transactions
+}
@@ -0,0 +1,20 @@
+package com.khatabook.core.id;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.io.Serializable;
+
+/**
+ * Hibernate generator for k-sorted ids (see KSortedIds). Ids are assigned before the insert, which
+ * keeps Hibernate's JDBC insert batching available, unlike IDENTITY columns.
+ *
+ * Usage: {@code @GenericGenerator(name = "...", strategy = "com.khatabook.core.id.KSortedIdGenerator")}
+ */
+public class KSortedIdGenerator implements IdentifierGenerator {
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        return KSortedIds.getInstance().nextId();
+    }
+}
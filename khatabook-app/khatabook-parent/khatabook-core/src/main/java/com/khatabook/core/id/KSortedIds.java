@@ -0,0 +1,97 @@
+package com.khatabook.core.id;
+
+import com.khatabook.core.config.AppSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+
+/**
+ * Source of k-sorted 64-bit ids: 41 bits of milliseconds since 2024-01-01, 10 bits of node id and a
+ * 12-bit per-millisecond counter. Ids from one node are strictly increasing, ids from different nodes
+ * never collide as long as each node has its own khatabook.node_id (0-1023), and ids from all nodes
+ * sort roughly by creation time, so inserts land at the right-hand end of the primary key index.
+ */
+public final class KSortedIds {
+    private static final Logger logger = LoggerFactory.getLogger(KSortedIds.class);
+
+    private static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    // Small backward clock steps (NTP slew) are slept out; anything larger fails fast rather than stall writers
+    private static final long MAX_CLOCK_DRIFT_MILLIS = 100;
+
+    private static volatile KSortedIds instance;
+
+    private final long nodeId;
+    private long lastMillis = -1;
+    private long sequence;
+
+    public KSortedIds(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+    }
+
+    // Shared by every entity that uses k-sorted ids, so one node never issues the same id twice
+    public static KSortedIds getInstance() {
+        if (instance == null) {
+            synchronized (KSortedIds.class) {
+                if (instance == null) {
+                    String configured = AppSettings.getString("khatabook.node_id", null);
+                    if (configured == null) {
+                        logger.warn("khatabook.node_id is not set; using node 0. Set a distinct id on every app node.");
+                    }
+                    instance = new KSortedIds(AppSettings.getInt("khatabook.node_id", 0));
+                    logger.info("K-sorted ids use node id {}", instance.nodeId);
+                }
+            }
+        }
+        return instance;
+    }
+
+    public long nextId() {
+        while (true) {
+            long now = System.currentTimeMillis();
+            long behind;
+            synchronized (this) {
+                behind = lastMillis - now;
+                if (behind < 0) {
+                    lastMillis = now;
+                    sequence = 0;
+                    return compose(now, sequence);
+                }
+                if (behind == 0 && sequence < MAX_SEQUENCE) {
+                    sequence++;
+                    return compose(now, sequence);
+                }
+            }
+
+            // Waits happen outside the lock, so a slow clock never holds up other writers behind the monitor
+            if (behind == 0) {
+                // Counter exhausted for this millisecond
+                Thread.onSpinWait();
+            } else if (behind > MAX_CLOCK_DRIFT_MILLIS) {
+                throw new IllegalStateException("Clock moved backwards by " + behind + " ms; refusing to generate ids");
+            } else {
+                sleep(behind);
+            }
+        }
+    }
+
+    private long compose(long millis, long sequence) {
+        return ((millis - EPOCH_MILLIS) << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the clock to catch up", e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.khatabook.core.job;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * A report submitted for background execution. Status changes are synchronized on the job so a
+ * cancellation cannot race with the worker picking it up or finishing it.
+ */
+public class ReportJob {
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED;
+
+        public boolean isFinished() {
+            return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private final String id;
+    private final Long organizationId;
+    private final String reportType;
+    private final LocalDateTime submittedAt;
+
+    private Status status = Status.QUEUED;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Map<String, Object> result;
+    private String error;
+    private Future<?> future;
+
+    ReportJob(String id, Long organizationId, String reportType) {
+        this.id = id;
+        this.organizationId = organizationId;
+        this.reportType = reportType;
+        this.submittedAt = LocalDateTime.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getOrganizationId() {
+        return organizationId;
+    }
+
+    public String getReportType() {
+        return reportType;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public synchronized Status getStatus() {
+        return status;
+    }
+
+    public synchronized LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public synchronized Map<String, Object> getResult() {
+        return result;
+    }
+
+    public synchronized String getError() {
+        return error;
+    }
+
+    public synchronized Map<String, Object> toSummary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("jobId", id);
+        summary.put("reportType", reportType);
+        summary.put("status", status);
+        summary.put("submittedAt", submittedAt);
+        summary.put("startedAt", startedAt);
+        summary.put("finishedAt", finishedAt);
+        if (error != null) {
+            summary.put("error", error);
+        }
+        return summary;
+    }
+
+    synchronized void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    // Returns false when the job was cancelled before a worker got to it
+    synchronized boolean markRunning() {
+        if (status != Status.QUEUED) {
+            return false;
+        }
+        status = Status.RUNNING;
+        startedAt = LocalDateTime.now();
+        return true;
+    }
+
+    synchronized void markSucceeded(Map<String, Object> result) {
+        if (status == Status.RUNNING) {
+            this.status = Status.SUCCEEDED;
+            this.result = result;
+            this.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    synchronized void markFailed(String error) {
+        if (status == Status.QUEUED || status == Status.RUNNING) {
+            this.status = Status.FAILED;
+            this.error = error;
+            this.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    synchronized boolean cancel() {
+        if (status.isFinished()) {
+            return false;
+        }
+        status = Status.CANCELLED;
+        finishedAt = LocalDateTime.now();
+        if (future != null) {
+            future.cancel(true);
+        }
+        return true;
+    }
+}
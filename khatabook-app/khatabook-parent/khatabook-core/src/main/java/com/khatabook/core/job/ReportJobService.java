@@ -0,0 +1,124 @@
+package com.khatabook.core.job;
+
+import com.khatabook.core.concurrent.BoundedExecutors;
+import com.khatabook.core.config.AppSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs reports in the background and keeps their results in memory until they expire.
+ *
+ * At most `parallelism` reports run at once and at most `queueCapacity` wait; further submissions are
+ * refused rather than queued. Finished jobs are purged once they are older than the result TTL.
+ */
+public class ReportJobService {
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobService.class);
+
+    private final ExecutorService executor;
+    private final ScheduledExecutorService sweeper;
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+    private final Duration resultTtl;
+    private final int maxRetainedJobs;
+
+    public ReportJobService(int parallelism, int queueCapacity, Duration resultTtl, int maxRetainedJobs) {
+        this.executor = BoundedExecutors.newBoundedExecutor("report-job", parallelism, queueCapacity);
+        this.resultTtl = resultTtl;
+        this.maxRetainedJobs = maxRetainedJobs;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "report-job-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sweeper.scheduleWithFixedDelay(this::purgeExpired, 1, 1, TimeUnit.MINUTES);
+    }
+
+    public static ReportJobService fromSettings() {
+        return new ReportJobService(
+            AppSettings.getInt("khatabook.report_jobs.parallelism", 2),
+            AppSettings.getInt("khatabook.report_jobs.queue_capacity", 20),
+            Duration.ofMinutes(AppSettings.getLong("khatabook.report_jobs.result_ttl_minutes", 60)),
+            AppSettings.getInt("khatabook.report_jobs.max_retained", 1000)
+        );
+    }
+
+    public ReportJob submit(Long organizationId, String reportType, Supplier<Map<String, Object>> report) {
+        if (jobs.size() >= maxRetainedJobs) {
+            purgeExpired();
+            if (jobs.size() >= maxRetainedJobs) {
+                throw new RejectedExecutionException("Too many report jobs retained");
+            }
+        }
+
+        ReportJob job = new ReportJob(UUID.randomUUID().toString(), organizationId, reportType);
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(executor.submit(() -> run(job, report)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            logger.warn("Report job queue is full, rejected {} for organization {}", reportType, organizationId);
+            throw e;
+        }
+
+        logger.info("Submitted report job {} ({}) for organization {}", job.getId(), reportType, organizationId);
+        return job;
+    }
+
+    // Jobs are only visible to the organization that submitted them
+    public Optional<ReportJob> getJob(Long organizationId, String jobId) {
+        ReportJob job = jobs.get(jobId);
+        if (job == null || !job.getOrganizationId().equals(organizationId)) {
+            return Optional.empty();
+        }
+        return Optional.of(job);
+    }
+
+    public boolean cancel(Long organizationId, String jobId) {
+        ReportJob job = getJob(organizationId, jobId)
+            .orElseThrow(() -> new IllegalArgumentException("Report job not found"));
+        boolean cancelled = job.cancel();
+        if (cancelled) {
+            logger.info("Cancelled report job {} for organization {}", jobId, organizationId);
+        }
+        return cancelled;
+    }
+
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(resultTtl);
+        int before = jobs.size();
+        jobs.values().removeIf(job -> {
+            LocalDateTime finishedAt = job.getFinishedAt();
+            return finishedAt != null && finishedAt.isBefore(cutoff);
+        });
+        int purged = before - jobs.size();
+        if (purged > 0) {
+            logger.info("Purged {} expired report jobs", purged);
+        }
+    }
+
+    public void shutdown() {
+        sweeper.shutdownNow();
+        jobs.values().forEach(ReportJob::cancel);
+        BoundedExecutors.shutdown(executor, 30, TimeUnit.SECONDS);
+    }
+
+    private void run(ReportJob job, Supplier<Map<String, Object>> report) {
+        if (!job.markRunning()) {
+            return;
+        }
+        try {
+            job.markSucceeded(report.get());
+            logger.info("Report job {} finished", job.getId());
+        } catch (Exception e) {
+            logger.error("Report job {} failed: {}", job.getId(), e.getMessage());
+            job.markFailed(e.getMessage());
+        }
+    }
+}
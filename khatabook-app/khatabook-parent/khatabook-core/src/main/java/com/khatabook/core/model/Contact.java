@@ -1,27 +1,50 @@
 package com.khatabook.core.model;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.annotations.Parameter;
+
 import javax.persistence.*;
 import java.math.BigDecimal;
 import java.util.HashSet;
 import java.util.Set;
 
+// A mobile number identifies a contact within its organization, and lookups by it are cached. The
+// contact itself is not: its balance changes with every give/take and must be read from the database.
 @Entity
 @Table(name = "contacts")
+@NaturalIdCache(region = "contact_natural_ids")
 public class Contact {
     
+    // Ids are reserved 50 at a time from the id_sequences table (pooled-lo), so inserts can be JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "contact_ids")
+    @GenericGenerator(
+        name = "contact_ids",
+        strategy = "org.hibernate.id.enhanced.TableGenerator",
+        parameters = {
+            @Parameter(name = "table_name", value = "id_sequences"),
+            @Parameter(name = "segment_value", value = "contacts"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+        }
+    )
     private Long id;
 
     @Column(nullable = false)
     private String name;
 
+    @NaturalId(mutable = true)
     @Column(name = "mobile_number", nullable = false)
     private String mobileNumber;
 
-    @Column(name = "balance", nullable = false)
+    // Only ever changed by ContactRepository's balance updates, so merging a stale copy of a contact
+    // cannot overwrite deltas committed since it was read
+    @Column(name = "balance", nullable = false, updatable = false)
     private BigDecimal balance = BigDecimal.ZERO;
 
+    @NaturalId(mutable = true)
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "organization_id", nullable = false)
     private Organization organization;
@@ -0,0 +1,53 @@
+package com.khatabook.core.model;
+
+import javax.persistence.*;
+
+/**
+ * An organization's data versions, one counter per data scope, incremented in the transaction of every
+ * change. Entity tags for conditional GETs are built from them, so every app node sees the same tags.
+ */
+@Entity
+@Table(name = "data_versions")
+public class DataVersion {
+
+    // Not a foreign key: the row outlives the organization, so its tags are never issued again
+    @Id
+    @Column(name = "organization_id")
+    private Long organizationId;
+
+    @Column(name = "organization_version", nullable = false)
+    private long organizationVersion;
+
+    @Column(name = "contacts_version", nullable = false)
+    private long contactsVersion;
+
+    @Column(name = "expense_categories_version", nullable = false)
+    private long expenseCategoriesVersion;
+
+    @Column(name = "transactions_version", nullable = false)
+    private long transactionsVersion;
+
+    // Default constructor
+    public DataVersion() {}
+
+    // Getters
+    public Long getOrganizationId() {
+        return organizationId;
+    }
+
+    public long getOrganizationVersion() {
+        return organizationVersion;
+    }
+
+    public long getContactsVersion() {
+        return contactsVersion;
+    }
+
+    public long getExpenseCategoriesVersion() {
+        return expenseCategoriesVersion;
+    }
+
+    public long getTransactionsVersion() {
+        return transactionsVersion;
+    }
+}
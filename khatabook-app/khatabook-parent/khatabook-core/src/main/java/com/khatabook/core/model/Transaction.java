@@ -1,17 +1,29 @@
 package com.khatabook.core.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import org.hibernate.annotations.GenericGenerator;
+
 import javax.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+    @Index(name = "idx_transactions_contact_date", columnList = "contact_id, date"),
+    @Index(name = "idx_transactions_category_date", columnList = "category_id, date"),
+    @Index(name = "idx_transactions_date", columnList = "date")
+})
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "transaction_type", discriminatorType = DiscriminatorType.STRING)
 public abstract class Transaction {
     
+    // K-sorted ids are assigned before insert, so bulk inserts can be JDBC-batched. They exceed 2^53,
+    // so JSON carries them as strings for clients that read numbers as doubles
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonSerialize(using = ToStringSerializer.class)
+    @GeneratedValue(generator = "transaction_ids")
+    @GenericGenerator(name = "transaction_ids", strategy = "com.khatabook.core.id.KSortedIdGenerator")
     private Long id;
 
     @Column(nullable = false)
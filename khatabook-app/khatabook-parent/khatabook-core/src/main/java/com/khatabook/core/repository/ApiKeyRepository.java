@@ -0,0 +1,76 @@
+package com.khatabook.core.repository;
+
+import com.khatabook.core.model.ApiKey;
+import com.khatabook.core.model.Organization;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.util.List;
+import java.util.Optional;
+
+public class ApiKeyRepository {
+    private static final Logger logger = LoggerFactory.getLogger(ApiKeyRepository.class);
+    private final SessionFactory sessionFactory;
+
+    public ApiKeyRepository(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    public ApiKey save(ApiKey apiKey) {
+        Transaction transaction = null;
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
+            transaction = session.beginTransaction();
+            ApiKey saved = apiKey;
+            if (apiKey.getId() == null) {
+                session.save(apiKey);
+            } else {
+                // Merged rather than reattached, as the unit of work may already hold this row
+                saved = (ApiKey) session.merge(apiKey);
+            }
+            transaction.commit();
+            logger.info("API key saved successfully: {}", apiKey.getKeyId());
+            return saved;
+        } catch (Exception e) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            logger.error("Error saving API key: {}", e.getMessage());
+            throw new RuntimeException("Error saving API key", e);
+        }
+    }
+
+    public Optional<ApiKey> findByKeyId(String keyId) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
+            return session.createQuery("from ApiKey a where a.keyId = :keyId", ApiKey.class)
+                .setParameter("keyId", keyId)
+                .uniqueResultOptional();
+        } catch (Exception e) {
+            logger.error("Error finding API key {}: {}", keyId, e.getMessage());
+            throw new RuntimeException("Error finding API key", e);
+        }
+    }
+
+    public List<ApiKey> findByOrganization(Organization organization) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
+            CriteriaBuilder cb = session.getCriteriaBuilder();
+            CriteriaQuery<ApiKey> query = cb.createQuery(ApiKey.class);
+            Root<ApiKey> root = query.from(ApiKey.class);
+
+            query.select(root)
+                 .where(cb.equal(root.get("organization"), organization))
+                 .orderBy(cb.desc(root.get("createdAt")));
+
+            return session.createQuery(query).getResultList();
+        } catch (Exception e) {
+            logger.error("Error finding API keys for organization {}: {}",
+                organization.getOrgName(), e.getMessage());
+            throw new RuntimeException("Error finding API keys for organization", e);
+        }
+    }
+}
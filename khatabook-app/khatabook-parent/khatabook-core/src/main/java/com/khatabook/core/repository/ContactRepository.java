@@ -11,25 +11,42 @@ import org.slf4j.LoggerFactory;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 public class ContactRepository {
     private static final Logger logger = LoggerFactory.getLogger(ContactRepository.class);
+    // Query space of the balance queries; no cached entity or query result declares it
+    private static final String BALANCE_QUERY_SPACE = "contact_balances";
     private final SessionFactory sessionFactory;
+    private final ExpenseRollupRepository expenseRollupRepository;
 
     public ContactRepository(SessionFactory sessionFactory) {
+        this(sessionFactory, new ExpenseRollupRepository(sessionFactory));
+    }
+
+    public ContactRepository(SessionFactory sessionFactory, ExpenseRollupRepository expenseRollupRepository) {
         this.sessionFactory = sessionFactory;
+        this.expenseRollupRepository = expenseRollupRepository;
     }
 
     public Contact save(Contact contact) {
         Transaction transaction = null;
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
             transaction = session.beginTransaction();
-            session.saveOrUpdate(contact);
+            Contact saved = contact;
+            if (contact.getId() == null) {
+                session.save(contact);
+            } else {
+                // Merged rather than reattached, as the unit of work may already hold this row
+                saved = (Contact) session.merge(contact);
+            }
             transaction.commit();
             logger.info("Contact saved successfully: {}", contact.getName());
-            return contact;
+            return saved;
         } catch (Exception e) {
             if (transaction != null) {
                 transaction.rollback();
@@ -39,8 +56,72 @@ public class ContactRepository {
         }
     }
 
+    // Outcome of a balance update; a rejected one carries the error its write reports
+    public enum BalanceUpdate {
+        APPLIED(null),
+        CONTACT_NOT_FOUND("Contact not found"),
+        NEGATIVE_BALANCE("Balance cannot be negative");
+
+        private final String error;
+
+        BalanceUpdate(String error) {
+            this.error = error;
+        }
+
+        public boolean isApplied() {
+            return this == APPLIED;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    // Adds a delta to a contact's balance inside the caller's session and transaction. The update is a
+    // single conditional statement, so concurrent writers cannot lose each other's changes. When no row
+    // is updated, a second query tells a missing contact from a balance that would go negative.
+    public BalanceUpdate applyBalanceDelta(Session session, Long contactId, BigDecimal delta) {
+        int updated = session.createNativeQuery(
+                "UPDATE contacts SET balance = balance + :delta " +
+                "WHERE id = :contactId AND balance + :delta >= 0")
+            // Without a query space Hibernate would evict every second-level cache region
+            .addSynchronizedQuerySpace(BALANCE_QUERY_SPACE)
+            .setParameter("delta", delta)
+            .setParameter("contactId", contactId)
+            .executeUpdate();
+        if (updated == 1) {
+            return BalanceUpdate.APPLIED;
+        }
+        Number found = (Number) session.createNativeQuery("SELECT COUNT(*) FROM contacts WHERE id = :contactId")
+            .addSynchronizedQuerySpace(BALANCE_QUERY_SPACE)
+            .setParameter("contactId", contactId)
+            .getSingleResult();
+        return found.intValue() == 0 ? BalanceUpdate.CONTACT_NOT_FOUND : BalanceUpdate.NEGATIVE_BALANCE;
+    }
+
+    // Sets a contact's balance outright, the only way apart from a delta that it changes
+    public BalanceUpdate setBalance(Long contactId, BigDecimal balance) {
+        Transaction transaction = null;
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
+            transaction = session.beginTransaction();
+            int updated = session.createNativeQuery("UPDATE contacts SET balance = :balance WHERE id = :contactId")
+                .addSynchronizedQuerySpace(BALANCE_QUERY_SPACE)
+                .setParameter("balance", balance)
+                .setParameter("contactId", contactId)
+                .executeUpdate();
+            transaction.commit();
+            return updated == 1 ? BalanceUpdate.APPLIED : BalanceUpdate.CONTACT_NOT_FOUND;
+        } catch (Exception e) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            logger.error("Error setting balance of contact {}: {}", contactId, e.getMessage());
+            throw new RuntimeException("Error setting contact balance", e);
+        }
+    }
+
     public Optional<Contact> findById(Long id) {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
             Contact contact = session.get(Contact.class, id);
             return Optional.ofNullable(contact);
         } catch (Exception e) {
@@ -50,7 +131,7 @@ public class ContactRepository {
     }
 
     public List<Contact> findByOrganization(Organization organization) {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<Contact> query = cb.createQuery(Contact.class);
             Root<Contact> root = query.from(Contact.class);
@@ -66,20 +147,48 @@ public class ContactRepository {
         }
     }
 
-    public Optional<Contact> findByMobileNumber(String mobileNumber, Organization organization) {
-        try (Session session = sessionFactory.openSession()) {
+    // Loads a batch of contacts in one query; ids outside the organization are simply not returned
+    public List<Contact> findByIdsAndOrganization(Collection<Long> ids, Organization organization) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<Contact> query = cb.createQuery(Contact.class);
             Root<Contact> root = query.from(Contact.class);
             
             query.select(root)
                  .where(cb.and(
-                     cb.equal(root.get("mobileNumber"), mobileNumber),
+                     root.get("id").in(ids),
                      cb.equal(root.get("organization"), organization)
                  ));
             
-            List<Contact> results = session.createQuery(query).getResultList();
-            return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
+            return session.createQuery(query).getResultList();
+        } catch (Exception e) {
+            logger.error("Error finding {} contacts for organization {}: {}", 
+                ids.size(), organization.getOrgName(), e.getMessage());
+            throw new RuntimeException("Error finding contacts by ids", e);
+        }
+    }
+
+    // Resolved through the natural id (organization, mobile number), whose mapping to the contact id is
+    // cached per node. A mapping can outlive a number changed, or a contact deleted, on another node, so
+    // a contact is only trusted when its number matches; a miss or a mismatch is looked up again by query.
+    public Optional<Contact> findByMobileNumber(String mobileNumber, Organization organization) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
+            Optional<Contact> contact = session.byNaturalId(Contact.class)
+                .using("organization", organization)
+                .using("mobileNumber", mobileNumber)
+                .loadOptional();
+            if (contact.isPresent() && mobileNumber.equals(contact.get().getMobileNumber())) {
+                return contact;
+            }
+            return session.createQuery(
+                    "from Contact c where c.organization = :organization and c.mobileNumber = :mobileNumber",
+                    Contact.class)
+                .setParameter("organization", organization)
+                .setParameter("mobileNumber", mobileNumber)
+                .uniqueResultOptional();
         } catch (Exception e) {
             logger.error("Error finding contact by mobile number {}: {}", 
                 mobileNumber, e.getMessage());
@@ -88,7 +197,7 @@ public class ContactRepository {
     }
 
     public List<Contact> findAll() {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<Contact> query = cb.createQuery(Contact.class);
             Root<Contact> root = query.from(Contact.class);
@@ -103,9 +212,11 @@ public class ContactRepository {
 
     public void delete(Contact contact) {
         Transaction transaction = null;
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
             transaction = session.beginTransaction();
-            session.delete(contact);
+            // The contact's transactions are deleted with it, so its expenses leave the rollups first
+            expenseRollupRepository.subtractContactExpenses(session, contact.getId());
+            session.delete(session.contains(contact) ? contact : session.merge(contact));
             transaction.commit();
             logger.info("Contact deleted successfully: {}", contact.getName());
         } catch (Exception e) {
@@ -0,0 +1,71 @@
+package com.khatabook.core.repository;
+
+import com.khatabook.core.event.DataScope;
+import com.khatabook.core.model.DataVersion;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.Set;
+
+public class DataVersionRepository {
+    private static final Logger logger = LoggerFactory.getLogger(DataVersionRepository.class);
+
+    private static final String INCREMENT_SQL =
+        "INSERT INTO data_versions (organization_id, organization_version, contacts_version, " +
+        "expense_categories_version, transactions_version) " +
+        "VALUES (:organizationId, :organization, :contacts, :expenseCategories, :transactions) " +
+        "ON DUPLICATE KEY UPDATE organization_version = organization_version + VALUES(organization_version), " +
+        "contacts_version = contacts_version + VALUES(contacts_version), " +
+        "expense_categories_version = expense_categories_version + VALUES(expense_categories_version), " +
+        "transactions_version = transactions_version + VALUES(transactions_version)";
+
+    private final SessionFactory sessionFactory;
+    private final ReadRouter readRouter;
+
+    public DataVersionRepository(SessionFactory sessionFactory) {
+        this(sessionFactory, ReadRouter.primaryOnly(sessionFactory));
+    }
+
+    public DataVersionRepository(SessionFactory sessionFactory, ReadRouter readRouter) {
+        this.sessionFactory = sessionFactory;
+        this.readRouter = readRouter;
+    }
+
+    // Increments the scopes' versions inside the caller's unit of work, so they commit with the change
+    public void increment(Long organizationId, Set<DataScope> scopes) {
+        Transaction transaction = null;
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
+            transaction = session.beginTransaction();
+            session.createNativeQuery(INCREMENT_SQL)
+                .addSynchronizedEntityClass(DataVersion.class)
+                .setParameter("organizationId", organizationId)
+                .setParameter("organization", scopes.contains(DataScope.ORGANIZATION) ? 1 : 0)
+                .setParameter("contacts", scopes.contains(DataScope.CONTACTS) ? 1 : 0)
+                .setParameter("expenseCategories", scopes.contains(DataScope.EXPENSE_CATEGORIES) ? 1 : 0)
+                .setParameter("transactions", scopes.contains(DataScope.TRANSACTIONS) ? 1 : 0)
+                .executeUpdate();
+            transaction.commit();
+        } catch (Exception e) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            logger.error("Error incrementing data versions for organization {}: {}", organizationId, e.getMessage());
+            throw new RuntimeException("Error incrementing data versions", e);
+        }
+    }
+
+    // Read through the read router, as reports are, while listings read the primary. A replica's version
+    // can only lag behind the data read after it, never run ahead, so a lagging tag costs a refetch at worst
+    public Optional<DataVersion> findByOrganization(Long organizationId) {
+        try (Session session = readRouter.openReadSession(organizationId)) {
+            return Optional.ofNullable(session.get(DataVersion.class, organizationId));
+        } catch (Exception e) {
+            logger.error("Error finding data versions for organization {}: {}", organizationId, e.getMessage());
+            throw new RuntimeException("Error finding data versions", e);
+        }
+    }
+}
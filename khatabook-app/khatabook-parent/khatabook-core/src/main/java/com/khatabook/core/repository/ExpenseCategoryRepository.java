@@ -11,25 +11,39 @@ import org.slf4j.LoggerFactory;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 public class ExpenseCategoryRepository {
     private static final Logger logger = LoggerFactory.getLogger(ExpenseCategoryRepository.class);
     private final SessionFactory sessionFactory;
+    private final ExpenseRollupRepository expenseRollupRepository;
 
     public ExpenseCategoryRepository(SessionFactory sessionFactory) {
+        this(sessionFactory, new ExpenseRollupRepository(sessionFactory));
+    }
+
+    public ExpenseCategoryRepository(SessionFactory sessionFactory, ExpenseRollupRepository expenseRollupRepository) {
         this.sessionFactory = sessionFactory;
+        this.expenseRollupRepository = expenseRollupRepository;
     }
 
     public ExpenseCategory save(ExpenseCategory category) {
         Transaction transaction = null;
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
             transaction = session.beginTransaction();
-            session.saveOrUpdate(category);
+            ExpenseCategory saved = category;
+            if (category.getId() == null) {
+                session.save(category);
+            } else {
+                // Merged rather than reattached, as the unit of work may already hold this row
+                saved = (ExpenseCategory) session.merge(category);
+            }
             transaction.commit();
             logger.info("Expense category saved successfully: {}", category.getName());
-            return category;
+            return saved;
         } catch (Exception e) {
             if (transaction != null) {
                 transaction.rollback();
@@ -40,7 +54,7 @@ public class ExpenseCategoryRepository {
     }
 
     public Optional<ExpenseCategory> findById(Long id) {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
             ExpenseCategory category = session.get(ExpenseCategory.class, id);
             return Optional.ofNullable(category);
         } catch (Exception e) {
@@ -50,7 +64,7 @@ public class ExpenseCategoryRepository {
     }
 
     public List<ExpenseCategory> findByOrganization(Organization organization) {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<ExpenseCategory> query = cb.createQuery(ExpenseCategory.class);
             Root<ExpenseCategory> root = query.from(ExpenseCategory.class);
@@ -66,8 +80,32 @@ public class ExpenseCategoryRepository {
         }
     }
 
+    // Loads a batch of categories in one query; ids outside the organization are simply not returned
+    public List<ExpenseCategory> findByIdsAndOrganization(Collection<Long> ids, Organization organization) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
+            CriteriaBuilder cb = session.getCriteriaBuilder();
+            CriteriaQuery<ExpenseCategory> query = cb.createQuery(ExpenseCategory.class);
+            Root<ExpenseCategory> root = query.from(ExpenseCategory.class);
+            
+            query.select(root)
+                 .where(cb.and(
+                     root.get("id").in(ids),
+                     cb.equal(root.get("organization"), organization)
+                 ));
+            
+            return session.createQuery(query).getResultList();
+        } catch (Exception e) {
+            logger.error("Error finding {} expense categories for organization {}: {}", 
+                ids.size(), organization.getOrgName(), e.getMessage());
+            throw new RuntimeException("Error finding expense categories by ids", e);
+        }
+    }
+
     public List<ExpenseCategory> findDefaultCategories(Organization organization) {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<ExpenseCategory> query = cb.createQuery(ExpenseCategory.class);
             Root<ExpenseCategory> root = query.from(ExpenseCategory.class);
@@ -86,7 +124,7 @@ public class ExpenseCategoryRepository {
     }
 
     public Optional<ExpenseCategory> findByName(String name, Organization organization) {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<ExpenseCategory> query = cb.createQuery(ExpenseCategory.class);
             Root<ExpenseCategory> root = query.from(ExpenseCategory.class);
@@ -107,9 +145,11 @@ public class ExpenseCategoryRepository {
 
     public void delete(ExpenseCategory category) {
         Transaction transaction = null;
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
             transaction = session.beginTransaction();
-            session.delete(category);
+            // Its expenses are deleted with it, and its rollups would otherwise block the delete
+            expenseRollupRepository.deleteForCategory(session, category.getId());
+            session.delete(session.contains(category) ? category : session.merge(category));
             transaction.commit();
             logger.info("Expense category deleted successfully: {}", category.getName());
         } catch (Exception e) {
@@ -0,0 +1,155 @@
+package com.khatabook.core.repository;
+
+import com.khatabook.core.model.DailyExpenseRollup;
+import com.khatabook.core.model.Organization;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.type.LocalDateType;
+import org.hibernate.type.StandardBasicTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public class ExpenseRollupRepository {
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseRollupRepository.class);
+
+    private static final String UPSERT_SQL =
+        "INSERT INTO daily_expense_rollups (organization_id, category_id, rollup_date, total_amount, expense_count) " +
+        "VALUES (:organizationId, :categoryId, :rollupDate, :amount, :count) " +
+        "ON DUPLICATE KEY UPDATE total_amount = total_amount + VALUES(total_amount), " +
+        "expense_count = expense_count + VALUES(expense_count)";
+
+    private static final String DELETE_FOR_ORGANIZATION_SQL =
+        "DELETE FROM daily_expense_rollups WHERE organization_id = :organizationId";
+
+    private static final String DELETE_FOR_CATEGORY_SQL =
+        "DELETE FROM daily_expense_rollups WHERE category_id = :categoryId";
+
+    private static final String CONTACT_EXPENSES_SQL =
+        "SELECT c.organization_id AS organization_id, t.category_id AS category_id, DATE(t.date) AS rollup_date, " +
+        "SUM(t.amount) AS total_amount, COUNT(*) AS expense_count " +
+        "FROM transactions t JOIN expense_categories c ON c.id = t.category_id " +
+        "WHERE t.transaction_type = 'EXPENSE' AND t.contact_id = :contactId " +
+        "GROUP BY c.organization_id, t.category_id, DATE(t.date)";
+
+    private static final String REBUILD_FOR_ORGANIZATION_SQL =
+        "INSERT INTO daily_expense_rollups (organization_id, category_id, rollup_date, total_amount, expense_count) " +
+        "SELECT c.organization_id, t.category_id, DATE(t.date), SUM(t.amount), COUNT(*) " +
+        "FROM transactions t JOIN expense_categories c ON c.id = t.category_id " +
+        "WHERE t.transaction_type = 'EXPENSE' AND c.organization_id = :organizationId " +
+        "GROUP BY c.organization_id, t.category_id, DATE(t.date)";
+
+    private final SessionFactory sessionFactory;
+    private final ReadRouter readRouter;
+
+    public ExpenseRollupRepository(SessionFactory sessionFactory) {
+        this(sessionFactory, ReadRouter.primaryOnly(sessionFactory));
+    }
+
+    public ExpenseRollupRepository(SessionFactory sessionFactory, ReadRouter readRouter) {
+        this.sessionFactory = sessionFactory;
+        this.readRouter = readRouter;
+    }
+
+    // Adds a delta to one (organization, category, day) rollup inside the caller's session and transaction
+    public void applyDelta(
+        Session session,
+        Long organizationId,
+        Long categoryId,
+        LocalDate rollupDate,
+        BigDecimal amount,
+        long count
+    ) {
+        session.createNativeQuery(UPSERT_SQL)
+            .addSynchronizedEntityClass(DailyExpenseRollup.class)
+            .setParameter("organizationId", organizationId)
+            .setParameter("categoryId", categoryId)
+            .setParameter("rollupDate", rollupDate)
+            .setParameter("amount", amount)
+            .setParameter("count", count)
+            .executeUpdate();
+    }
+
+    // Takes a contact's expenses out of the rollups inside the caller's session and transaction, before
+    // they are deleted with the contact
+    public void subtractContactExpenses(Session session, Long contactId) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> totals = session.createNativeQuery(CONTACT_EXPENSES_SQL)
+            .addScalar("organization_id", StandardBasicTypes.LONG)
+            .addScalar("category_id", StandardBasicTypes.LONG)
+            .addScalar("rollup_date", LocalDateType.INSTANCE)
+            .addScalar("total_amount", StandardBasicTypes.BIG_DECIMAL)
+            .addScalar("expense_count", StandardBasicTypes.LONG)
+            .setParameter("contactId", contactId)
+            .getResultList();
+        for (Object[] total : totals) {
+            applyDelta(session, (Long) total[0], (Long) total[1], (LocalDate) total[2],
+                ((BigDecimal) total[3]).negate(), -(Long) total[4]);
+        }
+    }
+
+    // Removes a category's rollups inside the caller's session and transaction, before the category is deleted
+    public void deleteForCategory(Session session, Long categoryId) {
+        session.createNativeQuery(DELETE_FOR_CATEGORY_SQL)
+            .addSynchronizedEntityClass(DailyExpenseRollup.class)
+            .setParameter("categoryId", categoryId)
+            .executeUpdate();
+    }
+
+    // Removes an organization's rollups inside the caller's session and transaction, before the organization is deleted
+    public void deleteForOrganization(Session session, Long organizationId) {
+        session.createNativeQuery(DELETE_FOR_ORGANIZATION_SQL)
+            .addSynchronizedEntityClass(DailyExpenseRollup.class)
+            .setParameter("organizationId", organizationId)
+            .executeUpdate();
+    }
+
+    public List<DailyExpenseRollup> findByOrganizationAndDateRange(
+        Organization organization,
+        LocalDate startDate,
+        LocalDate endDate
+    ) {
+        try (Session session = readRouter.openReadSession(organization.getId())) {
+            return session.createQuery(
+                    "select r from DailyExpenseRollup r join fetch r.category " +
+                    "where r.organization = :organization and r.rollupDate between :startDate and :endDate " +
+                    "order by r.rollupDate",
+                    DailyExpenseRollup.class)
+                .setParameter("organization", organization)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate)
+                .getResultList();
+        } catch (Exception e) {
+            logger.error("Error finding expense rollups for organization {} between {} and {}: {}",
+                organization.getOrgName(), startDate, endDate, e.getMessage());
+            throw new RuntimeException("Error finding expense rollups", e);
+        }
+    }
+
+    // Recomputes an organization's rollups from its expense transactions in one database transaction
+    public int rebuild(Organization organization) {
+        Transaction transaction = null;
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
+            transaction = session.beginTransaction();
+            deleteForOrganization(session, organization.getId());
+            int rows = session.createNativeQuery(REBUILD_FOR_ORGANIZATION_SQL)
+                .addSynchronizedEntityClass(DailyExpenseRollup.class)
+                .setParameter("organizationId", organization.getId())
+                .executeUpdate();
+            transaction.commit();
+            logger.info("Rebuilt {} expense rollups for organization: {}", rows, organization.getOrgName());
+            return rows;
+        } catch (Exception e) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            logger.error("Error rebuilding expense rollups for organization {}: {}",
+                organization.getOrgName(), e.getMessage());
+            throw new RuntimeException("Error rebuilding expense rollups", e);
+        }
+    }
+}
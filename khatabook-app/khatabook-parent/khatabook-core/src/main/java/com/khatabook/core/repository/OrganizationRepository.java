@@ -17,19 +17,31 @@ import java.util.Optional;
 public class OrganizationRepository {
     private static final Logger logger = LoggerFactory.getLogger(OrganizationRepository.class);
     private final SessionFactory sessionFactory;
+    private final ExpenseRollupRepository expenseRollupRepository;
 
     public OrganizationRepository(SessionFactory sessionFactory) {
+        this(sessionFactory, new ExpenseRollupRepository(sessionFactory));
+    }
+
+    public OrganizationRepository(SessionFactory sessionFactory, ExpenseRollupRepository expenseRollupRepository) {
         this.sessionFactory = sessionFactory;
+        this.expenseRollupRepository = expenseRollupRepository;
     }
 
     public Organization save(Organization organization) {
         Transaction transaction = null;
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
             transaction = session.beginTransaction();
-            session.saveOrUpdate(organization);
+            Organization saved = organization;
+            if (organization.getId() == null) {
+                session.save(organization);
+            } else {
+                // Merged rather than reattached, as the unit of work may already hold this row
+                saved = (Organization) session.merge(organization);
+            }
             transaction.commit();
             logger.info("Organization saved successfully: {}", organization.getOrgName());
-            return organization;
+            return saved;
         } catch (Exception e) {
             if (transaction != null) {
                 transaction.rollback();
@@ -40,7 +52,7 @@ public class OrganizationRepository {
     }
 
     public Optional<Organization> findById(Long id) {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
             Organization organization = session.get(Organization.class, id);
             return Optional.ofNullable(organization);
         } catch (Exception e) {
@@ -50,7 +62,7 @@ public class OrganizationRepository {
     }
 
     public Optional<Organization> findByName(String name) {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<Organization> query = cb.createQuery(Organization.class);
             Root<Organization> root = query.from(Organization.class);
@@ -71,7 +83,7 @@ public class OrganizationRepository {
     }
 
     public List<Organization> findAll() {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<Organization> query = cb.createQuery(Organization.class);
             Root<Organization> root = query.from(Organization.class);
@@ -86,9 +98,11 @@ public class OrganizationRepository {
 
     public void delete(Organization organization) {
         Transaction transaction = null;
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
             transaction = session.beginTransaction();
-            session.delete(organization);
+            // Its categories are deleted with it, and their rollups would otherwise block the delete
+            expenseRollupRepository.deleteForOrganization(session, organization.getId());
+            session.delete(session.contains(organization) ? organization : session.merge(organization));
             transaction.commit();
             logger.info("Organization deleted successfully: {}", organization.getOrgName());
         } catch (Exception e) {
@@ -0,0 +1,119 @@
+package com.khatabook.core.repository;
+
+import com.khatabook.core.event.DataChangeListener;
+import com.khatabook.core.event.DataScope;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Chooses the database for read-only queries: the replica when one is configured, the primary otherwise.
+ *
+ * An organization that has just committed a change is pinned to the primary for the pin window, so its
+ * users see their own writes even while the replica lags behind. Pins are held in memory on the node
+ * that committed the write; the window should cover normal replication lag.
+ */
+public class ReadRouter implements DataChangeListener {
+    private static final Logger logger = LoggerFactory.getLogger(ReadRouter.class);
+    // Expired pins are swept when the map grows past this, so idle organizations do not accumulate
+    private static final int PIN_SWEEP_THRESHOLD = 10_000;
+
+    private final SessionFactory primary;
+    private final SessionFactory replica;
+    private final long pinWindowNanos;
+    private final Map<Long, Long> pinnedUntil = new ConcurrentHashMap<>();
+
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+    private final LongAdder pinnedReads = new LongAdder();
+
+    public ReadRouter(SessionFactory primary, SessionFactory replica, Duration pinWindow) {
+        this.primary = primary;
+        this.replica = replica;
+        this.pinWindowNanos = pinWindow.toNanos();
+        if (replica != null) {
+            logger.info("Read-only queries go to the replica; organizations are pinned to the primary for {} ms after a write",
+                pinWindow.toMillis());
+        }
+    }
+
+    public static ReadRouter primaryOnly(SessionFactory primary) {
+        return new ReadRouter(primary, null, Duration.ZERO);
+    }
+
+    public SessionFactory getPrimary() {
+        return primary;
+    }
+
+    public boolean hasReplica() {
+        return replica != null;
+    }
+
+    // The session factory for a read-only query on an organization's data
+    public SessionFactory forRead(Long organizationId) {
+        if (replica == null) {
+            primaryReads.increment();
+            return primary;
+        }
+        if (organizationId != null && isPinned(organizationId)) {
+            pinnedReads.increment();
+            return primary;
+        }
+        replicaReads.increment();
+        return replica;
+    }
+
+    // A session for read-only queries; on the primary it joins the thread's unit of work if there is one
+    public Session openReadSession(Long organizationId) {
+        return UnitOfWork.openSession(forRead(organizationId));
+    }
+
+    // Keeps the organization's reads on the primary until the window has passed
+    public void pin(Long organizationId) {
+        if (replica == null || organizationId == null) {
+            return;
+        }
+        pinnedUntil.put(organizationId, System.nanoTime() + pinWindowNanos);
+        if (pinnedUntil.size() > PIN_SWEEP_THRESHOLD) {
+            long now = System.nanoTime();
+            pinnedUntil.values().removeIf(until -> until - now <= 0);
+        }
+    }
+
+    // Change notifications arrive once the write has committed, which is when the window should start
+    @Override
+    public void onDataChanged(Long organizationId, Set<DataScope> scopes) {
+        pin(organizationId);
+    }
+
+    private boolean isPinned(Long organizationId) {
+        Long until = pinnedUntil.get(organizationId);
+        if (until == null) {
+            return false;
+        }
+        if (until - System.nanoTime() > 0) {
+            return true;
+        }
+        pinnedUntil.remove(organizationId, until);
+        return false;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("replicaConfigured", replica != null);
+        stats.put("pinWindowMs", Duration.ofNanos(pinWindowNanos).toMillis());
+        stats.put("pinnedOrganizations", pinnedUntil.size());
+        stats.put("replicaReads", replicaReads.sum());
+        stats.put("primaryReads", primaryReads.sum());
+        stats.put("pinnedReads", pinnedReads.sum());
+        return stats;
+    }
+}
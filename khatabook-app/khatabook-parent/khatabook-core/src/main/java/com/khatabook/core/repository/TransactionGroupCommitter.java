@@ -0,0 +1,202 @@
+package com.khatabook.core.repository;
+
+import com.khatabook.core.config.AppSettings;
+import com.khatabook.core.model.ExpenseTransaction;
+import com.khatabook.core.model.GiveTakeTransaction;
+import com.khatabook.core.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Gathers transaction writes from concurrent callers and commits them together, paying for one
+ * commit per group instead of one per write.
+ *
+ * A group closes when it holds maxBatchSize writes or maxWaitMillis after its first write arrived,
+ * whichever comes first. Each caller's future completes only after the shared commit. A write that
+ * is rejected on its own (a balance that would go negative) fails alone; if the group commit itself
+ * fails, every write in it is retried in its own transaction.
+ *
+ * Writes commit on their own even when submitted inside a unit of work, so the caller's unit cannot
+ * roll them back; submitting one claims the commit from the unit first (see UnitOfWork.claimCommit).
+ */
+public class TransactionGroupCommitter {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionGroupCommitter.class);
+
+    private final TransactionRepository transactionRepository;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<PendingWrite> queue;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public TransactionGroupCommitter(
+        TransactionRepository transactionRepository,
+        int maxBatchSize,
+        long maxWaitMillis,
+        int queueCapacity
+    ) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Group commit batch size must be at least 1");
+        }
+        this.transactionRepository = transactionRepository;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer = new Thread(this::run, "transaction-group-commit");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        logger.info("Group commit enabled: up to {} writes or {} ms per commit", maxBatchSize, maxWaitMillis);
+    }
+
+    public static boolean isEnabled() {
+        return AppSettings.getBoolean("khatabook.group_commit.enabled", false);
+    }
+
+    public static TransactionGroupCommitter fromSettings(TransactionRepository transactionRepository) {
+        return new TransactionGroupCommitter(
+            transactionRepository,
+            AppSettings.getInt("khatabook.group_commit.max_batch", 64),
+            AppSettings.getLong("khatabook.group_commit.max_wait_ms", 2),
+            AppSettings.getInt("khatabook.group_commit.queue_capacity", 4096)
+        );
+    }
+
+    public <T extends Transaction> CompletableFuture<T> submit(T transaction) {
+        UnitOfWork.claimCommit();
+        PendingWrite write = new PendingWrite(transaction);
+        boolean queued = running && queue.offer(write);
+        // The writer may have stopped and drained the queue for the last time after the check above;
+        // a write it did not take is taken back, as the writer will never see it
+        if (queued && !running && queue.remove(write)) {
+            queued = false;
+        }
+        if (!queued) {
+            // Stopped or saturated: write on the caller's thread rather than queue without limit,
+            // outside the caller's unit of work like any other group-committed write
+            UnitOfWork.runOutside(() -> commitIndividually(write));
+        }
+        @SuppressWarnings("unchecked")
+        CompletableFuture<T> future = (CompletableFuture<T>) write.future;
+        return future;
+    }
+
+    // Submits a write and waits for its group to commit, rethrowing the write's own failure
+    public <T extends Transaction> T write(T transaction) {
+        try {
+            return submit(transaction).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public void shutdown() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            writeGroups();
+        } finally {
+            // However the loop ended, later writes commit on their callers' threads, and writes that
+            // raced with the end still get committed
+            running = false;
+            PendingWrite leftover;
+            while ((leftover = queue.poll()) != null) {
+                commitIndividually(leftover);
+            }
+        }
+    }
+
+    private void writeGroups() {
+        List<PendingWrite> group = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (group.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingWrite next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+                commit(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                group.forEach(this::commitIndividually);
+                break;
+            } catch (RuntimeException e) {
+                logger.error("Unexpected group commit failure: {}", e.getMessage(), e);
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingWrite> group) {
+        List<Transaction> transactions = new ArrayList<>(group.size());
+        for (PendingWrite write : group) {
+            transactions.add(write.transaction);
+        }
+
+        List<RuntimeException> outcomes;
+        try {
+            outcomes = transactionRepository.saveGroup(transactions);
+        } catch (RuntimeException e) {
+            logger.warn("Group commit of {} writes failed, retrying them one by one: {}", group.size(), e.getMessage());
+            group.forEach(this::commitIndividually);
+            return;
+        }
+
+        for (int i = 0; i < group.size(); i++) {
+            PendingWrite write = group.get(i);
+            if (outcomes.get(i) == null) {
+                write.future.complete(write.transaction);
+            } else {
+                write.future.completeExceptionally(outcomes.get(i));
+            }
+        }
+    }
+
+    private void commitIndividually(PendingWrite write) {
+        try {
+            if (write.transaction instanceof GiveTakeTransaction) {
+                transactionRepository.saveGiveTake((GiveTakeTransaction) write.transaction);
+            } else if (write.transaction instanceof ExpenseTransaction) {
+                transactionRepository.saveExpense((ExpenseTransaction) write.transaction);
+            } else {
+                transactionRepository.save(write.transaction);
+            }
+            write.future.complete(write.transaction);
+        } catch (RuntimeException e) {
+            write.future.completeExceptionally(e);
+        }
+    }
+
+    private static final class PendingWrite {
+        private final Transaction transaction;
+        private final CompletableFuture<Transaction> future = new CompletableFuture<>();
+
+        private PendingWrite(Transaction transaction) {
+            this.transaction = transaction;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.khatabook.core.repository;
 
 import com.khatabook.core.model.*;
+import com.khatabook.core.repository.ContactRepository.BalanceUpdate;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
@@ -9,27 +10,68 @@ import org.slf4j.LoggerFactory;
 
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
 import javax.persistence.criteria.Root;
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 public class TransactionRepository {
     private static final Logger logger = LoggerFactory.getLogger(TransactionRepository.class);
+    private static final int DEFAULT_FLUSH_INTERVAL = 50;
     private final SessionFactory sessionFactory;
+    private final ExpenseRollupRepository expenseRollupRepository;
+    private final ContactRepository contactRepository;
+    private final ReadRouter readRouter;
 
     public TransactionRepository(SessionFactory sessionFactory) {
+        this(sessionFactory, new ExpenseRollupRepository(sessionFactory), new ContactRepository(sessionFactory));
+    }
+
+    public TransactionRepository(
+        SessionFactory sessionFactory,
+        ExpenseRollupRepository expenseRollupRepository,
+        ContactRepository contactRepository
+    ) {
+        this(sessionFactory, expenseRollupRepository, contactRepository, ReadRouter.primaryOnly(sessionFactory));
+    }
+
+    public TransactionRepository(
+        SessionFactory sessionFactory,
+        ExpenseRollupRepository expenseRollupRepository,
+        ContactRepository contactRepository,
+        ReadRouter readRouter
+    ) {
         this.sessionFactory = sessionFactory;
+        this.expenseRollupRepository = expenseRollupRepository;
+        this.contactRepository = contactRepository;
+        this.readRouter = readRouter;
     }
 
     public com.khatabook.core.model.Transaction save(com.khatabook.core.model.Transaction transaction) {
         Transaction hibernateTransaction = null;
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
             hibernateTransaction = session.beginTransaction();
-            session.saveOrUpdate(transaction);
+            com.khatabook.core.model.Transaction saved = transaction;
+            if (transaction.getId() == null) {
+                session.save(transaction);
+            } else {
+                // Merged rather than reattached, as the unit of work may already hold this row
+                saved = (com.khatabook.core.model.Transaction) session.merge(transaction);
+            }
             hibernateTransaction.commit();
             logger.info("Transaction saved successfully with id: {}", transaction.getId());
-            return transaction;
+            return saved;
         } catch (Exception e) {
             if (hibernateTransaction != null) {
                 hibernateTransaction.rollback();
@@ -39,10 +81,176 @@ public class TransactionRepository {
         }
     }
 
+    // Saves an expense and adds it to the daily expense rollup in the same database transaction
+    public ExpenseTransaction saveExpense(ExpenseTransaction expense) {
+        Transaction hibernateTransaction = null;
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
+            hibernateTransaction = session.beginTransaction();
+            session.save(expense);
+            expenseRollupRepository.applyDelta(
+                session,
+                expense.getCategory().getOrganization().getId(),
+                expense.getCategory().getId(),
+                expense.getDate().toLocalDate(),
+                expense.getAmount(),
+                1
+            );
+            hibernateTransaction.commit();
+            logger.info("Expense transaction saved successfully with id: {}", expense.getId());
+            return expense;
+        } catch (Exception e) {
+            if (hibernateTransaction != null) {
+                hibernateTransaction.rollback();
+            }
+            logger.error("Error saving expense transaction: {}", e.getMessage());
+            throw new RuntimeException("Error saving expense transaction", e);
+        }
+    }
+
+    // Saves a give/take and applies its balance delta to the contact in the same database transaction
+    public GiveTakeTransaction saveGiveTake(GiveTakeTransaction giveTake) {
+        Transaction hibernateTransaction = null;
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
+            hibernateTransaction = session.beginTransaction();
+            BalanceUpdate update = 
+                contactRepository.applyBalanceDelta(session, giveTake.getContact().getId(), balanceDelta(giveTake));
+            if (!update.isApplied()) {
+                throw new IllegalArgumentException(update.getError());
+            }
+            session.save(giveTake);
+            hibernateTransaction.commit();
+            logger.info("Give/take transaction saved successfully with id: {}", giveTake.getId());
+            return giveTake;
+        } catch (IllegalArgumentException e) {
+            if (hibernateTransaction != null) {
+                hibernateTransaction.rollback();
+            }
+            throw e;
+        } catch (Exception e) {
+            if (hibernateTransaction != null) {
+                hibernateTransaction.rollback();
+            }
+            logger.error("Error saving give/take transaction: {}", e.getMessage());
+            throw new RuntimeException("Error saving give/take transaction", e);
+        }
+    }
+
+    // Saves a batch of transactions in one database transaction, flushing every JDBC batch. Give/take
+    // balance changes are summed per contact and applied as one update each, in contact id order so
+    // concurrent batches lock rows in the same order; expense rollups get one upsert per category and day.
+    // Returns the contacts whose balance update was rejected, with the reason; none of their give/takes
+    // are saved.
+    public Map<Long, String> saveAll(List<com.khatabook.core.model.Transaction> transactions) {
+        Map<Long, BigDecimal> balanceDeltas = new TreeMap<>();
+        for (com.khatabook.core.model.Transaction transaction : transactions) {
+            if (transaction instanceof GiveTakeTransaction) {
+                balanceDeltas.merge(transaction.getContact().getId(), 
+                    balanceDelta((GiveTakeTransaction) transaction), BigDecimal::add);
+            }
+        }
+
+        Transaction hibernateTransaction = null;
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
+            hibernateTransaction = session.beginTransaction();
+
+            Map<Long, String> rejectedContacts = new HashMap<>();
+            for (Map.Entry<Long, BigDecimal> delta : balanceDeltas.entrySet()) {
+                BalanceUpdate update = contactRepository.applyBalanceDelta(session, delta.getKey(), delta.getValue());
+                if (!update.isApplied()) {
+                    rejectedContacts.put(delta.getKey(), update.getError());
+                }
+            }
+
+            int flushInterval = flushInterval();
+            // A unit of work's session also holds what the request loaded, so only this batch is evicted
+            boolean shared = UnitOfWork.isShared(session);
+            List<com.khatabook.core.model.Transaction> flushed = new ArrayList<>(flushInterval);
+            Map<List<Object>, RollupDelta> rollupDeltas = new LinkedHashMap<>();
+            int saved = 0;
+            for (com.khatabook.core.model.Transaction transaction : transactions) {
+                if (transaction instanceof GiveTakeTransaction 
+                        && rejectedContacts.containsKey(transaction.getContact().getId())) {
+                    continue;
+                }
+                session.save(transaction);
+                flushed.add(transaction);
+                if (transaction instanceof ExpenseTransaction) {
+                    addRollupDelta(rollupDeltas, (ExpenseTransaction) transaction);
+                }
+                if (++saved % flushInterval == 0) {
+                    session.flush();
+                    if (shared) {
+                        flushed.forEach(session::evict);
+                    } else {
+                        session.clear();
+                    }
+                    flushed.clear();
+                }
+            }
+            applyRollupDeltas(session, rollupDeltas);
+
+            hibernateTransaction.commit();
+            logger.info("Saved {} of {} transactions in bulk, {} contacts rejected", 
+                saved, transactions.size(), rejectedContacts.size());
+            return rejectedContacts;
+        } catch (Exception e) {
+            if (hibernateTransaction != null) {
+                hibernateTransaction.rollback();
+            }
+            logger.error("Error saving {} transactions in bulk: {}", transactions.size(), e.getMessage());
+            throw new RuntimeException("Error saving transactions in bulk", e);
+        }
+    }
+
+    // Saves concurrently submitted writes in one database transaction, each as if written on its own:
+    // give/take balance deltas are applied item by item in submission order. The returned list holds,
+    // per item, null when it was saved or the IllegalArgumentException that rejected it. Any other
+    // failure rolls the whole group back and is thrown.
+    public List<RuntimeException> saveGroup(List<com.khatabook.core.model.Transaction> transactions) {
+        Transaction hibernateTransaction = null;
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
+            hibernateTransaction = session.beginTransaction();
+
+            List<RuntimeException> outcomes = new ArrayList<>(transactions.size());
+            Map<List<Object>, RollupDelta> rollupDeltas = new LinkedHashMap<>();
+            for (com.khatabook.core.model.Transaction transaction : transactions) {
+                if (transaction instanceof GiveTakeTransaction) {
+                    BalanceUpdate update = contactRepository.applyBalanceDelta(session, 
+                        transaction.getContact().getId(), balanceDelta((GiveTakeTransaction) transaction));
+                    if (!update.isApplied()) {
+                        outcomes.add(new IllegalArgumentException(update.getError()));
+                        continue;
+                    }
+                }
+                session.save(transaction);
+                if (transaction instanceof ExpenseTransaction) {
+                    addRollupDelta(rollupDeltas, (ExpenseTransaction) transaction);
+                }
+                outcomes.add(null);
+            }
+            applyRollupDeltas(session, rollupDeltas);
+
+            hibernateTransaction.commit();
+            logger.debug("Group commit of {} transactions", transactions.size());
+            return outcomes;
+        } catch (Exception e) {
+            if (hibernateTransaction != null) {
+                hibernateTransaction.rollback();
+            }
+            logger.error("Error saving group of {} transactions: {}", transactions.size(), e.getMessage());
+            throw new RuntimeException("Error saving group of transactions", e);
+        }
+    }
+
     public Optional<com.khatabook.core.model.Transaction> findById(Long id) {
-        try (Session session = sessionFactory.openSession()) {
-            com.khatabook.core.model.Transaction transaction = session.get(com.khatabook.core.model.Transaction.class, id);
-            return Optional.ofNullable(transaction);
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
+            // Contact and organization are fetched so callers can check ownership after the session closes
+            List<com.khatabook.core.model.Transaction> results = session.createQuery(
+                    "select t from Transaction t join fetch t.contact c join fetch c.organization where t.id = :id",
+                    com.khatabook.core.model.Transaction.class)
+                .setParameter("id", id)
+                .getResultList();
+            return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
         } catch (Exception e) {
             logger.error("Error finding transaction by id {}: {}", id, e.getMessage());
             throw new RuntimeException("Error finding transaction", e);
@@ -50,7 +258,7 @@ public class TransactionRepository {
     }
 
     public List<com.khatabook.core.model.Transaction> findByContact(Contact contact) {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<com.khatabook.core.model.Transaction> query = cb.createQuery(com.khatabook.core.model.Transaction.class);
             Root<com.khatabook.core.model.Transaction> root = query.from(com.khatabook.core.model.Transaction.class);
@@ -67,7 +275,7 @@ public class TransactionRepository {
     }
 
     public List<ExpenseTransaction> findExpensesByCategory(ExpenseCategory category) {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<ExpenseTransaction> query = cb.createQuery(ExpenseTransaction.class);
             Root<ExpenseTransaction> root = query.from(ExpenseTransaction.class);
@@ -84,7 +292,7 @@ public class TransactionRepository {
     }
 
     public List<GiveTakeTransaction> findGiveTakeByType(Contact contact, TransactionType type) {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<GiveTakeTransaction> query = cb.createQuery(GiveTakeTransaction.class);
             Root<GiveTakeTransaction> root = query.from(GiveTakeTransaction.class);
@@ -105,7 +313,7 @@ public class TransactionRepository {
     }
 
     public List<com.khatabook.core.model.Transaction> findByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<com.khatabook.core.model.Transaction> query = cb.createQuery(com.khatabook.core.model.Transaction.class);
             Root<com.khatabook.core.model.Transaction> root = query.from(com.khatabook.core.model.Transaction.class);
@@ -125,13 +333,108 @@ public class TransactionRepository {
         }
     }
 
+    // Receivable/payable totals per contact of an organization, computed by a single grouped query
+    public Map<Long, Map<TransactionType, BigDecimal>> sumGiveTakeByContact(
+        Organization organization,
+        LocalDateTime startDate,
+        LocalDateTime endDate
+    ) {
+        try (Session session = readRouter.openReadSession(organization.getId())) {
+            CriteriaBuilder cb = session.getCriteriaBuilder();
+            CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+            Root<GiveTakeTransaction> root = query.from(GiveTakeTransaction.class);
+            Join<GiveTakeTransaction, Contact> contact = root.join("contact");
+
+            query.multiselect(contact.get("id"), root.get("transactionType"), cb.sum(root.get("amount")))
+                 .where(cb.and(
+                     cb.equal(contact.get("organization"), organization),
+                     cb.between(root.get("date"), startDate, endDate)
+                 ))
+                 .groupBy(contact.get("id"), root.get("transactionType"));
+
+            Map<Long, Map<TransactionType, BigDecimal>> totals = new HashMap<>();
+            for (Object[] row : session.createQuery(query).getResultList()) {
+                totals.computeIfAbsent((Long) row[0], k -> new EnumMap<>(TransactionType.class))
+                      .put((TransactionType) row[1], (BigDecimal) row[2]);
+            }
+            return totals;
+        } catch (Exception e) {
+            logger.error("Error summing give/take transactions for organization {}: {}", 
+                organization.getOrgName(), e.getMessage());
+            throw new RuntimeException("Error summing give/take transactions", e);
+        }
+    }
+
+    // Receivable/payable totals for a chunk of contacts, as used by chunked overall statements
+    public Map<Long, Map<TransactionType, BigDecimal>> sumGiveTakeByContactIds(
+        Long organizationId,
+        Collection<Long> contactIds,
+        LocalDateTime startDate,
+        LocalDateTime endDate
+    ) {
+        try (Session session = readRouter.openReadSession(organizationId)) {
+            CriteriaBuilder cb = session.getCriteriaBuilder();
+            CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+            Root<GiveTakeTransaction> root = query.from(GiveTakeTransaction.class);
+            Join<GiveTakeTransaction, Contact> contact = root.join("contact");
+
+            query.multiselect(contact.get("id"), root.get("transactionType"), cb.sum(root.get("amount")))
+                 .where(cb.and(
+                     cb.equal(contact.get("organization").get("id"), organizationId),
+                     contact.get("id").in(contactIds),
+                     cb.between(root.get("date"), startDate, endDate)
+                 ))
+                 .groupBy(contact.get("id"), root.get("transactionType"));
+
+            Map<Long, Map<TransactionType, BigDecimal>> totals = new HashMap<>();
+            for (Object[] row : session.createQuery(query).getResultList()) {
+                totals.computeIfAbsent((Long) row[0], k -> new EnumMap<>(TransactionType.class))
+                      .put((TransactionType) row[1], (BigDecimal) row[2]);
+            }
+            return totals;
+        } catch (Exception e) {
+            logger.error("Error summing give/take transactions for {} contacts: {}", contactIds.size(), e.getMessage());
+            throw new RuntimeException("Error summing give/take transactions", e);
+        }
+    }
+
     public void delete(com.khatabook.core.model.Transaction transaction) {
         Transaction hibernateTransaction = null;
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
             hibernateTransaction = session.beginTransaction();
-            session.delete(transaction);
+            com.khatabook.core.model.Transaction managed = 
+                session.get(com.khatabook.core.model.Transaction.class, transaction.getId());
+            if (managed != null) {
+                // Expenses leave the daily rollup in the same database transaction as the delete
+                if (managed instanceof ExpenseTransaction) {
+                    ExpenseCategory category = ((ExpenseTransaction) managed).getCategory();
+                    expenseRollupRepository.applyDelta(
+                        session,
+                        category.getOrganization().getId(),
+                        category.getId(),
+                        managed.getDate().toLocalDate(),
+                        managed.getAmount().negate(),
+                        -1
+                    );
+                }
+                // Give/take deletes reverse their balance delta in the same database transaction
+                if (managed instanceof GiveTakeTransaction) {
+                    BigDecimal reversal = balanceDelta((GiveTakeTransaction) managed).negate();
+                    BalanceUpdate update = 
+                        contactRepository.applyBalanceDelta(session, managed.getContact().getId(), reversal);
+                    if (!update.isApplied()) {
+                        throw new IllegalArgumentException(update.getError());
+                    }
+                }
+                session.delete(managed);
+            }
             hibernateTransaction.commit();
             logger.info("Transaction deleted successfully with id: {}", transaction.getId());
+        } catch (IllegalArgumentException e) {
+            if (hibernateTransaction != null) {
+                hibernateTransaction.rollback();
+            }
+            throw e;
         } catch (Exception e) {
             if (hibernateTransaction != null) {
                 hibernateTransaction.rollback();
@@ -144,4 +447,51 @@ public class TransactionRepository {
     public void deleteById(Long id) {
         findById(id).ifPresent(this::delete);
     }
+
+    private static void addRollupDelta(Map<List<Object>, RollupDelta> rollupDeltas, ExpenseTransaction expense) {
+        ExpenseCategory category = expense.getCategory();
+        LocalDate day = expense.getDate().toLocalDate();
+        rollupDeltas.computeIfAbsent(
+                Arrays.asList(category.getOrganization().getId(), category.getId(), day),
+                k -> new RollupDelta(category.getOrganization().getId(), category.getId(), day))
+            .add(expense.getAmount());
+    }
+
+    private void applyRollupDeltas(Session session, Map<List<Object>, RollupDelta> rollupDeltas) {
+        for (RollupDelta rollup : rollupDeltas.values()) {
+            expenseRollupRepository.applyDelta(session, rollup.organizationId, rollup.categoryId, 
+                rollup.day, rollup.amount, rollup.count);
+        }
+    }
+
+    // Flushing in step with hibernate.jdbc.batch_size lets each flush go out as full JDBC batches
+    private int flushInterval() {
+        int batchSize = sessionFactory.getSessionFactoryOptions().getJdbcBatchSize();
+        return batchSize > 0 ? batchSize : DEFAULT_FLUSH_INTERVAL;
+    }
+
+    // A GIVE raises what the contact owes, a TAKE lowers it
+    private static BigDecimal balanceDelta(GiveTakeTransaction giveTake) {
+        return giveTake.getTransactionType() == TransactionType.GIVE
+            ? giveTake.getAmount() : giveTake.getAmount().negate();
+    }
+
+    private static final class RollupDelta {
+        private final Long organizationId;
+        private final Long categoryId;
+        private final LocalDate day;
+        private BigDecimal amount = BigDecimal.ZERO;
+        private long count;
+
+        private RollupDelta(Long organizationId, Long categoryId, LocalDate day) {
+            this.organizationId = organizationId;
+            this.categoryId = categoryId;
+            this.day = day;
+        }
+
+        private void add(BigDecimal expenseAmount) {
+            amount = amount.add(expenseAmount);
+            count++;
+        }
+    }
 }
@@ -0,0 +1,304 @@
+package com.khatabook.core.repository;
+
+import com.khatabook.core.dto.TransactionCursor;
+import com.khatabook.core.dto.TransactionFilter;
+import com.khatabook.core.dto.TransactionRow;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.LocalDateTimeType;
+import org.hibernate.type.StandardBasicTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Read-only transaction queries that return flat TransactionRow projections. Each method is a single
+ * SQL statement on a stateless session, joining in the contact and category names, so callers never
+ * touch lazy associations. Every query is scoped to an organization, whose reads the ReadRouter may
+ * send to a replica.
+ */
+public class TransactionRowRepository {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionRowRepository.class);
+    // Rows buffered per round-trip while scrolling; with MySQL this needs useCursorFetch=true on the JDBC URL
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private static final String SELECT_ROWS =
+        "SELECT t.id AS id, t.date AS date, t.amount AS amount, " +
+        "CASE WHEN t.transaction_type = 'EXPENSE' THEN 'EXPENSE' ELSE t.give_take_type END AS type, " +
+        "t.contact_id AS contact_id, c.name AS contact_name, " +
+        "t.category_id AS category_id, ec.name AS category_name, t.notes AS notes " +
+        "FROM transactions t " +
+        "JOIN contacts c ON c.id = t.contact_id " +
+        "LEFT JOIN expense_categories ec ON ec.id = t.category_id ";
+
+    private static final String NEWEST_FIRST = " ORDER BY t.date DESC, t.id DESC";
+
+    private final ReadRouter readRouter;
+
+    public TransactionRowRepository(SessionFactory sessionFactory) {
+        this(ReadRouter.primaryOnly(sessionFactory));
+    }
+
+    public TransactionRowRepository(ReadRouter readRouter) {
+        this.readRouter = readRouter;
+    }
+
+    public List<TransactionRow> findByContact(Long organizationId, Long contactId) {
+        try (StatelessSession session = openSession(organizationId)) {
+            return list(rowQuery(session, SELECT_ROWS +
+                    "WHERE c.organization_id = :organizationId AND t.contact_id = :contactId" + NEWEST_FIRST)
+                .setParameter("organizationId", organizationId)
+                .setParameter("contactId", contactId));
+        } catch (Exception e) {
+            logger.error("Error finding transaction rows for contact {}: {}", contactId, e.getMessage());
+            throw new RuntimeException("Error finding transactions by contact", e);
+        }
+    }
+
+    public List<TransactionRow> findByContactAndDateRange(
+        Long organizationId,
+        Long contactId,
+        LocalDateTime startDate,
+        LocalDateTime endDate
+    ) {
+        try (StatelessSession session = openSession(organizationId)) {
+            return list(rowQuery(session, SELECT_ROWS +
+                    "WHERE c.organization_id = :organizationId AND t.contact_id = :contactId " +
+                    "AND t.date BETWEEN :startDate AND :endDate" + NEWEST_FIRST)
+                .setParameter("organizationId", organizationId)
+                .setParameter("contactId", contactId)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate));
+        } catch (Exception e) {
+            logger.error("Error finding transaction rows for contact {} between dates {} and {}: {}",
+                contactId, startDate, endDate, e.getMessage());
+            throw new RuntimeException("Error finding transactions for contact", e);
+        }
+    }
+
+    public List<TransactionRow> findByContactIdsAndDateRange(
+        Long organizationId,
+        Collection<Long> contactIds,
+        LocalDateTime startDate,
+        LocalDateTime endDate
+    ) {
+        try (StatelessSession session = openSession(organizationId)) {
+            return list(rowQuery(session, SELECT_ROWS +
+                    "WHERE c.organization_id = :organizationId AND t.contact_id IN (:contactIds) " +
+                    "AND t.date BETWEEN :startDate AND :endDate" + NEWEST_FIRST)
+                .setParameter("organizationId", organizationId)
+                .setParameterList("contactIds", contactIds)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate));
+        } catch (Exception e) {
+            logger.error("Error finding transaction rows for {} contacts between dates {} and {}: {}",
+                contactIds.size(), startDate, endDate, e.getMessage());
+            throw new RuntimeException("Error finding transactions for contacts", e);
+        }
+    }
+
+    public List<TransactionRow> findByOrganizationAndDateRange(
+        Long organizationId,
+        LocalDateTime startDate,
+        LocalDateTime endDate
+    ) {
+        try (StatelessSession session = openSession(organizationId)) {
+            return list(rowQuery(session, SELECT_ROWS +
+                    "WHERE c.organization_id = :organizationId AND t.date BETWEEN :startDate AND :endDate" + NEWEST_FIRST)
+                .setParameter("organizationId", organizationId)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate));
+        } catch (Exception e) {
+            logger.error("Error finding transaction rows for organization {} between dates {} and {}: {}",
+                organizationId, startDate, endDate, e.getMessage());
+            throw new RuntimeException("Error finding transactions for organization", e);
+        }
+    }
+
+    // Expenses are scoped through their category, which always belongs to the organization
+    public List<TransactionRow> findExpensesByOrganizationAndDateRange(
+        Long organizationId,
+        LocalDateTime startDate,
+        LocalDateTime endDate
+    ) {
+        try (StatelessSession session = openSession(organizationId)) {
+            return list(rowQuery(session, SELECT_ROWS +
+                    "WHERE ec.organization_id = :organizationId AND t.transaction_type = 'EXPENSE' " +
+                    "AND t.date BETWEEN :startDate AND :endDate" + NEWEST_FIRST)
+                .setParameter("organizationId", organizationId)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate));
+        } catch (Exception e) {
+            logger.error("Error finding expense rows for organization {} between dates {} and {}: {}",
+                organizationId, startDate, endDate, e.getMessage());
+            throw new RuntimeException("Error finding expenses for organization", e);
+        }
+    }
+
+    // One newest-first page of an organization's transactions. Filters and the keyset condition on
+    // (date, id) are all applied in SQL, so deep pages cost the same as the first one.
+    public List<TransactionRow> findPage(
+        Long organizationId,
+        TransactionFilter filter,
+        TransactionCursor after,
+        int limit
+    ) {
+        StringBuilder sql = new StringBuilder(SELECT_ROWS).append("WHERE c.organization_id = :organizationId");
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("organizationId", organizationId);
+
+        if (filter.getContactId() != null) {
+            sql.append(" AND t.contact_id = :contactId");
+            parameters.put("contactId", filter.getContactId());
+        }
+        if (TransactionRow.TYPE_EXPENSE.equals(filter.getType())) {
+            sql.append(" AND t.transaction_type = 'EXPENSE'");
+        } else if (filter.getType() != null) {
+            sql.append(" AND t.give_take_type = :type");
+            parameters.put("type", filter.getType());
+        }
+        if (filter.getCategoryId() != null) {
+            sql.append(" AND t.category_id = :categoryId");
+            parameters.put("categoryId", filter.getCategoryId());
+        }
+        if (filter.getMinAmount() != null) {
+            sql.append(" AND t.amount >= :minAmount");
+            parameters.put("minAmount", filter.getMinAmount());
+        }
+        if (filter.getMaxAmount() != null) {
+            sql.append(" AND t.amount <= :maxAmount");
+            parameters.put("maxAmount", filter.getMaxAmount());
+        }
+        if (filter.getStartDate() != null) {
+            sql.append(" AND t.date >= :startDate");
+            parameters.put("startDate", filter.getStartDate());
+        }
+        if (filter.getEndDate() != null) {
+            sql.append(" AND t.date <= :endDate");
+            parameters.put("endDate", filter.getEndDate());
+        }
+        if (after != null) {
+            sql.append(" AND (t.date < :cursorDate OR (t.date = :cursorDate AND t.id < :cursorId))");
+            parameters.put("cursorDate", after.getDate());
+            parameters.put("cursorId", after.getId());
+        }
+        sql.append(NEWEST_FIRST);
+
+        try (StatelessSession session = openSession(organizationId)) {
+            NativeQuery<Object[]> query = rowQuery(session, sql.toString());
+            parameters.forEach((name, value) -> query.setParameter(name, value));
+            query.setMaxResults(limit);
+            return list(query);
+        } catch (Exception e) {
+            logger.error("Error finding transaction page for organization {}: {}", organizationId, e.getMessage());
+            throw new RuntimeException("Error finding transactions", e);
+        }
+    }
+
+    // Streams a contact's transactions through a forward-only cursor without holding them in memory
+    public void scrollByContactAndDateRange(
+        Long organizationId,
+        Long contactId,
+        LocalDateTime startDate,
+        LocalDateTime endDate,
+        Consumer<TransactionRow> consumer
+    ) {
+        try (StatelessSession session = openSession(organizationId)) {
+            scroll(rowQuery(session, SELECT_ROWS +
+                    "WHERE c.organization_id = :organizationId AND t.contact_id = :contactId " +
+                    "AND t.date BETWEEN :startDate AND :endDate" + NEWEST_FIRST)
+                .setParameter("organizationId", organizationId)
+                .setParameter("contactId", contactId)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate), consumer);
+        } catch (RuntimeException e) {
+            logger.error("Error streaming transactions for contact {}: {}", contactId, e.getMessage());
+            throw e;
+        }
+    }
+
+    // Streams an organization's expenses grouped by category name
+    public void scrollExpensesByOrganizationAndDateRange(
+        Long organizationId,
+        LocalDateTime startDate,
+        LocalDateTime endDate,
+        Consumer<TransactionRow> consumer
+    ) {
+        try (StatelessSession session = openSession(organizationId)) {
+            scroll(rowQuery(session, SELECT_ROWS +
+                    "WHERE ec.organization_id = :organizationId AND t.transaction_type = 'EXPENSE' " +
+                    "AND t.date BETWEEN :startDate AND :endDate " +
+                    "ORDER BY ec.name, t.date DESC, t.id DESC")
+                .setParameter("organizationId", organizationId)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate), consumer);
+        } catch (RuntimeException e) {
+            logger.error("Error streaming expenses for organization {}: {}", organizationId, e.getMessage());
+            throw e;
+        }
+    }
+
+    private StatelessSession openSession(Long organizationId) {
+        return readRouter.forRead(organizationId).openStatelessSession();
+    }
+
+    // Scalar types are declared so results do not depend on the driver's mapping of BIGINT and DATETIME
+    private static NativeQuery<Object[]> rowQuery(StatelessSession session, String sql) {
+        @SuppressWarnings("unchecked")
+        NativeQuery<Object[]> query = session.createNativeQuery(sql);
+        return query
+            .addScalar("id", StandardBasicTypes.LONG)
+            .addScalar("date", LocalDateTimeType.INSTANCE)
+            .addScalar("amount", StandardBasicTypes.BIG_DECIMAL)
+            .addScalar("type", StandardBasicTypes.STRING)
+            .addScalar("contact_id", StandardBasicTypes.LONG)
+            .addScalar("contact_name", StandardBasicTypes.STRING)
+            .addScalar("category_id", StandardBasicTypes.LONG)
+            .addScalar("category_name", StandardBasicTypes.STRING)
+            .addScalar("notes", StandardBasicTypes.STRING);
+    }
+
+    private static List<TransactionRow> list(NativeQuery<Object[]> query) {
+        List<Object[]> results = query.setReadOnly(true).getResultList();
+        List<TransactionRow> rows = new ArrayList<>(results.size());
+        for (Object[] result : results) {
+            rows.add(toRow(result));
+        }
+        return rows;
+    }
+
+    private static void scroll(NativeQuery<Object[]> query, Consumer<TransactionRow> consumer) {
+        query.setFetchSize(STREAM_FETCH_SIZE);
+        query.setReadOnly(true);
+        try (ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                consumer.accept(toRow(results.get()));
+            }
+        }
+    }
+
+    private static TransactionRow toRow(Object[] result) {
+        return new TransactionRow(
+            (Long) result[0],
+            (LocalDateTime) result[1],
+            (BigDecimal) result[2],
+            (String) result[3],
+            (Long) result[4],
+            (String) result[5],
+            (Long) result[6],
+            (String) result[7],
+            (String) result[8]
+        );
+    }
+}
@@ -0,0 +1,288 @@
+package com.khatabook.core.repository;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+/**
+ * One session and one database transaction shared by everything a thread does until the unit of
+ * work ends, typically a single HTTP request.
+ *
+ * Repositories get their session from {@link #openSession(SessionFactory)}. While a unit of work is
+ * bound to the thread that returns a view of the shared session in which close() does nothing and
+ * the transaction a repository begins joins the outer one: its commit() only flushes, its rollback()
+ * marks the whole unit rollback-only. Without a unit of work repositories behave as before and open
+ * and commit their own session.
+ *
+ * The session is opened, and a connection borrowed, only when a repository first asks for it, so a
+ * unit that is begun early but used late (or not at all) holds no connection in between.
+ *
+ * A unit of work can move to another thread with {@link #detach()} and {@link #attach()}, e.g. when a
+ * request continues on a worker thread; it is then ended by that thread, and used by one thread at a time.
+ *
+ * Writes that commit on their own, outside the unit (group commit), cannot be rolled back with it.
+ * They call {@link #claimCommit()} first, which lets the unit's owner refuse them, e.g. once the
+ * request has already been answered.
+ */
+public class UnitOfWork {
+    private static final Logger logger = LoggerFactory.getLogger(UnitOfWork.class);
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private final SessionFactory sessionFactory;
+    private Session session;
+    private Transaction transaction;
+    private final Session sharedSession;
+    private final Transaction joinedTransaction;
+    private final List<Runnable> afterCommit = new ArrayList<>();
+    private BooleanSupplier commitClaim = () -> true;
+    private boolean rollbackOnly;
+    private volatile boolean detached;
+
+    private UnitOfWork(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+        this.sharedSession = proxy(Session.class, this::invokeOnSession);
+        this.joinedTransaction = proxy(Transaction.class, this::invokeOnTransaction);
+    }
+
+    // Opens the session and begins the shared transaction on first use
+    private Session session() {
+        if (session == null) {
+            Session opened = sessionFactory.openSession();
+            try {
+                transaction = opened.beginTransaction();
+            } catch (RuntimeException e) {
+                opened.close();
+                throw e;
+            }
+            session = opened;
+        }
+        return session;
+    }
+
+    // Whether a repository has used the unit, and so holds a session and connection
+    boolean isStarted() {
+        return session != null;
+    }
+
+    // Binds a new unit of work to the calling thread
+    public static UnitOfWork begin(SessionFactory sessionFactory) {
+        if (CURRENT.get() != null) {
+            throw new IllegalStateException("A unit of work is already active on this thread");
+        }
+        UnitOfWork unitOfWork = new UnitOfWork(sessionFactory);
+        CURRENT.set(unitOfWork);
+        return unitOfWork;
+    }
+
+    public static Optional<UnitOfWork> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    // Unbinds the unit from the calling thread so another thread can attach it and end it
+    public UnitOfWork detach() {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+        detached = true;
+        return this;
+    }
+
+    // Continues a detached unit of work on the calling thread
+    public void attach() {
+        if (CURRENT.get() != null) {
+            throw new IllegalStateException("A unit of work is already active on this thread");
+        }
+        CURRENT.set(this);
+    }
+
+    public boolean isDetached() {
+        return detached;
+    }
+
+    // Decides whether a write may still commit outside the unit; consulted by claimCommit()
+    public void onCommitClaim(BooleanSupplier claim) {
+        this.commitClaim = claim;
+    }
+
+    // Called before a write commits outside the unit of work, which could not roll it back
+    public static void claimCommit() {
+        UnitOfWork unitOfWork = CURRENT.get();
+        if (unitOfWork != null && !unitOfWork.commitClaim.getAsBoolean()) {
+            throw new IllegalStateException("Request was already answered, the write was not saved");
+        }
+    }
+
+    // Runs the action with no unit of work bound, so the repositories it calls commit on their own
+    public static void runOutside(Runnable action) {
+        UnitOfWork unitOfWork = CURRENT.get();
+        CURRENT.remove();
+        try {
+            action.run();
+        } finally {
+            if (unitOfWork != null) {
+                CURRENT.set(unitOfWork);
+            }
+        }
+    }
+
+    // The session repositories should use: the shared one inside a unit of work, a fresh one otherwise
+    public static Session openSession(SessionFactory sessionFactory) {
+        UnitOfWork unitOfWork = CURRENT.get();
+        if (unitOfWork != null && unitOfWork.sessionFactory == sessionFactory) {
+            return unitOfWork.sharedSession;
+        }
+        return sessionFactory.openSession();
+    }
+
+    // Whether the session is the calling thread's shared one, holding entities other repositories loaded
+    public static boolean isShared(Session session) {
+        UnitOfWork unitOfWork = CURRENT.get();
+        return unitOfWork != null && unitOfWork.sharedSession == session;
+    }
+
+    // Runs the action once the unit of work commits, or straight away when none is active
+    public static void afterCommit(Runnable action) {
+        UnitOfWork unitOfWork = CURRENT.get();
+        if (unitOfWork == null) {
+            action.run();
+        } else {
+            unitOfWork.afterCommit.add(action);
+        }
+    }
+
+    public void setRollbackOnly() {
+        rollbackOnly = true;
+    }
+
+    public boolean isRollbackOnly() {
+        return rollbackOnly;
+    }
+
+    // Commits the shared transaction unless it was marked rollback-only, then unbinds and closes
+    public void commit() {
+        if (rollbackOnly) {
+            rollback();
+            return;
+        }
+        try {
+            if (transaction != null) {
+                transaction.commit();
+            }
+        } catch (RuntimeException e) {
+            logger.error("Error committing unit of work: {}", e.getMessage());
+            rollbackQuietly();
+            end();
+            throw new RuntimeException("Error committing unit of work", e);
+        }
+        end();
+        for (Runnable action : afterCommit) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                logger.error("After-commit action failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    public void rollback() {
+        rollbackQuietly();
+        end();
+    }
+
+    private void rollbackQuietly() {
+        try {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+        } catch (RuntimeException e) {
+            logger.error("Error rolling back unit of work: {}", e.getMessage());
+        }
+    }
+
+    private void end() {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+        if (session == null) {
+            return;
+        }
+        try {
+            session.close();
+        } catch (RuntimeException e) {
+            logger.error("Error closing unit of work session: {}", e.getMessage());
+        }
+    }
+
+    private Object invokeOnSession(Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "close":
+                return null;
+            case "beginTransaction":
+            case "getTransaction":
+                return joinedTransaction;
+            default:
+                return invoke(session(), method, args);
+        }
+    }
+
+    private Object invokeOnTransaction(Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "begin":
+                return null;
+            case "commit":
+                // Surfaces constraint violations inside the repository call that caused them
+                session().flush();
+                return null;
+            case "rollback":
+            case "setRollbackOnly":
+                rollbackOnly = true;
+                return null;
+            case "getRollbackOnly":
+                return rollbackOnly;
+            default:
+                session();
+                return invoke(transaction, method, args);
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return "UnitOfWork" + type.getSimpleName() + "Proxy";
+                }
+            }
+            return handler.invoke(method, args);
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, invocationHandler);
+    }
+
+    private interface Handler {
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+}
@@ -0,0 +1,103 @@
+package com.khatabook.core.service;
+
+import com.khatabook.core.auth.ApiKeyAuthenticator;
+import com.khatabook.core.auth.ApiKeySecrets;
+import com.khatabook.core.dto.IssuedApiKey;
+import com.khatabook.core.model.ApiKey;
+import com.khatabook.core.model.Organization;
+import com.khatabook.core.repository.ApiKeyRepository;
+import com.khatabook.core.repository.UnitOfWork;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Issues, rotates and revokes an organization's API keys. Rotation issues a new key and lets the old
+ * one keep working for a grace period, so clients can switch over without downtime.
+ */
+public class ApiKeyService {
+    private static final Logger logger = LoggerFactory.getLogger(ApiKeyService.class);
+    private static final Duration MAX_ROTATION_GRACE = Duration.ofDays(30);
+
+    private final ApiKeyRepository apiKeyRepository;
+    // Null when API keys are disabled
+    private final ApiKeySecrets secrets;
+    private final ApiKeyAuthenticator apiKeyAuthenticator;
+
+    public ApiKeyService(ApiKeyRepository apiKeyRepository, ApiKeySecrets secrets,
+            ApiKeyAuthenticator apiKeyAuthenticator) {
+        this.apiKeyRepository = apiKeyRepository;
+        this.secrets = secrets;
+        this.apiKeyAuthenticator = apiKeyAuthenticator;
+    }
+
+    public IssuedApiKey createKey(Organization organization, String name, LocalDateTime expiresAt) {
+        if (secrets == null) {
+            throw new IllegalStateException("API keys are not enabled; set khatabook.api_keys.hmac_secret");
+        }
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("API key name is required");
+        }
+        if (expiresAt != null && !expiresAt.isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Expiry must be in the future");
+        }
+
+        String secret = ApiKeySecrets.newSecret();
+        ApiKey apiKey = new ApiKey();
+        apiKey.setKeyId(ApiKeySecrets.newKeyId());
+        apiKey.setName(name.trim());
+        apiKey.setOrganization(organization);
+        apiKey.setSecretHash(secrets.hash(secret));
+        apiKey.setExpiresAt(expiresAt);
+
+        ApiKey saved = apiKeyRepository.save(apiKey);
+        logger.info("Created API key {} for organization {}", saved.getKeyId(), organization.getId());
+        return new IssuedApiKey(saved, saved.getKeyId() + "." + secret);
+    }
+
+    public List<ApiKey> getKeys(Organization organization) {
+        return apiKeyRepository.findByOrganization(organization);
+    }
+
+    // Issues a replacement; the old key stops working once the grace period is over
+    public IssuedApiKey rotateKey(Organization organization, String keyId, Duration grace) {
+        if (grace.isNegative() || grace.compareTo(MAX_ROTATION_GRACE) > 0) {
+            throw new IllegalArgumentException("Grace period must be between 0 and " + MAX_ROTATION_GRACE.toDays() + " days");
+        }
+        ApiKey current = getActiveKey(organization, keyId);
+        IssuedApiKey replacement = createKey(organization, current.getName(), current.getExpiresAt());
+
+        LocalDateTime graceEnds = LocalDateTime.now().plus(grace);
+        if (current.getExpiresAt() == null || current.getExpiresAt().isAfter(graceEnds)) {
+            current.setExpiresAt(graceEnds);
+            apiKeyRepository.save(current);
+        }
+        evictAfterCommit(keyId);
+        logger.info("Rotated API key {} to {} for organization {}, old key valid until {}",
+            keyId, replacement.getApiKey().getKeyId(), organization.getId(), current.getExpiresAt());
+        return replacement;
+    }
+
+    public void revokeKey(Organization organization, String keyId) {
+        ApiKey apiKey = getActiveKey(organization, keyId);
+        apiKey.setRevokedAt(LocalDateTime.now());
+        apiKeyRepository.save(apiKey);
+        evictAfterCommit(keyId);
+        logger.info("Revoked API key {} for organization {}", keyId, organization.getId());
+    }
+
+    private ApiKey getActiveKey(Organization organization, String keyId) {
+        return apiKeyRepository.findByKeyId(keyId)
+            .filter(apiKey -> apiKey.getOrganization().getId().equals(organization.getId()))
+            .filter(apiKey -> apiKey.isActive(LocalDateTime.now()))
+            .orElseThrow(() -> new IllegalArgumentException("API key not found"));
+    }
+
+    // Evicting before the commit would let a concurrent request cache the old row again
+    private void evictAfterCommit(String keyId) {
+        UnitOfWork.afterCommit(() -> apiKeyAuthenticator.evict(keyId));
+    }
+}
@@ -1,5 +1,7 @@
 package com.khatabook.core.service;
 
+import com.khatabook.core.event.DataChangeNotifier;
+import com.khatabook.core.event.DataScope;
 import com.khatabook.core.model.Contact;
 import com.khatabook.core.model.Organization;
 import com.khatabook.core.repository.ContactRepository;
@@ -7,6 +9,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,9 +17,11 @@ public class ContactService {
     private static final Logger logger = LoggerFactory.getLogger(ContactService.class);
     
     private final ContactRepository contactRepository;
+    private final DataChangeNotifier dataChangeNotifier;
 
-    public ContactService(ContactRepository contactRepository) {
+    public ContactService(ContactRepository contactRepository, DataChangeNotifier dataChangeNotifier) {
         this.contactRepository = contactRepository;
+        this.dataChangeNotifier = dataChangeNotifier;
     }
 
     public Contact createContact(Contact contact, Organization organization) {
@@ -44,7 +49,9 @@ public class ContactService {
 
         logger.info("Creating new contact: {} for organization: {}", 
             contact.getName(), organization.getOrgName());
-        return contactRepository.save(contact);
+        Contact savedContact = contactRepository.save(contact);
+        dataChangeNotifier.notifyChanged(organization.getId(), DataScope.CONTACTS);
+        return savedContact;
     }
 
     public Contact updateContact(Contact contact) {
@@ -54,16 +61,15 @@ public class ContactService {
         Contact existingContact = contactRepository.findById(contact.getId())
             .orElseThrow(() -> new IllegalArgumentException("Contact not found"));
 
-        // Preserve the original organization
-        contact.setOrganization(existingContact.getOrganization());
-
-        // Preserve the original balance unless explicitly changed
-        if (contact.getBalance() == null) {
-            contact.setBalance(existingContact.getBalance());
-        }
+        // Only the editable fields are copied; the organization stays, and the balance changes only
+        // through transactions
+        existingContact.setName(contact.getName());
+        existingContact.setMobileNumber(contact.getMobileNumber());
 
         logger.info("Updating contact: {}", contact.getName());
-        return contactRepository.save(contact);
+        Contact savedContact = contactRepository.save(existingContact);
+        dataChangeNotifier.notifyChanged(existingContact.getOrganization().getId(), DataScope.CONTACTS);
+        return savedContact;
     }
 
     public Optional<Contact> getContact(Long id) {
@@ -77,6 +83,11 @@ public class ContactService {
         return contactRepository.findByMobileNumber(mobileNumber, organization);
     }
 
+    public List<Contact> getContactsByIds(Collection<Long> ids, Organization organization) {
+        logger.info("Fetching {} contacts for organization: {}", ids.size(), organization.getOrgName());
+        return contactRepository.findByIdsAndOrganization(ids, organization);
+    }
+
     public List<Contact> getContactsByOrganization(Organization organization) {
         logger.info("Fetching all contacts for organization: {}", organization.getOrgName());
         return contactRepository.findByOrganization(organization);
@@ -84,7 +95,12 @@ public class ContactService {
 
     public void deleteContact(Long id) {
         logger.info("Deleting contact with id: {}", id);
-        contactRepository.deleteById(id);
+        contactRepository.findById(id).ifPresent(contact -> {
+            contactRepository.delete(contact);
+            // The contact's transactions are removed with it
+            dataChangeNotifier.notifyChanged(
+                contact.getOrganization().getId(), DataScope.CONTACTS, DataScope.TRANSACTIONS);
+        });
     }
 
     private void validateContact(Contact contact) {
@@ -133,8 +149,11 @@ public class ContactService {
             throw new IllegalArgumentException("Balance cannot be negative");
         }
 
-        contact.setBalance(newBalance);
-        contactRepository.save(contact);
+        ContactRepository.BalanceUpdate update = contactRepository.setBalance(contactId, newBalance);
+        if (!update.isApplied()) {
+            throw new IllegalArgumentException(update.getError());
+        }
+        dataChangeNotifier.notifyChanged(contact.getOrganization().getId(), DataScope.CONTACTS);
         logger.info("Updated balance for contact: {} to: {}", contact.getName(), newBalance);
     }
 }
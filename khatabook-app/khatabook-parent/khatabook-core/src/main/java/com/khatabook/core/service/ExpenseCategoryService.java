@@ -1,11 +1,14 @@
 package com.khatabook.core.service;
 
+import com.khatabook.core.event.DataChangeNotifier;
+import com.khatabook.core.event.DataScope;
 import com.khatabook.core.model.ExpenseCategory;
 import com.khatabook.core.model.Organization;
 import com.khatabook.core.repository.ExpenseCategoryRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,9 +16,14 @@ public class ExpenseCategoryService {
     private static final Logger logger = LoggerFactory.getLogger(ExpenseCategoryService.class);
     
     private final ExpenseCategoryRepository expenseCategoryRepository;
+    private final DataChangeNotifier dataChangeNotifier;
 
-    public ExpenseCategoryService(ExpenseCategoryRepository expenseCategoryRepository) {
+    public ExpenseCategoryService(
+        ExpenseCategoryRepository expenseCategoryRepository,
+        DataChangeNotifier dataChangeNotifier
+    ) {
         this.expenseCategoryRepository = expenseCategoryRepository;
+        this.dataChangeNotifier = dataChangeNotifier;
     }
 
     public ExpenseCategory createCategory(ExpenseCategory category, Organization organization) {
@@ -39,7 +47,9 @@ public class ExpenseCategoryService {
 
         logger.info("Creating new expense category: {} for organization: {}", 
             category.getName(), organization.getOrgName());
-        return expenseCategoryRepository.save(category);
+        ExpenseCategory savedCategory = expenseCategoryRepository.save(category);
+        dataChangeNotifier.notifyChanged(organization.getId(), DataScope.EXPENSE_CATEGORIES);
+        return savedCategory;
     }
 
     public ExpenseCategory updateCategory(ExpenseCategory category) {
@@ -58,7 +68,9 @@ public class ExpenseCategoryService {
         }
 
         logger.info("Updating expense category: {}", category.getName());
-        return expenseCategoryRepository.save(category);
+        ExpenseCategory savedCategory = expenseCategoryRepository.save(category);
+        dataChangeNotifier.notifyChanged(existingCategory.getOrganization().getId(), DataScope.EXPENSE_CATEGORIES);
+        return savedCategory;
     }
 
     public Optional<ExpenseCategory> getCategory(Long id) {
@@ -66,6 +78,11 @@ public class ExpenseCategoryService {
         return expenseCategoryRepository.findById(id);
     }
 
+    public List<ExpenseCategory> getCategoriesByIds(Collection<Long> ids, Organization organization) {
+        logger.info("Fetching {} expense categories for organization: {}", ids.size(), organization.getOrgName());
+        return expenseCategoryRepository.findByIdsAndOrganization(ids, organization);
+    }
+
     public List<ExpenseCategory> getCategoriesByOrganization(Organization organization) {
         logger.info("Fetching all expense categories for organization: {}", organization.getOrgName());
         return expenseCategoryRepository.findByOrganization(organization);
@@ -87,7 +104,10 @@ public class ExpenseCategoryService {
         }
 
         logger.info("Deleting expense category: {}", category.getName());
-        expenseCategoryRepository.deleteById(id);
+        expenseCategoryRepository.delete(category);
+        // The category's expenses are removed with it
+        dataChangeNotifier.notifyChanged(
+            category.getOrganization().getId(), DataScope.EXPENSE_CATEGORIES, DataScope.TRANSACTIONS);
     }
 
     private void validateCategory(ExpenseCategory category) {
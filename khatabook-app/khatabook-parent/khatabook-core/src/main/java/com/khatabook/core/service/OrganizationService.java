@@ -1,5 +1,7 @@
 package com.khatabook.core.service;
 
+import com.khatabook.core.event.DataChangeNotifier;
+import com.khatabook.core.event.DataScope;
 import com.khatabook.core.model.Organization;
 import com.khatabook.core.model.ExpenseCategory;
 import com.khatabook.core.repository.OrganizationRepository;
@@ -16,6 +18,7 @@ public class OrganizationService {
     private static final Logger logger = LoggerFactory.getLogger(OrganizationService.class);
     
     private final OrganizationRepository organizationRepository;
+    private final DataChangeNotifier dataChangeNotifier;
 
     // Default expense categories that will be created for each new organization
     private static final List<String> DEFAULT_EXPENSE_CATEGORIES = Arrays.asList(
@@ -30,8 +33,9 @@ public class OrganizationService {
         "Miscellaneous"
     );
 
-    public OrganizationService(OrganizationRepository organizationRepository) {
+    public OrganizationService(OrganizationRepository organizationRepository, DataChangeNotifier dataChangeNotifier) {
         this.organizationRepository = organizationRepository;
+        this.dataChangeNotifier = dataChangeNotifier;
     }
 
     public Organization createOrganization(Organization organization) {
@@ -60,7 +64,9 @@ public class OrganizationService {
             .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
 
         logger.info("Updating organization: {}", organization.getOrgName());
-        return organizationRepository.save(organization);
+        Organization savedOrganization = organizationRepository.save(organization);
+        dataChangeNotifier.notifyChanged(organization.getId(), DataScope.ORGANIZATION);
+        return savedOrganization;
     }
 
     public Optional<Organization> getOrganization(Long id) {
@@ -81,6 +87,7 @@ public class OrganizationService {
     public void deleteOrganization(Long id) {
         logger.info("Deleting organization with id: {}", id);
         organizationRepository.deleteById(id);
+        dataChangeNotifier.notifyChanged(id, DataScope.values());
     }
 
     private void validateOrganization(Organization organization) {
@@ -1,34 +1,68 @@
 package com.khatabook.core.service;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.khatabook.core.cache.ReportCache;
+import com.khatabook.core.cache.ReportCache.ReportType;
+import com.khatabook.core.concurrent.ChunkedExecutor;
+import com.khatabook.core.dto.TransactionRow;
 import com.khatabook.core.model.*;
+import com.khatabook.core.repository.ExpenseRollupRepository;
 import com.khatabook.core.repository.TransactionRepository;
+import com.khatabook.core.repository.TransactionRowRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class ReportService {
     private static final Logger logger = LoggerFactory.getLogger(ReportService.class);
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    // Transaction dates are stored with second precision, so a range ending at 23:59:59 covers the whole day
+    private static final LocalTime END_OF_DAY = LocalTime.of(23, 59, 59);
     
     private final TransactionRepository transactionRepository;
+    private final TransactionRowRepository transactionRowRepository;
+    private final ExpenseRollupRepository expenseRollupRepository;
     private final ContactService contactService;
     private final ExpenseCategoryService expenseCategoryService;
+    private final ReportCache reportCache;
+    private final ChunkedExecutor reportExecutor;
 
     public ReportService(
         TransactionRepository transactionRepository,
+        TransactionRowRepository transactionRowRepository,
+        ExpenseRollupRepository expenseRollupRepository,
         ContactService contactService,
-        ExpenseCategoryService expenseCategoryService
+        ExpenseCategoryService expenseCategoryService,
+        ReportCache reportCache,
+        ChunkedExecutor reportExecutor
     ) {
         this.transactionRepository = transactionRepository;
+        this.transactionRowRepository = transactionRowRepository;
+        this.expenseRollupRepository = expenseRollupRepository;
         this.contactService = contactService;
         this.expenseCategoryService = expenseCategoryService;
+        this.reportCache = reportCache;
+        this.reportExecutor = reportExecutor;
     }
 
     // Contact Balance Summary
     public Map<String, BigDecimal> getContactBalanceSummary(Organization organization) {
+        return reportCache.get(organization.getId(), ReportType.CONTACT_BALANCE_SUMMARY, null, null, null,
+            () -> computeContactBalanceSummary(organization));
+    }
+
+    private Map<String, BigDecimal> computeContactBalanceSummary(Organization organization) {
         logger.info("Generating contact balance summary for organization: {}", organization.getOrgName());
         
         List<Contact> contacts = contactService.getContactsByOrganization(organization);
@@ -42,78 +76,127 @@ public class ReportService {
     }
 
     // Contact Statement
-    public Map<String, Object> getContactStatement(Long contactId, LocalDateTime startDate, LocalDateTime endDate) {
-        Contact contact = contactService.getContact(contactId)
-            .orElseThrow(() -> new IllegalArgumentException("Contact not found"));
-            
+    public Map<String, Object> getContactStatement(Contact contact, LocalDateTime startDate, LocalDateTime endDate) {
+        return reportCache.get(contact.getOrganization().getId(), ReportType.CONTACT_STATEMENT, startDate, endDate,
+            "contact=" + contact.getId(), () -> computeContactStatement(contact, startDate, endDate));
+    }
+
+    private Map<String, Object> computeContactStatement(Contact contact, LocalDateTime startDate, LocalDateTime endDate) {
         logger.info("Generating statement for contact: {} between {} and {}", 
             contact.getName(), startDate, endDate);
 
-        List<Transaction> transactions = transactionRepository.findByDateRange(startDate, endDate)
-            .stream()
-            .filter(t -> t.getContact().getId().equals(contactId))
-            .collect(Collectors.toList());
+        List<TransactionRow> transactions = 
+            transactionRowRepository.findByContactAndDateRange(
+                contact.getOrganization().getId(), contact.getId(), startDate, endDate);
 
         BigDecimal totalReceivable = BigDecimal.ZERO;
         BigDecimal totalPayable = BigDecimal.ZERO;
 
         List<Map<String, Object>> transactionDetails = new ArrayList<>();
 
-        for (Transaction transaction : transactions) {
-            Map<String, Object> detail = new HashMap<>();
-            detail.put("date", transaction.getDate());
-            detail.put("amount", transaction.getAmount());
-            detail.put("notes", transaction.getNotes());
-
-            if (transaction instanceof GiveTakeTransaction) {
-                GiveTakeTransaction giveTake = (GiveTakeTransaction) transaction;
-                detail.put("type", giveTake.getTransactionType());
-                
-                if (giveTake.getTransactionType() == TransactionType.GIVE) {
-                    totalReceivable = totalReceivable.add(transaction.getAmount());
-                } else {
-                    totalPayable = totalPayable.add(transaction.getAmount());
-                }
+        for (TransactionRow transaction : transactions) {
+            if (transaction.isGive()) {
+                totalReceivable = totalReceivable.add(transaction.getAmount());
+            } else if (transaction.isTake()) {
+                totalPayable = totalPayable.add(transaction.getAmount());
             }
             
-            transactionDetails.add(detail);
+            transactionDetails.add(toStatementDetail(transaction));
         }
 
-        Map<String, Object> statement = new HashMap<>();
-        statement.put("contactName", contact.getName());
-        statement.put("startDate", startDate);
-        statement.put("endDate", endDate);
-        statement.put("totalReceivable", totalReceivable);
-        statement.put("totalPayable", totalPayable);
-        statement.put("netBalance", contact.getBalance());
-        statement.put("transactions", transactionDetails);
+        return buildContactStatement(contact, startDate, endDate, totalReceivable, totalPayable, transactionDetails);
+    }
 
-        return statement;
+    // Contact Statement (streaming): rows are written as they are read, totals follow the rows. The
+    // contact is resolved by the caller, as nothing can be rejected once the response has started.
+    public void writeContactStatement(
+        Contact contact,
+        LocalDateTime startDate,
+        LocalDateTime endDate,
+        OutputStream output
+    ) throws IOException {
+        logger.info("Streaming statement for contact: {} between {} and {}", 
+            contact.getName(), startDate, endDate);
+
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(output, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeStringField("contactName", contact.getName());
+            json.writeStringField("startDate", startDate.toString());
+            json.writeStringField("endDate", endDate.toString());
+
+            Long organizationId = contact.getOrganization().getId();
+            BigDecimal[] totals = { BigDecimal.ZERO, BigDecimal.ZERO }; // receivable, payable
+            json.writeArrayFieldStart("transactions");
+            try {
+                transactionRowRepository.scrollByContactAndDateRange(organizationId, contact.getId(), startDate, endDate, transaction -> {
+                    if (transaction.isGive()) {
+                        totals[0] = totals[0].add(transaction.getAmount());
+                    } else if (transaction.isTake()) {
+                        totals[1] = totals[1].add(transaction.getAmount());
+                    }
+                    writeStatementDetail(json, transaction);
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            json.writeEndArray();
+
+            json.writeNumberField("totalReceivable", totals[0]);
+            json.writeNumberField("totalPayable", totals[1]);
+            json.writeNumberField("netBalance", contact.getBalance());
+            json.writeEndObject();
+        }
     }
 
     // Overall Statement
     public Map<String, Object> getOverallStatement(Organization organization, LocalDateTime startDate, LocalDateTime endDate) {
+        return reportCache.get(organization.getId(), ReportType.OVERALL_STATEMENT, startDate, endDate, null,
+            () -> computeOverallStatement(organization, startDate, endDate));
+    }
+
+    private Map<String, Object> computeOverallStatement(
+        Organization organization,
+        LocalDateTime startDate,
+        LocalDateTime endDate
+    ) {
         logger.info("Generating overall statement for organization: {} between {} and {}", 
             organization.getOrgName(), startDate, endDate);
 
-        List<Contact> contacts = contactService.getContactsByOrganization(organization);
-        
+        // Contacts are ordered by id so sequential and chunked runs produce the same statement
+        List<Contact> contacts = new ArrayList<>(contactService.getContactsByOrganization(organization));
+        contacts.sort(Comparator.comparing(Contact::getId));
+
+        List<ContactSummaries> parts;
+        if (reportExecutor.shouldSplit(contacts.size())) {
+            // Chunks of contacts are computed concurrently, each in its own sessions, and merged in chunk order
+            logger.info("Splitting overall statement of {} contacts into chunks of {} across {} workers", 
+                contacts.size(), reportExecutor.getChunkSize(), reportExecutor.getParallelism());
+            parts = reportExecutor.map(contacts, chunk -> {
+                List<Long> contactIds = new ArrayList<>(chunk.size());
+                chunk.forEach(contact -> contactIds.add(contact.getId()));
+                return summarizeContacts(
+                    chunk, startDate, endDate,
+                    transactionRepository.sumGiveTakeByContactIds(organization.getId(), contactIds, startDate, endDate),
+                    transactionRowRepository.findByContactIdsAndDateRange(
+                        organization.getId(), contactIds, startDate, endDate)
+                );
+            });
+        } else {
+            // One pass over the organization's data: contacts, grouped totals and a single detail scan
+            parts = Collections.singletonList(summarizeContacts(
+                contacts, startDate, endDate,
+                transactionRepository.sumGiveTakeByContact(organization, startDate, endDate),
+                transactionRowRepository.findByOrganizationAndDateRange(organization.getId(), startDate, endDate)
+            ));
+        }
+
         BigDecimal totalReceivables = BigDecimal.ZERO;
         BigDecimal totalPayables = BigDecimal.ZERO;
-        List<Map<String, Object>> contactSummaries = new ArrayList<>();
-
-        for (Contact contact : contacts) {
-            Map<String, Object> contactStatement = getContactStatement(contact.getId(), startDate, endDate);
-            
-            totalReceivables = totalReceivables.add((BigDecimal) contactStatement.get("totalReceivable"));
-            totalPayables = totalPayables.add((BigDecimal) contactStatement.get("totalPayable"));
-            
-            Map<String, Object> summary = new HashMap<>();
-            summary.put("contactName", contact.getName());
-            summary.put("balance", contact.getBalance());
-            summary.put("statement", contactStatement);
-            
-            contactSummaries.add(summary);
+        List<Map<String, Object>> contactSummaries = new ArrayList<>(contacts.size());
+        for (ContactSummaries part : parts) {
+            totalReceivables = totalReceivables.add(part.totalReceivables);
+            totalPayables = totalPayables.add(part.totalPayables);
+            contactSummaries.addAll(part.summaries);
         }
 
         Map<String, Object> overallStatement = new HashMap<>();
@@ -128,50 +211,130 @@ public class ReportService {
         return overallStatement;
     }
 
+    private ContactSummaries summarizeContacts(
+        List<Contact> contacts,
+        LocalDateTime startDate,
+        LocalDateTime endDate,
+        Map<Long, Map<TransactionType, BigDecimal>> contactTotals,
+        List<TransactionRow> transactions
+    ) {
+        Map<Long, List<Map<String, Object>>> contactDetails = new HashMap<>();
+        for (TransactionRow transaction : transactions) {
+            contactDetails.computeIfAbsent(transaction.getContactId(), k -> new ArrayList<>())
+                .add(toStatementDetail(transaction));
+        }
+
+        ContactSummaries result = new ContactSummaries();
+        for (Contact contact : contacts) {
+            Map<TransactionType, BigDecimal> totals = contactTotals.getOrDefault(contact.getId(), Collections.emptyMap());
+            BigDecimal totalReceivable = totals.getOrDefault(TransactionType.GIVE, BigDecimal.ZERO);
+            BigDecimal totalPayable = totals.getOrDefault(TransactionType.TAKE, BigDecimal.ZERO);
+
+            Map<String, Object> contactStatement = buildContactStatement(
+                contact, startDate, endDate, totalReceivable, totalPayable,
+                contactDetails.getOrDefault(contact.getId(), new ArrayList<>())
+            );
+            
+            result.totalReceivables = result.totalReceivables.add(totalReceivable);
+            result.totalPayables = result.totalPayables.add(totalPayable);
+            
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("contactName", contact.getName());
+            summary.put("balance", contact.getBalance());
+            summary.put("statement", contactStatement);
+            
+            result.summaries.add(summary);
+        }
+        return result;
+    }
+
+    private Map<String, Object> toStatementDetail(TransactionRow transaction) {
+        Map<String, Object> detail = new HashMap<>();
+        detail.put("date", transaction.getDate());
+        detail.put("amount", transaction.getAmount());
+        detail.put("notes", transaction.getNotes());
+
+        if (!transaction.isExpense()) {
+            detail.put("type", transaction.getType());
+        }
+        return detail;
+    }
+
+    private void writeStatementDetail(JsonGenerator json, TransactionRow transaction) {
+        try {
+            json.writeStartObject();
+            json.writeStringField("date", transaction.getDate().toString());
+            json.writeNumberField("amount", transaction.getAmount());
+            json.writeStringField("notes", transaction.getNotes());
+            if (!transaction.isExpense()) {
+                json.writeStringField("type", transaction.getType());
+            }
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Map<String, Object> buildContactStatement(
+        Contact contact,
+        LocalDateTime startDate,
+        LocalDateTime endDate,
+        BigDecimal totalReceivable,
+        BigDecimal totalPayable,
+        List<Map<String, Object>> transactionDetails
+    ) {
+        Map<String, Object> statement = new HashMap<>();
+        statement.put("contactName", contact.getName());
+        statement.put("startDate", startDate);
+        statement.put("endDate", endDate);
+        statement.put("totalReceivable", totalReceivable);
+        statement.put("totalPayable", totalPayable);
+        statement.put("netBalance", contact.getBalance());
+        statement.put("transactions", transactionDetails);
+        return statement;
+    }
+
     // Expense Summary
     public Map<String, Object> getExpenseSummary(
         Organization organization, 
         LocalDateTime startDate, 
         LocalDateTime endDate
+    ) {
+        return getExpenseSummary(organization, startDate, endDate, true);
+    }
+
+    public Map<String, Object> getExpenseSummary(
+        Organization organization, 
+        LocalDateTime startDate, 
+        LocalDateTime endDate,
+        boolean includeDetails
+    ) {
+        return reportCache.get(organization.getId(), ReportType.EXPENSE_SUMMARY, startDate, endDate,
+            "details=" + includeDetails, () -> computeExpenseSummary(organization, startDate, endDate, includeDetails));
+    }
+
+    private Map<String, Object> computeExpenseSummary(
+        Organization organization, 
+        LocalDateTime startDate, 
+        LocalDateTime endDate,
+        boolean includeDetails
     ) {
         logger.info("Generating expense summary for organization: {} between {} and {}", 
             organization.getOrgName(), startDate, endDate);
 
         List<ExpenseCategory> categories = expenseCategoryService.getCategoriesByOrganization(organization);
-        List<Transaction> transactions = transactionRepository.findByDateRange(startDate, endDate);
         
         Map<String, BigDecimal> categoryTotals = new HashMap<>();
-        Map<String, List<Map<String, Object>>> categoryDetails = new HashMap<>();
-
         for (ExpenseCategory category : categories) {
             categoryTotals.put(category.getName(), BigDecimal.ZERO);
-            categoryDetails.put(category.getName(), new ArrayList<>());
         }
 
+        // Totals come from the daily rollups
         BigDecimal totalExpenses = BigDecimal.ZERO;
-
-        for (Transaction transaction : transactions) {
-            if (transaction instanceof ExpenseTransaction) {
-                ExpenseTransaction expense = (ExpenseTransaction) transaction;
-                String categoryName = expense.getCategory().getName();
-                BigDecimal amount = expense.getAmount();
-
-                // Update category total
-                categoryTotals.put(
-                    categoryName, 
-                    categoryTotals.get(categoryName).add(amount)
-                );
-
-                // Add transaction detail
-                Map<String, Object> detail = new HashMap<>();
-                detail.put("date", expense.getDate());
-                detail.put("amount", amount);
-                detail.put("contact", expense.getContact().getName());
-                detail.put("notes", expense.getNotes());
-                
-                categoryDetails.get(categoryName).add(detail);
-
-                totalExpenses = totalExpenses.add(amount);
+        for (Map<String, BigDecimal> dayTotals : getDailyExpenseTotals(organization, startDate, endDate).values()) {
+            for (Map.Entry<String, BigDecimal> entry : dayTotals.entrySet()) {
+                categoryTotals.merge(entry.getKey(), entry.getValue(), BigDecimal::add);
+                totalExpenses = totalExpenses.add(entry.getValue());
             }
         }
 
@@ -181,35 +344,136 @@ public class ReportService {
         summary.put("endDate", endDate);
         summary.put("totalExpenses", totalExpenses);
         summary.put("categoryTotals", categoryTotals);
-        summary.put("categoryDetails", categoryDetails);
+
+        // Per-expense rows cannot be rebuilt from rollups, so details still read the transactions
+        if (includeDetails) {
+            Map<String, List<Map<String, Object>>> categoryDetails = new HashMap<>();
+            for (ExpenseCategory category : categories) {
+                categoryDetails.put(category.getName(), new ArrayList<>());
+            }
+
+            for (TransactionRow expense : transactionRowRepository.findExpensesByOrganizationAndDateRange(
+                    organization.getId(), startDate, endDate)) {
+                Map<String, Object> detail = new HashMap<>();
+                detail.put("date", expense.getDate());
+                detail.put("amount", expense.getAmount());
+                detail.put("contact", expense.getContactName());
+                detail.put("notes", expense.getNotes());
+                
+                categoryDetails.get(expense.getCategoryName()).add(detail);
+            }
+            summary.put("categoryDetails", categoryDetails);
+        }
 
         return summary;
     }
 
+    // Expense Summary (streaming): details are written grouped by category, totals follow the details
+    public void writeExpenseSummary(
+        Organization organization,
+        LocalDateTime startDate,
+        LocalDateTime endDate,
+        OutputStream output
+    ) throws IOException {
+        logger.info("Streaming expense summary for organization: {} between {} and {}", 
+            organization.getOrgName(), startDate, endDate);
+
+        Map<String, BigDecimal> categoryTotals = new TreeMap<>();
+        for (ExpenseCategory category : expenseCategoryService.getCategoriesByOrganization(organization)) {
+            categoryTotals.put(category.getName(), BigDecimal.ZERO);
+        }
+
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(output, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeStringField("organizationName", organization.getOrgName());
+            json.writeStringField("startDate", startDate.toString());
+            json.writeStringField("endDate", endDate.toString());
+
+            // Rows arrive ordered by category name, so each category's array is opened and closed once
+            String[] currentCategory = { null };
+            Set<String> writtenCategories = new HashSet<>();
+            json.writeObjectFieldStart("categoryDetails");
+            try {
+                transactionRowRepository.scrollExpensesByOrganizationAndDateRange(
+                        organization.getId(), startDate, endDate, expense -> {
+                    try {
+                        String categoryName = expense.getCategoryName();
+                        if (!categoryName.equals(currentCategory[0])) {
+                            if (currentCategory[0] != null) {
+                                json.writeEndArray();
+                            }
+                            json.writeArrayFieldStart(categoryName);
+                            currentCategory[0] = categoryName;
+                            writtenCategories.add(categoryName);
+                        }
+                        categoryTotals.merge(categoryName, expense.getAmount(), BigDecimal::add);
+
+                        json.writeStartObject();
+                        json.writeStringField("date", expense.getDate().toString());
+                        json.writeNumberField("amount", expense.getAmount());
+                        json.writeStringField("contact", expense.getContactName());
+                        json.writeStringField("notes", expense.getNotes());
+                        json.writeEndObject();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (currentCategory[0] != null) {
+                json.writeEndArray();
+            }
+            // Categories without expenses in the range are listed empty, as in the buffered summary
+            for (String categoryName : categoryTotals.keySet()) {
+                if (!writtenCategories.contains(categoryName)) {
+                    json.writeArrayFieldStart(categoryName);
+                    json.writeEndArray();
+                }
+            }
+            json.writeEndObject();
+
+            BigDecimal totalExpenses = BigDecimal.ZERO;
+            json.writeObjectFieldStart("categoryTotals");
+            for (Map.Entry<String, BigDecimal> entry : categoryTotals.entrySet()) {
+                json.writeNumberField(entry.getKey(), entry.getValue());
+                totalExpenses = totalExpenses.add(entry.getValue());
+            }
+            json.writeEndObject();
+
+            json.writeNumberField("totalExpenses", totalExpenses);
+            json.writeEndObject();
+        }
+    }
+
     // Period-wise Expense Summary
     public Map<String, Object> getPeriodWiseExpenseSummary(
         Organization organization,
         LocalDateTime startDate,
         LocalDateTime endDate,
         String groupBy // "daily", "weekly", "monthly"
+    ) {
+        return reportCache.get(organization.getId(), ReportType.PERIOD_WISE_EXPENSE_SUMMARY, startDate, endDate,
+            "groupBy=" + groupBy.toLowerCase(),
+            () -> computePeriodWiseExpenseSummary(organization, startDate, endDate, groupBy));
+    }
+
+    private Map<String, Object> computePeriodWiseExpenseSummary(
+        Organization organization,
+        LocalDateTime startDate,
+        LocalDateTime endDate,
+        String groupBy
     ) {
         logger.info("Generating period-wise expense summary for organization: {} between {} and {} grouped by {}", 
             organization.getOrgName(), startDate, endDate, groupBy);
 
-        List<Transaction> transactions = transactionRepository.findByDateRange(startDate, endDate);
         Map<String, Map<String, BigDecimal>> periodSummary = new TreeMap<>(); // Period -> (Category -> Amount)
 
-        for (Transaction transaction : transactions) {
-            if (transaction instanceof ExpenseTransaction) {
-                ExpenseTransaction expense = (ExpenseTransaction) transaction;
-                String period = getPeriodKey(expense.getDate(), groupBy);
-                String category = expense.getCategory().getName();
-
-                periodSummary.computeIfAbsent(period, k -> new HashMap<>());
-                Map<String, BigDecimal> categorySummary = periodSummary.get(period);
-                
-                categorySummary.merge(category, expense.getAmount(), BigDecimal::add);
-            }
+        for (Map.Entry<LocalDate, Map<String, BigDecimal>> day : 
+                getDailyExpenseTotals(organization, startDate, endDate).entrySet()) {
+            Map<String, BigDecimal> categorySummary = 
+                periodSummary.computeIfAbsent(getPeriodKey(day.getKey(), groupBy), k -> new HashMap<>());
+            day.getValue().forEach((category, amount) -> categorySummary.merge(category, amount, BigDecimal::add));
         }
 
         Map<String, Object> summary = new HashMap<>();
@@ -222,16 +486,72 @@ public class ReportService {
         return summary;
     }
 
-    private String getPeriodKey(LocalDateTime date, String groupBy) {
+    // Per-day expense totals by category name. Whole days are read from the rollups; the partial
+    // days at either edge of the range are aggregated from the transactions themselves.
+    private Map<LocalDate, Map<String, BigDecimal>> getDailyExpenseTotals(
+        Organization organization,
+        LocalDateTime startDate,
+        LocalDateTime endDate
+    ) {
+        Map<LocalDate, Map<String, BigDecimal>> dailyTotals = new TreeMap<>();
+
+        LocalDate firstFullDay = startDate.toLocalTime().equals(LocalTime.MIDNIGHT)
+            ? startDate.toLocalDate() : startDate.toLocalDate().plusDays(1);
+        LocalDate lastFullDay = !endDate.toLocalTime().isBefore(END_OF_DAY)
+            ? endDate.toLocalDate() : endDate.toLocalDate().minusDays(1);
+
+        if (firstFullDay.isAfter(lastFullDay)) {
+            addExpenseTotals(dailyTotals, organization, startDate, endDate);
+            return dailyTotals;
+        }
+
+        for (DailyExpenseRollup rollup : 
+                expenseRollupRepository.findByOrganizationAndDateRange(organization, firstFullDay, lastFullDay)) {
+            dailyTotals.computeIfAbsent(rollup.getRollupDate(), k -> new HashMap<>())
+                .merge(rollup.getCategory().getName(), rollup.getTotalAmount(), BigDecimal::add);
+        }
+
+        LocalDateTime fullDaysStart = firstFullDay.atStartOfDay();
+        LocalDateTime fullDaysEnd = lastFullDay.plusDays(1).atStartOfDay();
+        if (startDate.isBefore(fullDaysStart)) {
+            addExpenseTotals(dailyTotals, organization, startDate, fullDaysStart.minusNanos(1));
+        }
+        if (!endDate.isBefore(fullDaysEnd)) {
+            addExpenseTotals(dailyTotals, organization, fullDaysEnd, endDate);
+        }
+        return dailyTotals;
+    }
+
+    private void addExpenseTotals(
+        Map<LocalDate, Map<String, BigDecimal>> dailyTotals,
+        Organization organization,
+        LocalDateTime startDate,
+        LocalDateTime endDate
+    ) {
+        for (TransactionRow expense : transactionRowRepository.findExpensesByOrganizationAndDateRange(
+                organization.getId(), startDate, endDate)) {
+            dailyTotals.computeIfAbsent(expense.getDate().toLocalDate(), k -> new HashMap<>())
+                .merge(expense.getCategoryName(), expense.getAmount(), BigDecimal::add);
+        }
+    }
+
+    private String getPeriodKey(LocalDate date, String groupBy) {
         switch (groupBy.toLowerCase()) {
             case "daily":
-                return date.toLocalDate().toString();
+                return date.toString();
             case "weekly":
-                return date.toLocalDate().toString() + " (Week " + date.get(java.time.temporal.WeekFields.ISO.weekOfWeekBasedYear()) + ")";
+                return date.toString() + " (Week " + date.get(java.time.temporal.WeekFields.ISO.weekOfWeekBasedYear()) + ")";
             case "monthly":
                 return date.getYear() + "-" + String.format("%02d", date.getMonthValue());
             default:
                 throw new IllegalArgumentException("Invalid groupBy parameter. Must be 'daily', 'weekly', or 'monthly'");
         }
     }
+
+    // Statements and totals for one group of contacts of an overall statement
+    private static final class ContactSummaries {
+        private final List<Map<String, Object>> summaries = new ArrayList<>();
+        private BigDecimal totalReceivables = BigDecimal.ZERO;
+        private BigDecimal totalPayables = BigDecimal.ZERO;
+    }
 }
@@ -1,30 +1,63 @@
 package com.khatabook.core.service;
 
+import com.khatabook.core.dto.BulkItemResult;
+import com.khatabook.core.dto.NewTransaction;
+import com.khatabook.core.dto.TransactionCursor;
+import com.khatabook.core.dto.TransactionFilter;
+import com.khatabook.core.dto.TransactionPage;
+import com.khatabook.core.dto.TransactionRow;
+import com.khatabook.core.event.DataChangeNotifier;
+import com.khatabook.core.event.DataScope;
 import com.khatabook.core.model.*;
+import com.khatabook.core.repository.TransactionGroupCommitter;
 import com.khatabook.core.repository.TransactionRepository;
+import com.khatabook.core.repository.TransactionRowRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 public class TransactionService {
     private static final Logger logger = LoggerFactory.getLogger(TransactionService.class);
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    public static final int MAX_BULK_SIZE = 5000;
     
     private final TransactionRepository transactionRepository;
+    private final TransactionRowRepository transactionRowRepository;
     private final ContactService contactService;
     private final ExpenseCategoryService expenseCategoryService;
+    private final DataChangeNotifier dataChangeNotifier;
+    // Null unless group commit is enabled; single writes then commit on their own
+    private final TransactionGroupCommitter groupCommitter;
 
     public TransactionService(
         TransactionRepository transactionRepository,
+        TransactionRowRepository transactionRowRepository,
         ContactService contactService,
-        ExpenseCategoryService expenseCategoryService
+        ExpenseCategoryService expenseCategoryService,
+        DataChangeNotifier dataChangeNotifier
+    ) {
+        this(transactionRepository, transactionRowRepository, contactService, expenseCategoryService, 
+            dataChangeNotifier, null);
+    }
+
+    public TransactionService(
+        TransactionRepository transactionRepository,
+        TransactionRowRepository transactionRowRepository,
+        ContactService contactService,
+        ExpenseCategoryService expenseCategoryService,
+        DataChangeNotifier dataChangeNotifier,
+        TransactionGroupCommitter groupCommitter
     ) {
         this.transactionRepository = transactionRepository;
+        this.transactionRowRepository = transactionRowRepository;
         this.contactService = contactService;
         this.expenseCategoryService = expenseCategoryService;
+        this.dataChangeNotifier = dataChangeNotifier;
+        this.groupCommitter = groupCommitter;
     }
 
     // Expense Transaction Methods
@@ -55,7 +88,15 @@ public class TransactionService {
 
         logger.info("Creating new expense transaction of {} for contact: {} in category: {}", 
             amount, contact.getName(), category.getName());
-        return (ExpenseTransaction) transactionRepository.save(transaction);
+        if (groupCommitter != null) {
+            // Committed by the group, so already visible whatever becomes of this request's unit of work
+            ExpenseTransaction savedTransaction = groupCommitter.write(transaction);
+            dataChangeNotifier.notifyCommitted(contact.getOrganization().getId(), DataScope.TRANSACTIONS);
+            return savedTransaction;
+        }
+        ExpenseTransaction savedTransaction = transactionRepository.saveExpense(transaction);
+        dataChangeNotifier.notifyChanged(contact.getOrganization().getId(), DataScope.TRANSACTIONS);
+        return savedTransaction;
     }
 
     // Give/Take Transaction Methods
@@ -75,21 +116,118 @@ public class TransactionService {
         transaction.setNotes(notes);
         transaction.setDate(LocalDateTime.now());
 
-        // Update contact balance
-        BigDecimal currentBalance = contact.getBalance();
-        BigDecimal newBalance;
-        
-        if (type == TransactionType.GIVE) {
-            newBalance = currentBalance.add(amount);
-        } else {
-            newBalance = currentBalance.subtract(amount);
-        }
-        
-        contactService.updateContactBalance(contactId, newBalance);
-
+        // The insert and the contact's balance update commit together
         logger.info("Creating new {} transaction of {} for contact: {}", 
             type, amount, contact.getName());
-        return (GiveTakeTransaction) transactionRepository.save(transaction);
+        if (groupCommitter != null) {
+            GiveTakeTransaction savedTransaction = groupCommitter.write(transaction);
+            dataChangeNotifier.notifyCommitted(
+                contact.getOrganization().getId(), DataScope.TRANSACTIONS, DataScope.CONTACTS);
+            return savedTransaction;
+        }
+        GiveTakeTransaction savedTransaction = transactionRepository.saveGiveTake(transaction);
+        dataChangeNotifier.notifyChanged(
+            contact.getOrganization().getId(), DataScope.TRANSACTIONS, DataScope.CONTACTS);
+        return savedTransaction;
+    }
+
+    // Bulk Transaction Methods
+    public List<BulkItemResult> createTransactions(Organization organization, List<NewTransaction> items) {
+        if (items.size() > MAX_BULK_SIZE) {
+            throw new IllegalArgumentException("A bulk request can contain at most " + MAX_BULK_SIZE + " transactions");
+        }
+
+        // Contacts and categories are looked up once for the whole batch
+        Set<Long> contactIds = new HashSet<>();
+        Set<Long> categoryIds = new HashSet<>();
+        for (NewTransaction item : items) {
+            if (item.getContactId() != null) {
+                contactIds.add(item.getContactId());
+            }
+            if (item.getCategoryId() != null) {
+                categoryIds.add(item.getCategoryId());
+            }
+        }
+        Map<Long, Contact> contacts = new HashMap<>();
+        for (Contact contact : contactService.getContactsByIds(contactIds, organization)) {
+            contacts.put(contact.getId(), contact);
+        }
+        Map<Long, ExpenseCategory> categories = new HashMap<>();
+        for (ExpenseCategory category : expenseCategoryService.getCategoriesByIds(categoryIds, organization)) {
+            categories.put(category.getId(), category);
+        }
+
+        Map<Integer, BulkItemResult> results = new TreeMap<>();
+        List<Transaction> accepted = new ArrayList<>();
+        List<NewTransaction> acceptedItems = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (NewTransaction item : items) {
+            try {
+                accepted.add(toTransaction(item, contacts, categories, now));
+                acceptedItems.add(item);
+            } catch (IllegalArgumentException e) {
+                results.put(item.getIndex(), BulkItemResult.rejected(item.getIndex(), e.getMessage()));
+            }
+        }
+
+        Map<Long, String> rejectedContacts = accepted.isEmpty() 
+            ? Collections.emptyMap() : transactionRepository.saveAll(accepted);
+
+        boolean transactionsCreated = false;
+        boolean balancesChanged = false;
+        for (int i = 0; i < accepted.size(); i++) {
+            Transaction transaction = accepted.get(i);
+            NewTransaction item = acceptedItems.get(i);
+            boolean giveTake = transaction instanceof GiveTakeTransaction;
+            if (giveTake && rejectedContacts.containsKey(item.getContactId())) {
+                results.put(item.getIndex(), 
+                    BulkItemResult.rejected(item.getIndex(), rejectedContacts.get(item.getContactId())));
+            } else {
+                results.put(item.getIndex(), BulkItemResult.created(item.getIndex(), transaction.getId()));
+                transactionsCreated = true;
+                balancesChanged |= giveTake;
+            }
+        }
+
+        if (balancesChanged) {
+            dataChangeNotifier.notifyChanged(organization.getId(), DataScope.TRANSACTIONS, DataScope.CONTACTS);
+        } else if (transactionsCreated) {
+            dataChangeNotifier.notifyChanged(organization.getId(), DataScope.TRANSACTIONS);
+        }
+
+        logger.info("Processed bulk request of {} transactions for organization: {}", 
+            items.size(), organization.getOrgName());
+        return new ArrayList<>(results.values());
+    }
+
+    private Transaction toTransaction(
+        NewTransaction item,
+        Map<Long, Contact> contacts,
+        Map<Long, ExpenseCategory> categories,
+        LocalDateTime date
+    ) {
+        validateAmount(item.getAmount());
+        Contact contact = contacts.get(item.getContactId());
+        if (contact == null) {
+            throw new IllegalArgumentException("Contact not found");
+        }
+
+        Transaction transaction;
+        if ("EXPENSE".equals(item.getType())) {
+            ExpenseCategory category = categories.get(item.getCategoryId());
+            if (category == null) {
+                throw new IllegalArgumentException("Expense category not found");
+            }
+            transaction = new ExpenseTransaction(item.getAmount(), category);
+        } else if ("GIVE".equals(item.getType()) || "TAKE".equals(item.getType())) {
+            transaction = new GiveTakeTransaction(item.getAmount(), TransactionType.valueOf(item.getType()));
+        } else {
+            throw new IllegalArgumentException("Invalid type. Must be 'GIVE', 'TAKE' or 'EXPENSE'");
+        }
+        transaction.setContact(contact);
+        transaction.setNotes(item.getNotes());
+        transaction.setDate(date);
+        return transaction;
     }
 
     // General Transaction Methods
@@ -98,9 +236,46 @@ public class TransactionService {
         return transactionRepository.findById(id);
     }
 
-    public List<Transaction> getTransactionsByContact(Contact contact) {
+    public List<TransactionRow> getTransactionsByContact(Contact contact) {
         logger.info("Fetching all transactions for contact: {}", contact.getName());
-        return transactionRepository.findByContact(contact);
+        return transactionRowRepository.findByContact(contact.getOrganization().getId(), contact.getId());
+    }
+
+    // Newest-first page of an organization's transactions; pass the previous page's nextCursor to continue
+    public TransactionPage findTransactions(
+        Organization organization,
+        TransactionFilter filter,
+        String cursor,
+        int limit
+    ) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (filter.getType() != null && !filter.getType().matches("GIVE|TAKE|EXPENSE")) {
+            throw new IllegalArgumentException("Invalid type. Must be 'GIVE', 'TAKE' or 'EXPENSE'");
+        }
+        if (filter.getMinAmount() != null && filter.getMaxAmount() != null 
+                && filter.getMinAmount().compareTo(filter.getMaxAmount()) > 0) {
+            throw new IllegalArgumentException("minAmount cannot be greater than maxAmount");
+        }
+        if (filter.getStartDate() != null && filter.getEndDate() != null 
+                && filter.getStartDate().isAfter(filter.getEndDate())) {
+            throw new IllegalArgumentException("startDate cannot be after endDate");
+        }
+
+        TransactionCursor after = cursor == null || cursor.isEmpty() ? null : TransactionCursor.decode(cursor);
+
+        // One extra row tells whether another page follows without a count query
+        List<TransactionRow> rows = 
+            transactionRowRepository.findPage(organization.getId(), filter, after, limit + 1);
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            nextCursor = TransactionCursor.after(rows.get(limit - 1)).encode();
+        }
+
+        logger.info("Fetched {} transactions for organization: {}", rows.size(), organization.getOrgName());
+        return new TransactionPage(rows, nextCursor);
     }
 
     public List<ExpenseTransaction> getExpensesByCategory(ExpenseCategory category) {
@@ -122,25 +297,11 @@ public class TransactionService {
         Transaction transaction = transactionRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("Transaction not found"));
 
-        // If it's a give/take transaction, reverse the balance update
-        if (transaction instanceof GiveTakeTransaction) {
-            GiveTakeTransaction giveTakeTransaction = (GiveTakeTransaction) transaction;
-            Contact contact = transaction.getContact();
-            BigDecimal currentBalance = contact.getBalance();
-            BigDecimal amount = transaction.getAmount();
-            
-            BigDecimal newBalance;
-            if (giveTakeTransaction.getTransactionType() == TransactionType.GIVE) {
-                newBalance = currentBalance.subtract(amount);
-            } else {
-                newBalance = currentBalance.add(amount);
-            }
-            
-            contactService.updateContactBalance(contact.getId(), newBalance);
-        }
-
+        // A give/take's balance update is reversed in the same database transaction as the delete
         logger.info("Deleting transaction with id: {}", id);
-        transactionRepository.deleteById(id);
+        transactionRepository.delete(transaction);
+        dataChangeNotifier.notifyChanged(
+            transaction.getContact().getOrganization().getId(), DataScope.TRANSACTIONS, DataScope.CONTACTS);
     }
 
     private void validateAmount(BigDecimal amount) {
@@ -0,0 +1,49 @@
+package com.khatabook.core.tools;
+
+import com.khatabook.core.config.DatabaseConfig;
+import com.khatabook.core.model.Organization;
+import com.khatabook.core.repository.ExpenseRollupRepository;
+import com.khatabook.core.repository.OrganizationRepository;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Backfills the daily expense rollups from the transactions table.
+ *
+ * Usage: RebuildExpenseRollups [organizationId ...]
+ * With no arguments every organization is rebuilt.
+ */
+public class RebuildExpenseRollups {
+    private static final Logger logger = LoggerFactory.getLogger(RebuildExpenseRollups.class);
+
+    public static void main(String[] args) {
+        try {
+            SessionFactory sessionFactory = DatabaseConfig.getSessionFactory();
+            OrganizationRepository organizationRepository = new OrganizationRepository(sessionFactory);
+            ExpenseRollupRepository expenseRollupRepository = new ExpenseRollupRepository(sessionFactory);
+
+            List<Organization> organizations = new ArrayList<>();
+            if (args.length == 0) {
+                organizations.addAll(organizationRepository.findAll());
+            } else {
+                for (String arg : args) {
+                    Long organizationId = Long.valueOf(arg);
+                    organizations.add(organizationRepository.findById(organizationId)
+                        .orElseThrow(() -> new IllegalArgumentException("Organization not found: " + organizationId)));
+                }
+            }
+
+            int totalRows = 0;
+            for (Organization organization : organizations) {
+                totalRows += expenseRollupRepository.rebuild(organization);
+            }
+            logger.info("Rebuilt {} expense rollups for {} organizations", totalRows, organizations.size());
+        } finally {
+            DatabaseConfig.shutdown();
+        }
+    }
+}
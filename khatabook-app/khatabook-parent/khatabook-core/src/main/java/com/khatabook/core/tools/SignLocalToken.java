@@ -0,0 +1,76 @@
+package com.khatabook.core.tools;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.khatabook.core.config.AppSettings;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prints an ID token in Firebase's format signed with a local RSA key, for running the API against
+ * khatabook.auth.local_key_file without Firebase.
+ *
+ * Usage: SignLocalToken private-key.pem uid [phoneNumber] [--admin]
+ * The key must be PKCS#8 PEM. The key id and project come from khatabook.auth.local_key_id and
+ * khatabook.auth.project_id, as on the server; the token is valid for an hour. --admin adds the
+ * admin claim that the /api/admin endpoints require.
+ */
+public class SignLocalToken {
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        boolean admin = arguments.remove("--admin");
+        args = arguments.toArray(new String[0]);
+        if (args.length < 2) {
+            System.err.println("Usage: SignLocalToken private-key.pem uid [phoneNumber] [--admin]");
+            System.exit(1);
+        }
+        String keyId = AppSettings.getString("khatabook.auth.local_key_id", "local");
+        String projectId = AppSettings.getString("khatabook.auth.project_id", "khatabook-local");
+
+        String pem = new String(Files.readAllBytes(Paths.get(args[0])), StandardCharsets.US_ASCII);
+        String body = pem.replaceAll("-----(BEGIN|END) PRIVATE KEY-----", "").replaceAll("\\s", "");
+        PrivateKey privateKey = KeyFactory.getInstance("RSA")
+            .generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(body)));
+
+        long now = System.currentTimeMillis() / 1000;
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("alg", "RS256");
+        header.put("kid", keyId);
+        header.put("typ", "JWT");
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("iss", "https://securetoken.google.com/" + projectId);
+        payload.put("aud", projectId);
+        payload.put("auth_time", now);
+        payload.put("sub", args[1]);
+        payload.put("iat", now);
+        payload.put("exp", now + 3600);
+        if (args.length > 2) {
+            payload.put("phone_number", args[2]);
+        }
+        if (admin) {
+            payload.put("admin", true);
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String signingInput = encoder.encodeToString(objectMapper.writeValueAsBytes(header)) + "."
+            + encoder.encodeToString(objectMapper.writeValueAsBytes(payload));
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(privateKey);
+        signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+
+        System.out.println(signingInput + "." + encoder.encodeToString(signature.sign()));
+    }
+}
@@ -0,0 +1,131 @@
+package com.khatabook.core.auth;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.Map;
+
+import static com.khatabook.core.auth.TestTokens.claims;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FirebaseTokenVerifierTest {
+    private static final long NOW = 1_760_000_000L;
+    private static final long SKEW = 300;
+
+    private final TestTokens tokens = new TestTokens();
+    private final TestTokens.MutableClock clock = new TestTokens.MutableClock(NOW);
+    private final FirebaseTokenVerifier verifier =
+        new FirebaseTokenVerifier(TestTokens.PROJECT_ID, tokens.signingKeys(), SKEW, clock);
+
+    private String rejection(Map<String, Object> claims) {
+        String token = tokens.sign(claims);
+        return assertThrows(IllegalArgumentException.class, () -> verifier.verify(token)).getMessage();
+    }
+
+    @Test
+    void acceptsAValidToken() {
+        Map<String, Object> claims = claims("user-1", NOW - 60);
+        claims.put("phone_number", "+919876543210");
+
+        VerifiedToken token = verifier.verify(tokens.sign(claims));
+
+        assertEquals("user-1", token.getUid());
+        assertEquals("+919876543210", token.getPhoneNumber());
+        assertEquals(NOW - 60, token.getIssuedAt());
+        assertEquals(NOW - 60 + 3600, token.getExpiresAt());
+        assertFalse(token.isAdmin());
+    }
+
+    @Test
+    void readsTheAdminClaim() {
+        Map<String, Object> claims = claims("admin-1", NOW);
+        claims.put("admin", true);
+
+        assertTrue(verifier.verify(tokens.sign(claims)).isAdmin());
+    }
+
+    @Test
+    void rejectsAnExpiredTokenOnlyOnceTheSkewHasPassed() {
+        Map<String, Object> claims = claims("user-1", NOW - 4000);
+        claims.put("exp", NOW - SKEW + 1);
+        assertEquals("user-1", verifier.verify(tokens.sign(claims)).getUid());
+
+        claims.put("exp", NOW - SKEW);
+        assertEquals("Token has expired", rejection(claims));
+    }
+
+    @Test
+    void rejectsATokenIssuedInTheFutureBeyondTheSkew() {
+        assertEquals("user-1", verifier.verify(tokens.sign(claims("user-1", NOW + SKEW))).getUid());
+
+        assertEquals("Token is not valid yet", rejection(claims("user-1", NOW + SKEW + 1)));
+
+        Map<String, Object> claims = claims("user-1", NOW);
+        claims.put("auth_time", NOW + SKEW + 1);
+        assertEquals("Token is not valid yet", rejection(claims));
+    }
+
+    @Test
+    void rejectsAnotherProjectsAudience() {
+        Map<String, Object> claims = claims("user-1", NOW);
+        claims.put("aud", "other-project");
+
+        assertEquals("Token was issued for another project", rejection(claims));
+    }
+
+    @Test
+    void rejectsAnUnexpectedIssuer() {
+        Map<String, Object> claims = claims("user-1", NOW);
+        claims.put("iss", "https://securetoken.google.com/other-project");
+
+        assertEquals("Token has an unexpected issuer", rejection(claims));
+    }
+
+    @Test
+    void rejectsAMissingOrOverlongSubject() {
+        assertEquals("Token has an invalid subject", rejection(claims("", NOW)));
+        assertEquals("Token has an invalid subject", rejection(claims("u".repeat(129), NOW)));
+    }
+
+    @Test
+    void rejectsTokensNotSignedByAKnownKey() {
+        String unknownKey = tokens.sign("RS256", "other-key", claims("user-1", NOW));
+        assertThrows(IllegalArgumentException.class, () -> verifier.verify(unknownKey));
+
+        String otherSigner = new TestTokens().sign(claims("user-1", NOW));
+        assertEquals("Token signature is invalid",
+            assertThrows(IllegalArgumentException.class, () -> verifier.verify(otherSigner)).getMessage());
+
+        String wrongAlgorithm = tokens.sign("HS256", TestTokens.KEY_ID, claims("user-1", NOW));
+        assertEquals("Token must be signed with RS256",
+            assertThrows(IllegalArgumentException.class, () -> verifier.verify(wrongAlgorithm)).getMessage());
+    }
+
+    @Test
+    void rejectsATamperedPayload() {
+        String[] parts = tokens.sign(claims("user-1", NOW)).split("\\.");
+        Map<String, Object> claims = claims("user-2", NOW);
+        String forged = parts[0] + "."
+            + tokens.sign(claims).split("\\.")[1] + "." + parts[2];
+
+        assertEquals("Token signature is invalid",
+            assertThrows(IllegalArgumentException.class, () -> verifier.verify(forged)).getMessage());
+    }
+
+    @Test
+    void rejectsSomethingThatIsNotAJwt() {
+        assertThrows(IllegalArgumentException.class, () -> verifier.verify("not-a-token"));
+        assertThrows(IllegalArgumentException.class, () -> verifier.verify("a.b.c"));
+    }
+
+    @Test
+    void parsesAPemPublicKey() {
+        String pem = "-----BEGIN PUBLIC KEY-----\n"
+            + Base64.getMimeEncoder().encodeToString(tokens.getKeyPair().getPublic().getEncoded())
+            + "\n-----END PUBLIC KEY-----\n";
+        FirebaseTokenVerifier fromPem = new FirebaseTokenVerifier(TestTokens.PROJECT_ID,
+            new PemSigningKeys(Map.of(TestTokens.KEY_ID, PemSigningKeys.parse(pem))), SKEW, clock);
+
+        assertEquals("user-1", fromPem.verify(tokens.sign(claims("user-1", NOW))).getUid());
+    }
+}
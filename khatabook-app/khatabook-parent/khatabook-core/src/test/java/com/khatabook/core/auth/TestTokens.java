@@ -0,0 +1,113 @@
+package com.khatabook.core.auth;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Signs ID tokens in Firebase's format with a freshly generated RSA key pair, the way SignLocalToken
+ * does with a key file.
+ */
+final class TestTokens {
+    static final String PROJECT_ID = "khatabook-test";
+    static final String KEY_ID = "test-key";
+    static final String ISSUER = "https://securetoken.google.com/" + PROJECT_ID;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private final KeyPair keyPair;
+
+    TestTokens() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            this.keyPair = generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    KeyPair getKeyPair() {
+        return keyPair;
+    }
+
+    SigningKeys signingKeys() {
+        return new PemSigningKeys(Map.of(KEY_ID, keyPair.getPublic()));
+    }
+
+    // Claims of a valid token for the user, issued at the given second and valid for an hour
+    static Map<String, Object> claims(String uid, long issuedAt) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("iss", ISSUER);
+        claims.put("aud", PROJECT_ID);
+        claims.put("auth_time", issuedAt);
+        claims.put("sub", uid);
+        claims.put("iat", issuedAt);
+        claims.put("exp", issuedAt + 3600);
+        return claims;
+    }
+
+    String sign(Map<String, Object> claims) {
+        return sign("RS256", KEY_ID, claims);
+    }
+
+    String sign(String algorithm, String keyId, Map<String, Object> claims) {
+        try {
+            Map<String, Object> header = new LinkedHashMap<>();
+            header.put("alg", algorithm);
+            header.put("kid", keyId);
+            header.put("typ", "JWT");
+            Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+            String signingInput = encoder.encodeToString(OBJECT_MAPPER.writeValueAsBytes(header)) + "."
+                + encoder.encodeToString(OBJECT_MAPPER.writeValueAsBytes(claims));
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initSign(keyPair.getPrivate());
+            signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+            return signingInput + "." + encoder.encodeToString(signature.sign());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // A clock tests move forward by hand
+    static final class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(long epochSecond) {
+            this.instant = Instant.ofEpochSecond(epochSecond);
+        }
+
+        void advanceSeconds(long seconds) {
+            instant = instant.plusSeconds(seconds);
+        }
+
+        long epochSecond() {
+            return instant.getEpochSecond();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
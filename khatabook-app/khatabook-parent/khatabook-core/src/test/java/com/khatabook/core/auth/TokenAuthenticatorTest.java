@@ -0,0 +1,110 @@
+package com.khatabook.core.auth;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.khatabook.core.auth.TestTokens.claims;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenAuthenticatorTest {
+    private static final long NOW = 1_760_000_000L;
+    private static final long MAX_TTL = 300;
+
+    private final TestTokens tokens = new TestTokens();
+    private final TestTokens.MutableClock clock = new TestTokens.MutableClock(NOW);
+    private final AtomicInteger verifications = new AtomicInteger();
+    private final TokenAuthenticator authenticator = new TokenAuthenticator(idToken -> {
+        verifications.incrementAndGet();
+        return new FirebaseTokenVerifier(TestTokens.PROJECT_ID, tokens.signingKeys(), 0, clock).verify(idToken);
+    }, 1000, MAX_TTL, clock);
+
+    @Test
+    void verifiesATokenOnceAndThenServesItFromTheCache() {
+        String token = tokens.sign(claims("user-1", NOW));
+
+        assertEquals("user-1", authenticator.authenticate(token).getUid());
+        assertEquals("user-1", authenticator.authenticate(token).getUid());
+
+        assertEquals(1, verifications.get());
+        Map<String, Object> stats = authenticator.getStats();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+    }
+
+    @Test
+    void cachesATokenNoLongerThanTheMaxTtl() {
+        String token = tokens.sign(claims("user-1", NOW));
+        authenticator.authenticate(token);
+
+        clock.advanceSeconds(MAX_TTL - 1);
+        authenticator.authenticate(token);
+        assertEquals(1, verifications.get());
+
+        clock.advanceSeconds(1);
+        authenticator.authenticate(token);
+        assertEquals(2, verifications.get(), "the token is verified again once the max TTL has passed");
+    }
+
+    @Test
+    void cachesATokenNoLongerThanItIsValid() {
+        Map<String, Object> claims = claims("user-1", NOW);
+        claims.put("exp", NOW + 10);
+        String token = tokens.sign(claims);
+        authenticator.authenticate(token);
+
+        clock.advanceSeconds(10);
+        assertThrows(IllegalArgumentException.class, () -> authenticator.authenticate(token));
+        assertEquals(2, verifications.get());
+        assertEquals(1L, authenticator.getStats().get("rejections"));
+    }
+
+    @Test
+    void rejectionsAreNotCached() {
+        Map<String, Object> claims = claims("user-1", NOW);
+        claims.put("aud", "other-project");
+        String token = tokens.sign(claims);
+
+        assertThrows(IllegalArgumentException.class, () -> authenticator.authenticate(token));
+        assertThrows(IllegalArgumentException.class, () -> authenticator.authenticate(token));
+        assertEquals(2, verifications.get());
+        assertEquals(0, authenticator.getStats().get("size"));
+    }
+
+    @Test
+    void revokingAUserRejectsTokensIssuedBefore() {
+        String revoked = tokens.sign(claims("user-1", NOW));
+        String otherUser = tokens.sign(claims("user-2", NOW));
+        authenticator.authenticate(revoked);
+        authenticator.authenticate(otherUser);
+
+        clock.advanceSeconds(1);
+        authenticator.revokeUser("user-1");
+
+        assertEquals("Token has been revoked",
+            assertThrows(IllegalArgumentException.class, () -> authenticator.authenticate(revoked)).getMessage());
+        assertEquals("user-2", authenticator.authenticate(otherUser).getUid());
+
+        // Signing in again straight after the revocation yields a token from the same second, which passes
+        String sameSecond = tokens.sign(claims("user-1", clock.epochSecond()));
+        assertEquals("user-1", authenticator.authenticate(sameSecond).getUid());
+
+        clock.advanceSeconds(2);
+        String reissued = tokens.sign(claims("user-1", clock.epochSecond()));
+        assertEquals("user-1", authenticator.authenticate(reissued).getUid());
+        assertEquals(1, authenticator.getStats().get("revokedUsers"));
+    }
+
+    @Test
+    void dropsEntriesWhenFull() {
+        TokenAuthenticator small = new TokenAuthenticator(
+            new FirebaseTokenVerifier(TestTokens.PROJECT_ID, tokens.signingKeys(), 0, clock), 10, MAX_TTL, clock);
+        for (int i = 0; i < 25; i++) {
+            small.authenticate(tokens.sign(claims("user-" + i, NOW)));
+        }
+
+        assertTrue((Integer) small.getStats().get("size") <= 10);
+        assertTrue((Long) small.getStats().get("evictions") > 0);
+    }
+}
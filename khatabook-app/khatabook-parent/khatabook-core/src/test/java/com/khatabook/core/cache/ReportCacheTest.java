@@ -0,0 +1,71 @@
+package com.khatabook.core.cache;
+
+import com.khatabook.core.cache.ReportCache.ReportType;
+import com.khatabook.core.event.DataScope;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportCacheTest {
+    private static final Long ORGANIZATION = 1L;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private Object summary(ReportCache cache) {
+        return cache.get(ORGANIZATION, ReportType.CONTACT_BALANCE_SUMMARY, null, null, null,
+            () -> List.of("summary", loads.incrementAndGet()));
+    }
+
+    @Test
+    void aChangeOnThisNodeInvalidatesDependentReports() {
+        ReportCache cache = new ReportCache(1_000);
+        summary(cache);
+        summary(cache);
+        assertEquals(1, loads.get());
+
+        cache.onDataChanged(ORGANIZATION, Set.of(DataScope.EXPENSE_CATEGORIES));
+        summary(cache);
+        assertEquals(1, loads.get(), "the balance summary does not depend on categories");
+
+        cache.onDataChanged(ORGANIZATION, Set.of(DataScope.CONTACTS));
+        summary(cache);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void aChangeOnAnotherNodeRetiresReportsThroughTheDataVersions() {
+        SharedVersions versions = new SharedVersions();
+        ReportCache thisNode = new ReportCache(1_000, versions);
+        summary(thisNode);
+        summary(thisNode);
+        assertEquals(1, loads.get());
+
+        // Committed elsewhere: this node hears nothing but the persisted version moves
+        versions.version.incrementAndGet();
+        summary(thisNode);
+        summary(thisNode);
+
+        assertEquals(2, loads.get());
+        assertEquals(1L, thisNode.getStats().get("outdated"));
+        assertEquals(1, thisNode.getStats().get("entries"));
+    }
+
+    // Stands in for the data_versions table that all nodes share
+    private static final class SharedVersions extends DataVersions {
+        private final AtomicLong version = new AtomicLong();
+
+        private SharedVersions() {
+            super(null);
+        }
+
+        @Override
+        public long getVersion(Long organizationId, Set<DataScope> scopes) {
+            return version.get();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.khatabook.core.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    @Test
+    void limitsAKeyOnceItsBurstIsUsed() {
+        RateLimiter limiter = new RateLimiter("test", 1, 3);
+
+        assertEquals(0, limiter.tryAcquire("user", 2));
+        assertEquals(0, limiter.tryAcquire("user", 1));
+        assertTrue(limiter.tryAcquire("user", 1) > 0);
+        assertEquals(0, limiter.tryAcquire("other", 3), "keys do not share a bucket");
+    }
+
+    @Test
+    void refundedTokensCanBeTakenAgain() {
+        RateLimiter limiter = new RateLimiter("test", 1, 2);
+        limiter.tryAcquire("user", 2);
+
+        limiter.refund("user", 1);
+        assertEquals(0, limiter.tryAcquire("user", 1));
+    }
+
+    @Test
+    void newKeysAreLimitedWhileTheMapIsFull() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter("test", 1, 1, 2);
+        assertEquals(0, limiter.tryAcquire("a", 1));
+        assertEquals(0, limiter.tryAcquire("b", 1));
+
+        // Neither bucket has refilled, so a sweep frees nothing
+        assertTrue(limiter.tryAcquire("c", 1) > 0);
+        assertEquals(2, limiter.getStats().get("buckets"));
+        assertEquals(1L, limiter.getStats().get("refusedAtCapacity"));
+
+        // Once they have refilled, the next sweep makes room
+        Thread.sleep(1100);
+        assertEquals(0, limiter.tryAcquire("c", 1));
+        assertEquals(1, limiter.getStats().get("buckets"));
+    }
+
+    @Test
+    void sweepsAtMostOncePerInterval() {
+        RateLimiter limiter = new RateLimiter("test", 1, 1, 1);
+        limiter.tryAcquire("a", 1);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire("new-" + i, 1);
+        }
+        assertEquals(1L, limiter.getStats().get("sweeps"));
+        assertEquals(100L, limiter.getStats().get("refusedAtCapacity"));
+    }
+}
@@ -0,0 +1,101 @@
+package com.khatabook.core.repository;
+
+import com.khatabook.core.cache.DataVersions;
+import com.khatabook.core.event.DataChangeNotifier;
+import com.khatabook.core.event.DataScope;
+import com.khatabook.core.model.DataVersion;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataVersionRepositoryTest {
+    private static final Set<DataScope> CONTACTS = EnumSet.of(DataScope.CONTACTS);
+    private static final Set<DataScope> CONTACTS_AND_TRANSACTIONS = EnumSet.of(DataScope.CONTACTS, DataScope.TRANSACTIONS);
+    private static SessionFactory sessionFactory;
+
+    @BeforeAll
+    static void openDatabase() {
+        sessionFactory = TestDatabases.open("data_versions", DataVersion.class);
+    }
+
+    @AfterAll
+    static void closeDatabase() {
+        sessionFactory.close();
+    }
+
+    @AfterEach
+    void unbindLeftoverUnit() {
+        UnitOfWork.current().ifPresent(UnitOfWork::rollback);
+    }
+
+    private static DataVersions dataVersions() {
+        return new DataVersions(new DataVersionRepository(sessionFactory));
+    }
+
+    private static DataChangeNotifier notifier(DataVersions dataVersions) {
+        DataChangeNotifier notifier = new DataChangeNotifier();
+        notifier.addTransactionalListener(dataVersions);
+        return notifier;
+    }
+
+    @Test
+    void versionsCountChangesPerScope() {
+        DataVersions dataVersions = dataVersions();
+        assertEquals(0, dataVersions.getVersion(1L, CONTACTS_AND_TRANSACTIONS));
+
+        DataChangeNotifier notifier = notifier(dataVersions);
+        notifier.notifyChanged(1L, DataScope.CONTACTS);
+        notifier.notifyChanged(1L, DataScope.TRANSACTIONS, DataScope.CONTACTS);
+        notifier.notifyChanged(1L, DataScope.ORGANIZATION);
+
+        assertEquals(2, dataVersions.getVersion(1L, CONTACTS));
+        assertEquals(3, dataVersions.getVersion(1L, CONTACTS_AND_TRANSACTIONS));
+        assertEquals(0, dataVersions.getVersion(2L, CONTACTS), "other organizations are unaffected");
+    }
+
+    @Test
+    void nodesSharingTheDatabaseAgreeOnTags() {
+        DataVersions node = dataVersions();
+        DataVersions otherNode = dataVersions();
+        String before = otherNode.getTag(3L, CONTACTS);
+
+        notifier(node).notifyChanged(3L, DataScope.CONTACTS);
+
+        assertNotEquals(before, otherNode.getTag(3L, CONTACTS), "a change on one node must change the tag on all");
+        assertEquals(node.getTag(3L, CONTACTS), otherNode.getTag(3L, CONTACTS));
+    }
+
+    @Test
+    void anIncrementCommitsAndRollsBackWithItsUnit() {
+        DataVersions dataVersions = dataVersions();
+        DataChangeNotifier notifier = notifier(dataVersions);
+
+        UnitOfWork discarded = UnitOfWork.begin(sessionFactory);
+        notifier.notifyChanged(4L, DataScope.CONTACTS);
+        discarded.rollback();
+        assertEquals(0, dataVersions.getVersion(4L, CONTACTS));
+
+        UnitOfWork committed = UnitOfWork.begin(sessionFactory);
+        notifier.notifyChanged(4L, DataScope.CONTACTS);
+        committed.commit();
+        assertEquals(1, dataVersions.getVersion(4L, CONTACTS));
+    }
+
+    @Test
+    void aChangeCommittedElsewhereIsCountedDespiteARollback() {
+        DataVersions dataVersions = dataVersions();
+
+        UnitOfWork unitOfWork = UnitOfWork.begin(sessionFactory);
+        notifier(dataVersions).notifyCommitted(5L, DataScope.CONTACTS);
+        unitOfWork.rollback();
+
+        assertEquals(1, dataVersions.getVersion(5L, CONTACTS));
+    }
+}
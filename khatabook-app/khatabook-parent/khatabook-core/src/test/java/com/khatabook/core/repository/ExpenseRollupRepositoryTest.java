@@ -0,0 +1,123 @@
+package com.khatabook.core.repository;
+
+import com.khatabook.core.model.*;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Deleting a contact, category or organization takes its expenses with it, so the rollups must follow
+class ExpenseRollupRepositoryTest {
+    private static SessionFactory sessionFactory;
+    private static OrganizationRepository organizationRepository;
+    private static ContactRepository contactRepository;
+    private static ExpenseCategoryRepository categoryRepository;
+    private static TransactionRepository transactionRepository;
+
+    private Organization organization;
+    private ExpenseCategory rent;
+    private ExpenseCategory travel;
+    private Contact landlord;
+    private Contact driver;
+
+    @BeforeAll
+    static void openDatabase() {
+        // Expenses only: give/take columns are not null in the single transactions table
+        sessionFactory = TestDatabases.open("expense_rollups", Organization.class, Contact.class,
+            ExpenseCategory.class, Transaction.class, ExpenseTransaction.class,
+            DailyExpenseRollup.class);
+        ExpenseRollupRepository rollupRepository = new ExpenseRollupRepository(sessionFactory);
+        organizationRepository = new OrganizationRepository(sessionFactory, rollupRepository);
+        contactRepository = new ContactRepository(sessionFactory, rollupRepository);
+        categoryRepository = new ExpenseCategoryRepository(sessionFactory, rollupRepository);
+        transactionRepository = new TransactionRepository(sessionFactory, rollupRepository, contactRepository);
+    }
+
+    @AfterAll
+    static void closeDatabase() {
+        sessionFactory.close();
+    }
+
+    @BeforeEach
+    void createOrganization() {
+        organization = new Organization();
+        organization.setOrgName("Sharma Traders");
+        organization.setCurrency("INR");
+        organization.setCountry("IN");
+        organization = organizationRepository.save(organization);
+        rent = category("Rent");
+        travel = category("Travel");
+        landlord = contact("Landlord", "9000000001");
+        driver = contact("Driver", "9000000002");
+
+        expense(landlord, rent, "1000.00");
+        expense(landlord, rent, "500.00");
+        expense(landlord, travel, "40.00");
+        expense(driver, travel, "60.00");
+    }
+
+    private ExpenseCategory category(String name) {
+        ExpenseCategory category = new ExpenseCategory(name, false);
+        category.setOrganization(organization);
+        return categoryRepository.save(category);
+    }
+
+    private Contact contact(String name, String mobileNumber) {
+        Contact contact = new Contact(name, mobileNumber);
+        contact.setOrganization(organization);
+        return contactRepository.save(contact);
+    }
+
+    private void expense(Contact contact, ExpenseCategory category, String amount) {
+        ExpenseTransaction expense = new ExpenseTransaction(new BigDecimal(amount), category);
+        expense.setContact(contact);
+        expense.setDate(LocalDateTime.of(2024, 4, 1, 10, 0));
+        transactionRepository.saveExpense(expense);
+    }
+
+    // Total and count of a category's rollups, as "amount/count"
+    private static String rollup(ExpenseCategory category) {
+        try (Session session = sessionFactory.openSession()) {
+            Object[] row = (Object[]) session.createNativeQuery(
+                    "SELECT COALESCE(SUM(total_amount), 0), COALESCE(SUM(expense_count), 0) " +
+                    "FROM daily_expense_rollups WHERE category_id = :categoryId")
+                .setParameter("categoryId", category.getId())
+                .uniqueResult();
+            return new BigDecimal(row[0].toString()).setScale(2) + "/" + row[1];
+        }
+    }
+
+    @Test
+    void deletingAContactTakesItsExpensesOutOfTheRollups() {
+        assertEquals("1500.00/2", rollup(rent));
+        assertEquals("100.00/2", rollup(travel));
+
+        contactRepository.deleteById(landlord.getId());
+
+        assertEquals("0.00/0", rollup(rent));
+        assertEquals("60.00/1", rollup(travel), "the other contact's expenses stay");
+    }
+
+    @Test
+    void deletingACategoryRemovesItsRollups() {
+        categoryRepository.deleteById(rent.getId());
+
+        assertEquals("0.00/0", rollup(rent));
+        assertEquals("100.00/2", rollup(travel));
+    }
+
+    @Test
+    void deletingAnOrganizationRemovesItsRollups() {
+        organizationRepository.deleteById(organization.getId());
+
+        assertEquals("0.00/0", rollup(rent));
+        assertEquals("0.00/0", rollup(travel));
+    }
+}
@@ -0,0 +1,110 @@
+package com.khatabook.core.repository;
+
+import com.khatabook.core.event.DataScope;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Two embedded databases stand in for a primary and a replica that never receives the primary's writes
+class ReadRouterTest {
+    private static final long ORGANIZATION = 1L;
+    private static SessionFactory primary;
+    private static SessionFactory replica;
+
+    @BeforeAll
+    static void openDatabases() {
+        primary = TestDatabases.open("router_primary", TestNote.class);
+        replica = TestDatabases.open("router_replica", TestNote.class);
+        try (Session session = primary.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            session.save(new TestNote("only on the primary"));
+            transaction.commit();
+        }
+    }
+
+    @AfterAll
+    static void closeDatabases() {
+        primary.close();
+        replica.close();
+    }
+
+    @AfterEach
+    void unbindLeftoverUnit() {
+        UnitOfWork.current().ifPresent(UnitOfWork::rollback);
+    }
+
+    private static long countNotes(Session session) {
+        try (session) {
+            return session.createQuery("select count(n) from TestNote n", Long.class).uniqueResult();
+        }
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWithoutAReplica() {
+        ReadRouter router = ReadRouter.primaryOnly(primary);
+
+        assertFalse(router.hasReplica());
+        assertSame(primary, router.forRead(ORGANIZATION));
+        assertSame(primary, router.forRead(null));
+        assertEquals(1, countNotes(router.openReadSession(ORGANIZATION)));
+        assertEquals(3L, router.getStats().get("primaryReads"));
+    }
+
+    @Test
+    void readsGoToTheReplicaUntilTheOrganizationWrites() {
+        ReadRouter router = new ReadRouter(primary, replica, Duration.ofMinutes(1));
+
+        assertSame(replica, router.forRead(ORGANIZATION));
+        assertEquals(0, countNotes(router.openReadSession(ORGANIZATION)), "the replica has not seen the write");
+
+        router.onDataChanged(ORGANIZATION, Set.of(DataScope.TRANSACTIONS));
+        assertSame(primary, router.forRead(ORGANIZATION));
+        assertEquals(1, countNotes(router.openReadSession(ORGANIZATION)), "a pinned organization reads its own write");
+
+        // Only the organization that wrote is pinned
+        assertSame(replica, router.forRead(2L));
+        assertSame(replica, router.forRead(null));
+
+        Map<String, Object> stats = router.getStats();
+        assertEquals(1, stats.get("pinnedOrganizations"));
+        assertEquals(2L, stats.get("pinnedReads"));
+        assertEquals(4L, stats.get("replicaReads"));
+    }
+
+    @Test
+    void aPinExpiresAfterTheWindow() throws InterruptedException {
+        ReadRouter router = new ReadRouter(primary, replica, Duration.ofMillis(50));
+
+        router.pin(ORGANIZATION);
+        assertSame(primary, router.forRead(ORGANIZATION));
+
+        Thread.sleep(100);
+        assertSame(replica, router.forRead(ORGANIZATION));
+        assertEquals(0, router.getStats().get("pinnedOrganizations"), "an expired pin is removed when read");
+    }
+
+    @Test
+    void primaryReadsJoinTheThreadsUnitOfWork() {
+        ReadRouter router = new ReadRouter(primary, replica, Duration.ofMinutes(1));
+        router.pin(ORGANIZATION);
+        UnitOfWork unitOfWork = UnitOfWork.begin(primary);
+
+        Session pinned = router.openReadSession(ORGANIZATION);
+        assertSame(UnitOfWork.openSession(primary), pinned);
+        Session fromReplica = router.openReadSession(2L);
+        assertNotSame(pinned, fromReplica, "replica reads use their own session");
+        fromReplica.close();
+
+        unitOfWork.commit();
+    }
+}
@@ -0,0 +1,33 @@
+package com.khatabook.core.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+
+/**
+ * Embedded H2 databases for repository tests, each with its schema created from the given entities
+ * and dropped when the factory closes.
+ */
+final class TestDatabases {
+    private TestDatabases() {}
+
+    static SessionFactory open(String name, Class<?>... entities) {
+        Configuration configuration = new Configuration();
+        configuration.setProperty(Environment.DRIVER, "org.h2.Driver");
+        configuration.setProperty(Environment.URL, "jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        configuration.setProperty(Environment.USER, "sa");
+        configuration.setProperty(Environment.PASS, "");
+        configuration.setProperty(Environment.DIALECT, "org.hibernate.dialect.H2Dialect");
+        configuration.setProperty(Environment.HBM2DDL_AUTO, "create-drop");
+        for (Class<?> entity : entities) {
+            configuration.addAnnotatedClass(entity);
+        }
+        return configuration.buildSessionFactory();
+    }
+
+    static long countNotes(SessionFactory sessionFactory) {
+        try (var session = sessionFactory.openSession()) {
+            return session.createQuery("select count(n) from TestNote n", Long.class).uniqueResult();
+        }
+    }
+}
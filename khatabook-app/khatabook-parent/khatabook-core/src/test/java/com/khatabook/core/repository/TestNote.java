@@ -0,0 +1,29 @@
+package com.khatabook.core.repository;
+
+import javax.persistence.*;
+
+// Minimal entity for tests that only need rows to write and count
+@Entity
+@Table(name = "test_notes")
+public class TestNote {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String text;
+
+    public TestNote() {}
+
+    public TestNote(String text) {
+        this.text = text;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
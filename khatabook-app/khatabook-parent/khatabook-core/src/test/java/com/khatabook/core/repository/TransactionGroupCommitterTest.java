@@ -0,0 +1,251 @@
+package com.khatabook.core.repository;
+
+import com.khatabook.core.model.ExpenseTransaction;
+import com.khatabook.core.model.GiveTakeTransaction;
+import com.khatabook.core.model.Transaction;
+import com.khatabook.core.model.TransactionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionGroupCommitterTest {
+    private TransactionGroupCommitter committer;
+
+    @AfterEach
+    void stopCommitter() {
+        if (committer != null) {
+            committer.shutdown();
+        }
+    }
+
+    private static GiveTakeTransaction giveTake(String notes) {
+        GiveTakeTransaction transaction = new GiveTakeTransaction(BigDecimal.TEN, TransactionType.GIVE);
+        transaction.setNotes(notes);
+        return transaction;
+    }
+
+    private static ExpenseTransaction expense(String notes) {
+        ExpenseTransaction transaction = new ExpenseTransaction(BigDecimal.ONE, null);
+        transaction.setNotes(notes);
+        return transaction;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void writesSubmittedTogetherShareOneCommit() throws Exception {
+        RecordingRepository repository = new RecordingRepository();
+        committer = new TransactionGroupCommitter(repository, 3, 5_000, 16);
+
+        List<CompletableFuture<Transaction>> futures = List.of(
+            committer.submit(giveTake("a")), committer.submit(expense("b")), committer.submit(giveTake("c")));
+        for (CompletableFuture<Transaction> future : futures) {
+            assertNotNull(await(future));
+        }
+
+        assertEquals(List.of(List.of("a", "b", "c")), repository.groups);
+        assertTrue(repository.individualWrites.isEmpty());
+    }
+
+    @Test
+    void aRejectedWriteFailsAloneWithinItsGroup() throws Exception {
+        RecordingRepository repository = new RecordingRepository();
+        repository.rejectInGroup = "overdrawn";
+        committer = new TransactionGroupCommitter(repository, 3, 5_000, 16);
+
+        CompletableFuture<GiveTakeTransaction> first = committer.submit(giveTake("first"));
+        CompletableFuture<GiveTakeTransaction> rejected = committer.submit(giveTake("overdrawn"));
+        CompletableFuture<GiveTakeTransaction> last = committer.submit(giveTake("last"));
+
+        assertEquals("first", await(first).getNotes());
+        assertEquals("last", await(last).getNotes());
+        Exception failure = assertThrows(Exception.class, () -> await(rejected));
+        assertInstanceOf(IllegalArgumentException.class, failure.getCause());
+        assertEquals(1, repository.groups.size());
+        assertTrue(repository.individualWrites.isEmpty(), "a per-item rejection must not trigger retries");
+    }
+
+    @Test
+    void aFailedGroupIsRetriedOneWriteAtATime() throws Exception {
+        RecordingRepository repository = new RecordingRepository();
+        repository.failGroups = true;
+        repository.rejectIndividually = "bad";
+        committer = new TransactionGroupCommitter(repository, 3, 5_000, 16);
+
+        CompletableFuture<GiveTakeTransaction> good = committer.submit(giveTake("good"));
+        CompletableFuture<GiveTakeTransaction> bad = committer.submit(giveTake("bad"));
+        CompletableFuture<ExpenseTransaction> expense = committer.submit(expense("expense"));
+
+        assertEquals("good", await(good).getNotes());
+        assertEquals("expense", await(expense).getNotes());
+        Exception failure = assertThrows(Exception.class, () -> await(bad));
+        assertInstanceOf(IllegalArgumentException.class, failure.getCause());
+        assertEquals(List.of("giveTake:good", "giveTake:bad", "expense:expense"), repository.individualWrites);
+    }
+
+    @Test
+    void writeRethrowsTheWritesOwnFailure() {
+        RecordingRepository repository = new RecordingRepository();
+        repository.rejectInGroup = "overdrawn";
+        committer = new TransactionGroupCommitter(repository, 1, 0, 16);
+
+        IllegalArgumentException failure = assertThrows(IllegalArgumentException.class,
+            () -> committer.write(giveTake("overdrawn")));
+        assertEquals("Balance cannot be negative", failure.getMessage());
+    }
+
+    @Test
+    void writesAfterShutdownCommitOnTheCallersThread() throws Exception {
+        RecordingRepository repository = new RecordingRepository();
+        committer = new TransactionGroupCommitter(repository, 3, 5_000, 16);
+        committer.shutdown();
+
+        assertEquals("late", committer.write(giveTake("late")).getNotes());
+        assertEquals(List.of("giveTake:late"), repository.individualWrites);
+        assertTrue(repository.groups.isEmpty());
+    }
+
+    @Test
+    void writesSubmittedDuringShutdownAllComplete() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            RecordingRepository repository = new RecordingRepository();
+            TransactionGroupCommitter racing = new TransactionGroupCommitter(repository, 8, 1, 16);
+            List<CompletableFuture<GiveTakeTransaction>> futures = new CopyOnWriteArrayList<>();
+            CountDownLatch started = new CountDownLatch(4);
+            List<Thread> submitters = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread submitter = new Thread(() -> {
+                    started.countDown();
+                    for (int i = 0; i < 200; i++) {
+                        futures.add(racing.submit(giveTake("write")));
+                    }
+                });
+                submitter.start();
+                submitters.add(submitter);
+            }
+            started.await();
+            racing.shutdown();
+            for (Thread submitter : submitters) {
+                submitter.join();
+            }
+
+            for (CompletableFuture<GiveTakeTransaction> future : futures) {
+                assertNotNull(await(future), "no write may be left in a queue nobody drains");
+            }
+            assertEquals(800, futures.size());
+        }
+    }
+
+    @Test
+    void writesAfterTheWriterIsInterruptedCommitOnTheCallersThread() throws Exception {
+        RecordingRepository repository = new RecordingRepository();
+        committer = new TransactionGroupCommitter(repository, 3, 5_000, 16);
+        Thread writer = Thread.getAllStackTraces().keySet().stream()
+            .filter(thread -> thread.getName().equals("transaction-group-commit") && thread.isAlive())
+            .findFirst()
+            .orElseThrow();
+        writer.interrupt();
+        writer.join(5_000);
+
+        assertEquals("late", await(committer.submit(giveTake("late"))).getNotes());
+        assertEquals(List.of("giveTake:late"), repository.individualWrites);
+    }
+
+    @Test
+    void aUnitThatRefusesTheClaimKeepsTheWriteOut() {
+        RecordingRepository repository = new RecordingRepository();
+        committer = new TransactionGroupCommitter(repository, 1, 0, 16);
+        UnitOfWork unitOfWork = UnitOfWork.begin(null);
+        unitOfWork.onCommitClaim(() -> false);
+        try {
+            assertThrows(IllegalStateException.class, () -> committer.write(giveTake("too late")));
+        } finally {
+            unitOfWork.rollback();
+        }
+
+        assertTrue(repository.groups.isEmpty());
+        assertTrue(repository.individualWrites.isEmpty());
+    }
+
+    @Test
+    void aWriteOnTheCallersThreadCommitsOutsideItsUnit() {
+        RecordingRepository repository = new RecordingRepository();
+        committer = new TransactionGroupCommitter(repository, 3, 5_000, 16);
+        committer.shutdown();
+        UnitOfWork unitOfWork = UnitOfWork.begin(null);
+        try {
+            committer.write(giveTake("late"));
+            assertSame(unitOfWork, UnitOfWork.current().orElseThrow(), "the caller's unit is bound again");
+        } finally {
+            unitOfWork.rollback();
+        }
+
+        assertEquals(List.of("giveTake:late"), repository.individualWrites);
+        assertFalse(repository.writtenInsideAUnit);
+    }
+
+    @Test
+    void rejectsAnEmptyBatchSize() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new TransactionGroupCommitter(new RecordingRepository(), 0, 1, 16));
+    }
+
+    // Records group and individual writes instead of touching a database
+    private static final class RecordingRepository extends TransactionRepository {
+        private final List<List<String>> groups = new CopyOnWriteArrayList<>();
+        private final List<String> individualWrites = new CopyOnWriteArrayList<>();
+        private volatile boolean failGroups;
+        private volatile String rejectInGroup;
+        private volatile String rejectIndividually;
+        private volatile boolean writtenInsideAUnit;
+
+        private RecordingRepository() {
+            super(null, null, null, null);
+        }
+
+        @Override
+        public List<RuntimeException> saveGroup(List<Transaction> transactions) {
+            if (failGroups) {
+                throw new RuntimeException("Error saving group of transactions");
+            }
+            List<String> notes = new ArrayList<>();
+            List<RuntimeException> outcomes = new ArrayList<>();
+            for (Transaction transaction : transactions) {
+                notes.add(transaction.getNotes());
+                outcomes.add(transaction.getNotes().equals(rejectInGroup)
+                    ? new IllegalArgumentException("Balance cannot be negative")
+                    : null);
+            }
+            groups.add(Collections.unmodifiableList(notes));
+            return outcomes;
+        }
+
+        @Override
+        public GiveTakeTransaction saveGiveTake(GiveTakeTransaction giveTake) {
+            individualWrites.add("giveTake:" + giveTake.getNotes());
+            writtenInsideAUnit |= UnitOfWork.current().isPresent();
+            if (giveTake.getNotes().equals(rejectIndividually)) {
+                throw new IllegalArgumentException("Balance cannot be negative");
+            }
+            return giveTake;
+        }
+
+        @Override
+        public ExpenseTransaction saveExpense(ExpenseTransaction expense) {
+            individualWrites.add("expense:" + expense.getNotes());
+            return expense;
+        }
+    }
+}
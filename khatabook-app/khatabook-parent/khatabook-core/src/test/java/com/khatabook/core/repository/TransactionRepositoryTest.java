@@ -0,0 +1,86 @@
+package com.khatabook.core.repository;
+
+import com.khatabook.core.model.*;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionRepositoryTest {
+    private static SessionFactory sessionFactory;
+    private static OrganizationRepository organizationRepository;
+    private static ContactRepository contactRepository;
+    private static ExpenseCategoryRepository categoryRepository;
+    private static TransactionRepository transactionRepository;
+
+    @BeforeAll
+    static void openDatabase() {
+        // Expenses only: give/take columns are not null in the single transactions table
+        sessionFactory = TestDatabases.open("transactions", Organization.class, Contact.class,
+            ExpenseCategory.class, Transaction.class, ExpenseTransaction.class, DailyExpenseRollup.class);
+        organizationRepository = new OrganizationRepository(sessionFactory);
+        contactRepository = new ContactRepository(sessionFactory);
+        categoryRepository = new ExpenseCategoryRepository(sessionFactory);
+        transactionRepository = new TransactionRepository(sessionFactory);
+    }
+
+    @AfterAll
+    static void closeDatabase() {
+        sessionFactory.close();
+    }
+
+    @AfterEach
+    void unbindLeftoverUnit() {
+        UnitOfWork.current().ifPresent(UnitOfWork::rollback);
+    }
+
+    @Test
+    void aBulkSaveInsideAUnitKeepsWhatTheRequestLoaded() {
+        Organization organization = new Organization();
+        organization.setOrgName("Sharma Traders");
+        organization.setCurrency("INR");
+        organization.setCountry("IN");
+        organization = organizationRepository.save(organization);
+        ExpenseCategory category = new ExpenseCategory("Rent", false);
+        category.setOrganization(organization);
+        category = categoryRepository.save(category);
+        Contact contact = new Contact("Landlord", "9000000001");
+        contact.setOrganization(organization);
+        contact = contactRepository.save(contact);
+
+        UnitOfWork unitOfWork = UnitOfWork.begin(sessionFactory);
+        Session session = UnitOfWork.openSession(sessionFactory);
+        Organization loaded = organizationRepository.findById(organization.getId()).orElseThrow();
+        Contact loadedContact = contactRepository.findById(contact.getId()).orElseThrow();
+        ExpenseCategory loadedCategory = categoryRepository.findById(category.getId()).orElseThrow();
+
+        // More than one flush interval, so the batch is flushed and evicted part way
+        List<Transaction> expenses = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            ExpenseTransaction expense = new ExpenseTransaction(BigDecimal.ONE, loadedCategory);
+            expense.setContact(loadedContact);
+            expense.setDate(LocalDateTime.of(2024, 4, 1, 10, 0));
+            expenses.add(expense);
+        }
+        assertTrue(transactionRepository.saveAll(expenses).isEmpty());
+
+        assertTrue(session.contains(loaded), "the request's organization must stay managed");
+        assertTrue(session.contains(loadedContact));
+        assertTrue(session.contains(loadedCategory));
+        assertFalse(session.contains(expenses.get(0)), "flushed transactions are evicted");
+        unitOfWork.commit();
+
+        try (Session check = sessionFactory.openSession()) {
+            assertEquals(120L, check.createQuery("select count(t) from Transaction t", Long.class).uniqueResult());
+        }
+    }
+}
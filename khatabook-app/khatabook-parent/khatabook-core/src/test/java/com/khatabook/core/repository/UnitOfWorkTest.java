@@ -0,0 +1,215 @@
+package com.khatabook.core.repository;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UnitOfWorkTest {
+    private static SessionFactory sessionFactory;
+
+    @BeforeAll
+    static void openDatabase() {
+        sessionFactory = TestDatabases.open("unit_of_work", TestNote.class);
+    }
+
+    @AfterAll
+    static void closeDatabase() {
+        sessionFactory.close();
+    }
+
+    @BeforeEach
+    void clearNotes() {
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            session.createQuery("delete from TestNote").executeUpdate();
+            transaction.commit();
+        }
+    }
+
+    @AfterEach
+    void unbindLeftoverUnit() {
+        UnitOfWork.current().ifPresent(UnitOfWork::rollback);
+    }
+
+    // Writes a note the way repositories do: open, begin, save, commit, close
+    private static void saveNote(String text) {
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
+            Transaction transaction = session.beginTransaction();
+            session.save(new TestNote(text));
+            transaction.commit();
+        }
+    }
+
+    @Test
+    void repositoriesShareOneSessionInsideAUnit() {
+        UnitOfWork unitOfWork = UnitOfWork.begin(sessionFactory);
+
+        Session first = UnitOfWork.openSession(sessionFactory);
+        first.close();
+        Session second = UnitOfWork.openSession(sessionFactory);
+
+        assertSame(first, second);
+        assertTrue(second.isOpen(), "close() on the shared session must not close it");
+        unitOfWork.commit();
+    }
+
+    @Test
+    void aUnitOpensItsSessionOnlyWhenFirstUsed() {
+        List<String> events = new ArrayList<>();
+        UnitOfWork unused = UnitOfWork.begin(sessionFactory);
+        UnitOfWork.afterCommit(() -> events.add("committed"));
+        assertFalse(unused.isStarted());
+        unused.commit();
+        assertEquals(List.of("committed"), events, "a unit that never touched the database still commits");
+
+        UnitOfWork used = UnitOfWork.begin(sessionFactory);
+        Session session = UnitOfWork.openSession(sessionFactory);
+        session.beginTransaction();
+        assertFalse(used.isStarted(), "handing out the shared session and transaction must not open it");
+        session.save(new TestNote("first use"));
+        assertTrue(used.isStarted());
+        used.rollback();
+    }
+
+    @Test
+    void joinedCommitOnlyFlushesUntilTheUnitCommits() {
+        UnitOfWork unitOfWork = UnitOfWork.begin(sessionFactory);
+        saveNote("first");
+        saveNote("second");
+
+        assertEquals(0, TestDatabases.countNotes(sessionFactory), "joined commits must not be visible yet");
+
+        unitOfWork.commit();
+        assertEquals(2, TestDatabases.countNotes(sessionFactory));
+        assertFalse(UnitOfWork.current().isPresent());
+    }
+
+    @Test
+    void joinedRollbackDiscardsTheWholeUnit() {
+        UnitOfWork unitOfWork = UnitOfWork.begin(sessionFactory);
+        saveNote("kept by its own commit");
+        try (Session session = UnitOfWork.openSession(sessionFactory)) {
+            Transaction transaction = session.beginTransaction();
+            session.save(new TestNote("rolled back"));
+            transaction.rollback();
+            assertTrue(transaction.getRollbackOnly());
+        }
+
+        assertTrue(unitOfWork.isRollbackOnly());
+        unitOfWork.commit();
+        assertEquals(0, TestDatabases.countNotes(sessionFactory), "commit of a rollback-only unit must roll back");
+    }
+
+    @Test
+    void withoutAUnitRepositoriesCommitOnTheirOwn() {
+        saveNote("standalone");
+
+        assertEquals(1, TestDatabases.countNotes(sessionFactory));
+    }
+
+    @Test
+    void afterCommitActionsRunInOrderOnceCommitted() {
+        List<String> events = new ArrayList<>();
+        UnitOfWork unitOfWork = UnitOfWork.begin(sessionFactory);
+        saveNote("note");
+        UnitOfWork.afterCommit(() -> events.add("first:" + TestDatabases.countNotes(sessionFactory)));
+        UnitOfWork.afterCommit(() -> {
+            events.add("second:" + UnitOfWork.current().isPresent());
+            throw new IllegalStateException("a failing action must not stop the others");
+        });
+        UnitOfWork.afterCommit(() -> events.add("third"));
+
+        assertTrue(events.isEmpty());
+        unitOfWork.commit();
+        assertEquals(List.of("first:1", "second:false", "third"), events);
+    }
+
+    @Test
+    void afterCommitActionsAreDroppedOnRollback() {
+        List<String> events = new ArrayList<>();
+        UnitOfWork unitOfWork = UnitOfWork.begin(sessionFactory);
+        UnitOfWork.afterCommit(() -> events.add("committed"));
+
+        unitOfWork.rollback();
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void afterCommitRunsImmediatelyWithoutAUnit() {
+        List<String> events = new ArrayList<>();
+        UnitOfWork.afterCommit(() -> events.add("ran"));
+
+        assertEquals(List.of("ran"), events);
+    }
+
+    @Test
+    void aSecondUnitCannotBeginOnTheSameThread() {
+        UnitOfWork.begin(sessionFactory);
+
+        assertThrows(IllegalStateException.class, () -> UnitOfWork.begin(sessionFactory));
+    }
+
+    @Test
+    void rollingBackAStaleUnitFreesTheThread() {
+        UnitOfWork stale = UnitOfWork.begin(sessionFactory);
+        saveNote("never committed");
+
+        UnitOfWork.current().ifPresent(UnitOfWork::rollback);
+        assertFalse(UnitOfWork.current().isPresent());
+
+        UnitOfWork next = UnitOfWork.begin(sessionFactory);
+        assertNotSame(stale, next);
+        saveNote("committed");
+        next.commit();
+        assertEquals(1, TestDatabases.countNotes(sessionFactory));
+    }
+
+    @Test
+    void writesCommittedOutsideTheUnitMustBeClaimed() {
+        UnitOfWork.claimCommit();
+
+        UnitOfWork unitOfWork = UnitOfWork.begin(sessionFactory);
+        UnitOfWork.claimCommit();
+        unitOfWork.onCommitClaim(() -> false);
+        assertThrows(IllegalStateException.class, UnitOfWork::claimCommit);
+        unitOfWork.rollback();
+    }
+
+    @Test
+    void workRunOutsideTheUnitCommitsOnItsOwn() {
+        UnitOfWork unitOfWork = UnitOfWork.begin(sessionFactory);
+        UnitOfWork.runOutside(() -> saveNote("outside"));
+        saveNote("inside");
+        assertSame(unitOfWork, UnitOfWork.current().orElseThrow());
+
+        unitOfWork.rollback();
+        assertEquals(1, TestDatabases.countNotes(sessionFactory), "only the unit's own write is rolled back");
+    }
+
+    @Test
+    void aDetachedUnitIsEndedByTheThreadThatAttachesIt() throws Exception {
+        UnitOfWork unitOfWork = UnitOfWork.begin(sessionFactory).detach();
+        assertFalse(UnitOfWork.current().isPresent());
+        assertTrue(unitOfWork.isDetached());
+
+        Thread worker = new Thread(() -> {
+            unitOfWork.attach();
+            saveNote("from worker");
+            unitOfWork.commit();
+        });
+        worker.start();
+        worker.join();
+
+        assertEquals(1, TestDatabases.countNotes(sessionFactory));
+    }
+}
@@ -0,0 +1,103 @@
+package com.khatabook.core.tools;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Prints the size and encoding time of a synthetic contact statement as JSON and as Smile, each with
+ * and without gzip, to compare the response encodings the API negotiates.
+ *
+ * Usage: PayloadBenchmark [rows] [iterations]
+ * Defaults to 1000 rows and 2000 iterations, after as many warm-up rounds. Times are per encoding of
+ * the whole statement, on this JVM only: no network, servlet container or database is involved.
+ */
+public class PayloadBenchmark {
+    private static final String[] NOTES = { "Cash", "UPI payment", "Goods on credit", "Cheque 004512", "" };
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        Map<String, Object> statement = buildStatement(rows);
+        ObjectMapper jsonMapper = new ObjectMapper();
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
+        System.out.printf("%d rows, %d iterations%n", rows, iterations);
+        System.out.printf("%-12s %10s %12s%n", "encoding", "bytes", "us/op");
+        report("json", jsonMapper, false, statement, iterations);
+        report("smile", smileMapper, false, statement, iterations);
+        report("json+gzip", jsonMapper, true, statement, iterations);
+        report("smile+gzip", smileMapper, true, statement, iterations);
+    }
+
+    private static void report(String name, ObjectMapper mapper, boolean gzip, Map<String, Object> statement,
+            int iterations) throws IOException {
+        int size = 0;
+        for (int i = 0; i < iterations; i++) {
+            size = encode(mapper, gzip, statement);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            size = encode(mapper, gzip, statement);
+        }
+        double micros = (System.nanoTime() - start) / 1000.0 / iterations;
+        System.out.printf("%-12s %10d %12.1f%n", name, size, micros);
+    }
+
+    private static int encode(ObjectMapper mapper, boolean gzip, Map<String, Object> statement) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+        if (gzip) {
+            try (GZIPOutputStream output = new GZIPOutputStream(bytes, 8192)) {
+                mapper.writeValue(output, statement);
+            }
+        } else {
+            mapper.writeValue(bytes, statement);
+        }
+        return bytes.size();
+    }
+
+    // Same shape as ReportService's contact statement, with a fixed seed so runs compare
+    private static Map<String, Object> buildStatement(int rows) {
+        Random random = new Random(42);
+        LocalDateTime date = LocalDateTime.of(2024, 4, 1, 9, 0);
+        List<Map<String, Object>> transactions = new ArrayList<>(rows);
+        BigDecimal receivable = BigDecimal.ZERO;
+        BigDecimal payable = BigDecimal.ZERO;
+        for (int i = 0; i < rows; i++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextInt(5_000_000), 2);
+            boolean credit = random.nextBoolean();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("date", date.plusMinutes(i * 97L).toString());
+            row.put("amount", amount);
+            row.put("notes", NOTES[random.nextInt(NOTES.length)]);
+            row.put("type", credit ? "CREDIT" : "DEBIT");
+            transactions.add(row);
+            if (credit) {
+                receivable = receivable.add(amount);
+            } else {
+                payable = payable.add(amount);
+            }
+        }
+
+        Map<String, Object> statement = new LinkedHashMap<>();
+        statement.put("contactName", "Sharma Traders");
+        statement.put("startDate", date.toString());
+        statement.put("endDate", date.plusMinutes(rows * 97L).toString());
+        statement.put("transactions", transactions);
+        statement.put("totalReceivable", receivable);
+        statement.put("totalPayable", payable);
+        statement.put("netBalance", receivable.subtract(payable));
+        return statement;
+    }
+}
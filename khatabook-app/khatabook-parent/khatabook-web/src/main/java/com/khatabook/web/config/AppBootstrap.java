@@ -0,0 +1,340 @@
+package com.khatabook.web.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.khatabook.core.auth.ApiKeyAuthenticator;
+import com.khatabook.core.auth.ApiKeySecrets;
+import com.khatabook.core.auth.TokenAuthenticator;
+import com.khatabook.core.cache.DataVersions;
+import com.khatabook.core.cache.ReportCache;
+import com.khatabook.core.concurrent.BoundedExecutors;
+import com.khatabook.core.concurrent.Bulkheads;
+import com.khatabook.core.concurrent.ChunkedExecutor;
+import com.khatabook.core.concurrent.RequestRateLimiter;
+import com.khatabook.core.config.AppSettings;
+import com.khatabook.core.config.DatabaseConfig;
+import com.khatabook.core.config.FirebaseConfig;
+import com.khatabook.core.config.PersistenceSettings;
+import com.khatabook.core.dto.TransactionFilter;
+import com.khatabook.core.event.DataChangeNotifier;
+import com.khatabook.core.job.ReportJobService;
+import com.khatabook.core.model.Organization;
+import com.khatabook.core.repository.*;
+import com.khatabook.core.service.*;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Builds the application once, when the servlet container deploys it, instead of on the first request.
+ *
+ * The persistence settings are resolved first. The primary SessionFactory, the replica's and token
+ * verification (Firebase and its signing keys) do not depend on one another and are initialized in
+ * parallel. The services are then wired from the results. An optional warm-up pass runs the hot
+ * queries and serializers in the background, and the application only reports ready once it has
+ * finished. Each phase's duration is logged and shown on /health/ready.
+ */
+public class AppBootstrap {
+    private static final Logger logger = LoggerFactory.getLogger(AppBootstrap.class);
+
+    private final Map<String, Long> phaseMillis = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile boolean ready;
+
+    private volatile TokenAuthenticator tokenAuthenticator;
+    private SessionFactory sessionFactory;
+    private DataChangeNotifier dataChangeNotifier;
+    private ReadRouter readRouter;
+    private ReportCache reportCache;
+    private DataVersions dataVersions;
+    private ChunkedExecutor reportExecutor;
+    private ReportJobService reportJobService;
+    private TransactionGroupCommitter groupCommitter;
+    private OrganizationService organizationService;
+    private ContactService contactService;
+    private ExpenseCategoryService expenseCategoryService;
+    private TransactionService transactionService;
+    private ReportService reportService;
+    private ApiKeyAuthenticator apiKeyAuthenticator;
+    private ApiKeyService apiKeyService;
+    private RequestRateLimiter requestRateLimiter;
+    private Bulkheads bulkheads;
+
+    private AppBootstrap() {}
+
+    // Blocks until the application can serve requests; readiness may follow later if warm-up is enabled
+    public static AppBootstrap start() {
+        long started = System.nanoTime();
+        AppBootstrap bootstrap = new AppBootstrap();
+
+        PersistenceSettings settings = bootstrap.timed("settings", DatabaseConfig::getPersistenceSettings);
+        logger.info("Starting with the {} profile, schema action {}",
+            settings.getProfile(), settings.getSchemaAction());
+        bootstrap.initializeInParallel(settings);
+        bootstrap.timed("services", () -> {
+            bootstrap.wireServices(settings);
+            return null;
+        });
+        logger.info("Application started in {} ms: {}",
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), bootstrap.getPhaseTimings());
+
+        if (AppSettings.getBoolean("khatabook.warmup.enabled", false)) {
+            Thread warmUp = new Thread(bootstrap::warmUp, "khatabook-warmup");
+            warmUp.setDaemon(true);
+            warmUp.start();
+        } else {
+            bootstrap.ready = true;
+        }
+        return bootstrap;
+    }
+
+    private void initializeInParallel(PersistenceSettings settings) {
+        long timeoutSeconds = AppSettings.getLong("khatabook.bootstrap.timeout_seconds", 120);
+        ExecutorService executor = BoundedExecutors.newBoundedExecutor("khatabook-bootstrap", 3, 0);
+        try {
+            List<CompletableFuture<?>> steps = new ArrayList<>();
+            steps.add(CompletableFuture.runAsync(
+                () -> timed("sessionFactory", DatabaseConfig::getSessionFactory), executor));
+            if (settings.hasReplica()) {
+                steps.add(CompletableFuture.runAsync(
+                    () -> timed("replicaSessionFactory", DatabaseConfig::getReplicaSessionFactory), executor));
+            }
+            steps.add(CompletableFuture.runAsync(() -> {
+                tokenAuthenticator = timed("auth", TokenAuthenticator::fromSettings);
+            }, executor));
+
+            CompletableFuture.allOf(steps.toArray(new CompletableFuture<?>[0]))
+                .get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            logger.error("Application failed to start: {}", e.getCause().getMessage(), e.getCause());
+            throw new RuntimeException("Application failed to start", e.getCause());
+        } catch (TimeoutException e) {
+            logger.error("Application did not start within {} seconds", timeoutSeconds);
+            throw new RuntimeException("Application did not start within " + timeoutSeconds + " seconds", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while starting the application", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void wireServices(PersistenceSettings settings) {
+        sessionFactory = DatabaseConfig.getSessionFactory();
+        readRouter = new ReadRouter(sessionFactory, DatabaseConfig.getReplicaSessionFactory().orElse(null),
+            settings.getReplicaPinWindow());
+        dataVersions = new DataVersions(new DataVersionRepository(sessionFactory, readRouter));
+        reportCache = new ReportCache(AppSettings.getLong("khatabook.report_cache.max_weight", 500_000), dataVersions);
+
+        // Listeners run after each committed change: drop stale reports and pin reads to the primary.
+        // Data versions are incremented inside the change's own transaction.
+        dataChangeNotifier = new DataChangeNotifier();
+        dataChangeNotifier.addListener(reportCache);
+        dataChangeNotifier.addListener(readRouter);
+        dataChangeNotifier.addTransactionalListener(dataVersions);
+
+        ExpenseRollupRepository expenseRollupRepository = new ExpenseRollupRepository(sessionFactory, readRouter);
+        OrganizationRepository organizationRepository = new OrganizationRepository(sessionFactory, expenseRollupRepository);
+        ContactRepository contactRepository = new ContactRepository(sessionFactory, expenseRollupRepository);
+        ExpenseCategoryRepository expenseCategoryRepository =
+            new ExpenseCategoryRepository(sessionFactory, expenseRollupRepository);
+        TransactionRepository transactionRepository = new TransactionRepository(
+            sessionFactory, expenseRollupRepository, contactRepository, readRouter);
+        TransactionRowRepository transactionRowRepository = new TransactionRowRepository(readRouter);
+
+        organizationService = new OrganizationService(organizationRepository, dataChangeNotifier);
+        contactService = new ContactService(contactRepository, dataChangeNotifier);
+        expenseCategoryService = new ExpenseCategoryService(expenseCategoryRepository, dataChangeNotifier);
+
+        if (TransactionGroupCommitter.isEnabled()) {
+            groupCommitter = TransactionGroupCommitter.fromSettings(transactionRepository);
+        }
+        transactionService = new TransactionService(transactionRepository, transactionRowRepository,
+            contactService, expenseCategoryService, dataChangeNotifier, groupCommitter);
+
+        reportExecutor = ChunkedExecutor.forReports();
+        reportService = new ReportService(transactionRepository, transactionRowRepository, expenseRollupRepository,
+            contactService, expenseCategoryService, reportCache, reportExecutor);
+        reportJobService = ReportJobService.fromSettings();
+
+        ApiKeySecrets apiKeySecrets = ApiKeySecrets.fromSettings().orElse(null);
+        if (apiKeySecrets == null) {
+            logger.info("khatabook.api_keys.hmac_secret is not set; API key authentication is disabled");
+        }
+        ApiKeyRepository apiKeyRepository = new ApiKeyRepository(sessionFactory);
+        apiKeyAuthenticator = new ApiKeyAuthenticator(apiKeyRepository, apiKeySecrets,
+            AppSettings.getLong("khatabook.api_keys.cache_ttl_seconds", 30),
+            AppSettings.getInt("khatabook.api_keys.cache_max_entries", 10_000));
+        apiKeyService = new ApiKeyService(apiKeyRepository, apiKeySecrets, apiKeyAuthenticator);
+
+        requestRateLimiter = RequestRateLimiter.fromSettings();
+        bulkheads = Bulkheads.fromSettings();
+    }
+
+    // Runs the listing and report queries of one organization and serializes the results, read-only
+    private void warmUp() {
+        int iterations = AppSettings.getInt("khatabook.warmup.iterations", 20);
+        String organizationId = AppSettings.getString("khatabook.warmup.organization_id", null);
+        try {
+            timed("warmUp", () -> {
+                if (organizationId == null) {
+                    logger.warn("khatabook.warmup.organization_id is not set; only the database connection is warmed up");
+                    DatabaseConfig.checkDatabaseConnection();
+                    return null;
+                }
+                for (int i = 0; i < iterations; i++) {
+                    warmUpOnce(Long.valueOf(organizationId));
+                }
+                return null;
+            });
+            logger.info("Warm-up finished after {} iterations", iterations);
+        } catch (RuntimeException e) {
+            // Warm-up only saves the first users some latency; it must not keep the node out of rotation
+            logger.warn("Warm-up failed, continuing without it: {}", e.getMessage(), e);
+        }
+        ready = true;
+        logger.info("Application is ready: {}", getPhaseTimings());
+    }
+
+    private void warmUpOnce(Long organizationId) {
+        UnitOfWork unitOfWork = UnitOfWork.begin(sessionFactory);
+        try {
+            Organization organization = organizationService.getOrganization(organizationId)
+                .orElseThrow(() -> new IllegalArgumentException("Organization not found: " + organizationId));
+            objectMapper.writeValueAsBytes(organization);
+            objectMapper.writeValueAsBytes(contactService.getContactsByOrganization(organization));
+            objectMapper.writeValueAsBytes(expenseCategoryService.getCategoriesByOrganization(organization));
+            objectMapper.writeValueAsBytes(transactionService.findTransactions(
+                organization, new TransactionFilter(), null, TransactionService.DEFAULT_PAGE_SIZE));
+            objectMapper.writeValueAsBytes(reportService.getContactBalanceSummary(organization));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error serializing warm-up results", e);
+        } finally {
+            // Nothing is written, but a read-only pass should never commit
+            unitOfWork.rollback();
+        }
+    }
+
+    private <T> T timed(String phase, Supplier<T> step) {
+        long start = System.nanoTime();
+        try {
+            return step.get();
+        } finally {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            phaseMillis.put(phase, elapsed);
+            logger.info("Startup phase {} took {} ms", phase, elapsed);
+        }
+    }
+
+    public void shutdown() {
+        ready = false;
+        if (bulkheads != null) {
+            bulkheads.shutdown();
+        }
+        if (reportJobService != null) {
+            reportJobService.shutdown();
+        }
+        if (groupCommitter != null) {
+            groupCommitter.shutdown();
+        }
+        if (reportExecutor != null) {
+            reportExecutor.shutdown();
+        }
+        if (tokenAuthenticator != null) {
+            tokenAuthenticator.shutdown();
+        }
+        DatabaseConfig.shutdown();
+        FirebaseConfig.shutdown();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Map<String, Long> getPhaseTimings() {
+        synchronized (phaseMillis) {
+            return new LinkedHashMap<>(phaseMillis);
+        }
+    }
+
+    // Shared with the JSON provider, so warm-up fills the serializer cache that requests use
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    public TokenAuthenticator getTokenAuthenticator() {
+        return tokenAuthenticator;
+    }
+
+    public ApiKeyAuthenticator getApiKeyAuthenticator() {
+        return apiKeyAuthenticator;
+    }
+
+    public ApiKeyService getApiKeyService() {
+        return apiKeyService;
+    }
+
+    public RequestRateLimiter getRequestRateLimiter() {
+        return requestRateLimiter;
+    }
+
+    public Bulkheads getBulkheads() {
+        return bulkheads;
+    }
+
+    public DataVersions getDataVersions() {
+        return dataVersions;
+    }
+
+    public SessionFactory getSessionFactory() {
+        return sessionFactory;
+    }
+
+    public DataChangeNotifier getDataChangeNotifier() {
+        return dataChangeNotifier;
+    }
+
+    public ReadRouter getReadRouter() {
+        return readRouter;
+    }
+
+    public ReportCache getReportCache() {
+        return reportCache;
+    }
+
+    public ReportJobService getReportJobService() {
+        return reportJobService;
+    }
+
+    public OrganizationService getOrganizationService() {
+        return organizationService;
+    }
+
+    public ContactService getContactService() {
+        return contactService;
+    }
+
+    public ExpenseCategoryService getExpenseCategoryService() {
+        return expenseCategoryService;
+    }
+
+    public TransactionService getTransactionService() {
+        return transactionService;
+    }
+
+    public ReportService getReportService() {
+        return reportService;
+    }
+}
@@ -1,9 +1,18 @@
 package com.khatabook.web.config;
 
+import com.khatabook.core.concurrent.RequestRateLimiter;
+import com.khatabook.web.exception.GenericExceptionMapper;
+import com.khatabook.web.filter.AdminFilter;
+import com.khatabook.web.filter.CompressionInterceptor;
+import com.khatabook.web.filter.ConditionalGetFeature;
 import com.khatabook.web.filter.FirebaseAuthFilter;
+import com.khatabook.web.filter.RateLimitFilter;
+import com.khatabook.web.filter.UnitOfWorkFilter;
 import com.khatabook.web.resource.*;
 import org.glassfish.jersey.server.ResourceConfig;
 import org.glassfish.jersey.jackson.JacksonFeature;
+import org.glassfish.jersey.server.spi.AbstractContainerLifecycleListener;
+import org.glassfish.jersey.server.spi.Container;
 
 import javax.ws.rs.ApplicationPath;
 
@@ -11,19 +20,54 @@ import javax.ws.rs.ApplicationPath;
 public class JerseyConfig extends ResourceConfig {
     
     public JerseyConfig() {
-        // Register Jackson for JSON processing
+        // Build the SessionFactory, Firebase and the services before the first request arrives
+        AppBootstrap bootstrap = AppBootstrap.start();
+        register(new ServiceBinder(bootstrap));
+        register(new AbstractContainerLifecycleListener() {
+            @Override
+            public void onShutdown(Container container) {
+                bootstrap.shutdown();
+            }
+        });
+
+        // Register Jackson for JSON processing, with the mapper the warm-up has exercised
         register(JacksonFeature.class);
+        register(new ObjectMapperProvider(bootstrap.getObjectMapper()));
+        // Smile for clients that ask for it in Accept; JSON stays the default
+        register(new SmileProvider(bootstrap.getObjectMapper()));
+
+        // Gzip for bodies past the size threshold, when the client accepts it
+        if (CompressionInterceptor.isEnabled()) {
+            register(CompressionInterceptor.fromSettings());
+        }
         
         // Register authentication filter
         register(FirebaseAuthFilter.class);
+
+        // @AdminOnly resources require the admin claim
+        register(AdminFilter.class);
+
+        // Per-user and per-organization rate limits, checked before any connection is borrowed
+        if (RequestRateLimiter.isEnabled()) {
+            register(new RateLimitFilter(bootstrap.getRequestRateLimiter()));
+        }
+
+        // ETags on @Versioned reads; a current client copy is answered with 304 after one primary key read
+        register(new ConditionalGetFeature(bootstrap.getDataVersions()));
+
+        // One session and one commit per request, opened after authentication
+        register(new UnitOfWorkFilter(bootstrap.getSessionFactory()));
         
         // Register resources
         register(AuthResource.class);
+        register(HealthResource.class);
         register(OrganizationResource.class);
         register(ContactResource.class);
         register(ExpenseCategoryResource.class);
         register(TransactionResource.class);
         register(ReportResource.class);
+        register(AdminResource.class);
+        register(ApiKeyResource.class);
         
         // Register exception mappers
         register(GenericExceptionMapper.class);
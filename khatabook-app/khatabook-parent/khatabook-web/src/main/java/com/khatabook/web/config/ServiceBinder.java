@@ -0,0 +1,41 @@
+package com.khatabook.web.config;
+
+import com.khatabook.core.auth.ApiKeyAuthenticator;
+import com.khatabook.core.auth.TokenAuthenticator;
+import com.khatabook.core.cache.ReportCache;
+import com.khatabook.core.concurrent.Bulkheads;
+import com.khatabook.core.concurrent.RequestRateLimiter;
+import com.khatabook.core.job.ReportJobService;
+import com.khatabook.core.repository.ReadRouter;
+import com.khatabook.core.service.*;
+import org.glassfish.hk2.utilities.binding.AbstractBinder;
+
+/**
+ * Makes the services built by {@link AppBootstrap} injectable into resources. Every binding is the
+ * single instance created at startup, so no request ever builds a service or a SessionFactory.
+ */
+public class ServiceBinder extends AbstractBinder {
+    private final AppBootstrap bootstrap;
+
+    public ServiceBinder(AppBootstrap bootstrap) {
+        this.bootstrap = bootstrap;
+    }
+
+    @Override
+    protected void configure() {
+        bind(bootstrap).to(AppBootstrap.class);
+        bind(bootstrap.getOrganizationService()).to(OrganizationService.class);
+        bind(bootstrap.getContactService()).to(ContactService.class);
+        bind(bootstrap.getExpenseCategoryService()).to(ExpenseCategoryService.class);
+        bind(bootstrap.getTransactionService()).to(TransactionService.class);
+        bind(bootstrap.getReportService()).to(ReportService.class);
+        bind(bootstrap.getReportJobService()).to(ReportJobService.class);
+        bind(bootstrap.getReportCache()).to(ReportCache.class);
+        bind(bootstrap.getReadRouter()).to(ReadRouter.class);
+        bind(bootstrap.getTokenAuthenticator()).to(TokenAuthenticator.class);
+        bind(bootstrap.getApiKeyAuthenticator()).to(ApiKeyAuthenticator.class);
+        bind(bootstrap.getApiKeyService()).to(ApiKeyService.class);
+        bind(bootstrap.getRequestRateLimiter()).to(RequestRateLimiter.class);
+        bind(bootstrap.getBulkheads()).to(Bulkheads.class);
+    }
+}
@@ -0,0 +1,56 @@
+package com.khatabook.web.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Writes response entities as Smile, Jackson's binary JSON, for clients that ask for it in Accept.
+ * Smile sends each repeated field name once and numbers in binary, so statements and listings, whose
+ * rows repeat the same keys, are smaller and cheaper to encode than JSON.
+ */
+@Provider
+@Produces(SmileProvider.APPLICATION_SMILE)
+public class SmileProvider implements MessageBodyWriter<Object> {
+    public static final String APPLICATION_SMILE = "application/x-jackson-smile";
+    // For @Produces next to JSON: ranked below it, so clients that accept anything still get JSON
+    public static final String APPLICATION_SMILE_ALTERNATIVE = APPLICATION_SMILE + ";qs=0.9";
+
+    private final ObjectMapper smileMapper;
+
+    // Copied from the shared JSON mapper, so its modules and serializers shape Smile bodies the same way
+    public SmileProvider(ObjectMapper jsonMapper) {
+        // The container owns the entity stream, so Jackson must not close it
+        this.smileMapper = jsonMapper.copyWith(new SmileFactory())
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        // Streams and raw bodies are written by their own providers
+        return !StreamingOutput.class.isAssignableFrom(type)
+            && !InputStream.class.isAssignableFrom(type)
+            && type != String.class
+            && type != byte[].class;
+    }
+
+    @Override
+    public void writeTo(Object entity, Class<?> type, Type genericType, Annotation[] annotations,
+            MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
+            throws IOException, WebApplicationException {
+        smileMapper.writeValue(entityStream, entity);
+    }
+}
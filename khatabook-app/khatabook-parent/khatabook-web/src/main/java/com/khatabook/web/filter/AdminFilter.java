@@ -0,0 +1,30 @@
+package com.khatabook.web.filter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.core.Response;
+import java.util.Map;
+
+// Refuses @AdminOnly resources to callers that FirebaseAuthFilter did not mark as admins
+@AdminOnly
+@Priority(Priorities.AUTHORIZATION)
+public class AdminFilter implements ContainerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(AdminFilter.class);
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (Boolean.TRUE.equals(requestContext.getProperty(FirebaseAuthFilter.ADMIN_PROPERTY))) {
+            return;
+        }
+        logger.warn("Caller {} refused access to {}", requestContext.getProperty("userId"),
+            requestContext.getUriInfo().getPath());
+        requestContext.abortWith(Response.status(Response.Status.FORBIDDEN)
+            .entity(Map.of("error", "Admin access required"))
+            .build());
+    }
+}
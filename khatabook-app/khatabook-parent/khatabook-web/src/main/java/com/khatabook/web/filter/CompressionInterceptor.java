@@ -0,0 +1,194 @@
+package com.khatabook.web.filter;
+
+import com.khatabook.core.config.AppSettings;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips response bodies for clients that accept it, once a body reaches the size threshold.
+ *
+ * The first bytes of a body are held back until the threshold is reached or the body ends, so small
+ * responses go out as they are, without the CPU cost and the gzip header and trailer that would make
+ * them larger. Compressed responses get their own entity tag, as required of strong tags.
+ */
+@Priority(Priorities.ENTITY_CODER)
+public class CompressionInterceptor implements ContainerResponseFilter, WriterInterceptor {
+    private static final String GZIP = "gzip";
+    private static final String ACCEPTS_GZIP_PROPERTY = CompressionInterceptor.class.getName() + ".acceptsGzip";
+
+    private final int minBytes;
+    private final int level;
+
+    public CompressionInterceptor(int minBytes, int level) {
+        this.minBytes = minBytes;
+        this.level = level;
+    }
+
+    public static boolean isEnabled() {
+        return AppSettings.getBoolean("khatabook.compression.enabled", true);
+    }
+
+    // Level 1 is fastest, 9 smallest; 6 is gzip's default
+    public static CompressionInterceptor fromSettings() {
+        return new CompressionInterceptor(
+            AppSettings.getInt("khatabook.compression.min_bytes", 1024),
+            AppSettings.getInt("khatabook.compression.level", 6)
+        );
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        if (!responseContext.hasEntity() || responseContext.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            return;
+        }
+        responseContext.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(requestContext.getHeaderString(HttpHeaders.ACCEPT_ENCODING))) {
+            requestContext.setProperty(ACCEPTS_GZIP_PROPERTY, Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        if (context.getProperty(ACCEPTS_GZIP_PROPERTY) == null) {
+            context.proceed();
+            return;
+        }
+        ThresholdOutputStream output = new ThresholdOutputStream(context.getOutputStream(), context.getHeaders());
+        context.setOutputStream(output);
+        try {
+            context.proceed();
+            output.finish();
+        } finally {
+            output.release();
+        }
+    }
+
+    // An explicit gzip entry wins over "*"; q=0 refuses the coding
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean gzip = null;
+        Boolean any = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            boolean accepted = true;
+            for (int i = 1; i < parts.length; i++) {
+                accepted &= !parts[i].replace(" ", "").matches("q=0(\\.0{0,3})?");
+            }
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase(GZIP)) {
+                gzip = accepted;
+            } else if (name.equals("*")) {
+                any = accepted;
+            }
+        }
+        return gzip != null ? gzip : any != null && any;
+    }
+
+    // Buffers up to the threshold, then either writes the buffer as is or switches to gzip for the rest
+    private final class ThresholdOutputStream extends OutputStream {
+        private final OutputStream target;
+        private final MultivaluedMap<String, Object> headers;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private OutputStream output;
+        // Native memory outside the heap, released by end() rather than by garbage collection
+        private Deflater deflater;
+        private boolean finished;
+
+        private ThresholdOutputStream(OutputStream target, MultivaluedMap<String, Object> headers) {
+            this.target = target;
+            this.headers = headers;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (output == null) {
+                if (buffer.size() + length < minBytes) {
+                    buffer.write(bytes, offset, length);
+                    return;
+                }
+                startCompressing();
+            }
+            output.write(bytes, offset, length);
+        }
+
+        // Holding back is the point, so a flush before the decision does nothing
+        @Override
+        public void flush() throws IOException {
+            if (output != null) {
+                output.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                finish();
+            } finally {
+                release();
+            }
+            target.close();
+        }
+
+        // Headers are still open here: nothing has reached the container's stream yet
+        private void startCompressing() throws IOException {
+            headers.putSingle(HttpHeaders.CONTENT_ENCODING, GZIP);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            Object entityTag = headers.getFirst(HttpHeaders.ETAG);
+            if (entityTag instanceof EntityTag) {
+                EntityTag tag = (EntityTag) entityTag;
+                headers.putSingle(HttpHeaders.ETAG, new EntityTag(tag.getValue() + "-" + GZIP, tag.isWeak()));
+            }
+            output = new GZIPOutputStream(target, 8192) {
+                {
+                    def.setLevel(level);
+                    deflater = def;
+                }
+            };
+            buffer.writeTo(output);
+            buffer = null;
+        }
+
+        private void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (output == null) {
+                buffer.writeTo(target);
+                buffer = null;
+                output = target;
+                return;
+            }
+            ((GZIPOutputStream) output).finish();
+        }
+
+        // Also when the body failed half way, so no deflater outlives its response
+        private void release() {
+            finished = true;
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.khatabook.web.filter;
+
+import com.khatabook.core.cache.DataVersions;
+
+import javax.ws.rs.container.DynamicFeature;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.FeatureContext;
+
+// Attaches a ConditionalGetFilter to each resource method annotated with @Versioned
+public class ConditionalGetFeature implements DynamicFeature {
+    private final DataVersions dataVersions;
+
+    public ConditionalGetFeature(DataVersions dataVersions) {
+        this.dataVersions = dataVersions;
+    }
+
+    @Override
+    public void configure(ResourceInfo resourceInfo, FeatureContext context) {
+        Versioned versioned = resourceInfo.getResourceMethod().getAnnotation(Versioned.class);
+        if (versioned != null) {
+            context.register(new ConditionalGetFilter(dataVersions, versioned.value()));
+        }
+    }
+}
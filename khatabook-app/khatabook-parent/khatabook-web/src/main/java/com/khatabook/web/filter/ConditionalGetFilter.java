@@ -0,0 +1,105 @@
+package com.khatabook.web.filter;
+
+import com.khatabook.core.cache.DataVersions;
+import com.khatabook.core.event.DataScope;
+
+import javax.annotation.Priority;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Answers If-None-Match on a {@link Versioned} resource from the organization's data versions alone:
+ * a matching tag gets 304 after one primary key lookup, before a unit of work is opened or the resource
+ * runs. Other responses carry the tag, computed before the resource reads its data, with the
+ * representation appended.
+ */
+@Priority(Priorities.AUTHORIZATION + 100)
+public class ConditionalGetFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    private static final String ENTITY_TAG_PROPERTY = ConditionalGetFilter.class.getName() + ".entityTag";
+    // Per-user data: clients revalidate every time and shared caches keep nothing
+    private static final String CACHE_CONTROL = "private, no-cache";
+
+    private final DataVersions dataVersions;
+    private final Set<DataScope> scopes;
+
+    public ConditionalGetFilter(DataVersions dataVersions, DataScope... scopes) {
+        this.dataVersions = dataVersions;
+        this.scopes = EnumSet.copyOf(Arrays.asList(scopes));
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (!HttpMethod.GET.equals(requestContext.getMethod())) {
+            return;
+        }
+        Long organizationId = getOrganizationId(requestContext);
+        if (organizationId == null) {
+            return;
+        }
+
+        String tag = dataVersions.getTag(organizationId, scopes);
+        String current = findCurrent(requestContext.getHeaderString(HttpHeaders.IF_NONE_MATCH), tag);
+        if (current != null) {
+            requestContext.abortWith(Response.notModified(new EntityTag(current))
+                .header(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .build());
+            return;
+        }
+        requestContext.setProperty(ENTITY_TAG_PROPERTY, tag);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        Object tag = requestContext.getProperty(ENTITY_TAG_PROPERTY);
+        if (tag == null || responseContext.getStatus() != Response.Status.OK.getStatusCode()) {
+            return;
+        }
+        // JSON and Smile bodies of the same data are different representations, so their tags differ
+        MediaType mediaType = responseContext.getMediaType();
+        String representation = mediaType == null ? MediaType.APPLICATION_JSON_TYPE.getSubtype() : mediaType.getSubtype();
+        responseContext.getHeaders().putSingle(HttpHeaders.ETAG, new EntityTag(tag + "." + representation));
+        responseContext.getHeaders().putSingle(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        responseContext.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    }
+
+    // A client's copy is current when its tag is one of the representations of the current version
+    static String findCurrent(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null) {
+            return null;
+        }
+        for (String entry : ifNoneMatch.split(",")) {
+            String value = entry.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                value = value.substring(1, value.length() - 1);
+            }
+            if (value.startsWith(tag + ".")) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static Long getOrganizationId(ContainerRequestContext requestContext) {
+        String orgId = requestContext.getUriInfo().getPathParameters().getFirst("orgId");
+        try {
+            return orgId == null ? null : Long.valueOf(orgId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.khatabook.web.filter;
 
-import com.google.firebase.auth.FirebaseToken;
-import com.khatabook.core.config.FirebaseConfig;
+import com.khatabook.core.auth.ApiKeyAuthenticator;
+import com.khatabook.core.auth.ApiKeyPrincipal;
+import com.khatabook.core.auth.TokenAuthenticator;
+import com.khatabook.core.auth.VerifiedToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Priority;
+import javax.inject.Inject;
 import javax.ws.rs.Priorities;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ContainerRequestFilter;
@@ -13,23 +16,46 @@ import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.Provider;
 import java.io.IOException;
+import java.util.Map;
 
 @Provider
 @Priority(Priorities.AUTHENTICATION)
 public class FirebaseAuthFilter implements ContainerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(FirebaseAuthFilter.class);
     private static final String AUTHENTICATION_SCHEME = "Bearer";
+    private static final String API_KEY_SCHEME = "ApiKey";
+    // Set on requests authenticated by API key: the key id, and the only organization it may access
+    public static final String API_KEY_ID_PROPERTY = "apiKeyId";
+    public static final String API_KEY_ORGANIZATION_PROPERTY = "apiKeyOrganizationId";
+    // Set to true for ID tokens with the admin claim; API keys are never admins
+    public static final String ADMIN_PROPERTY = "userAdmin";
+
+    private final TokenAuthenticator tokenAuthenticator;
+    private final ApiKeyAuthenticator apiKeyAuthenticator;
+
+    @Inject
+    public FirebaseAuthFilter(TokenAuthenticator tokenAuthenticator, ApiKeyAuthenticator apiKeyAuthenticator) {
+        this.tokenAuthenticator = tokenAuthenticator;
+        this.apiKeyAuthenticator = apiKeyAuthenticator;
+    }
 
     @Override
     public void filter(ContainerRequestContext requestContext) throws IOException {
-        // Skip authentication for login endpoint
-        if (requestContext.getUriInfo().getPath().equals("auth/login")) {
+        // Skip authentication for login endpoint and health probes
+        String path = requestContext.getUriInfo().getPath();
+        if (path.equals("auth/login") || isHealthCheck(path)) {
             return;
         }
 
         // Get the Authorization header
         String authHeader = requestContext.getHeaderString(HttpHeaders.AUTHORIZATION);
 
+        // Machine clients authenticate with an organization's API key instead of an ID token
+        if (hasScheme(authHeader, API_KEY_SCHEME)) {
+            authenticateApiKey(requestContext, authHeader.substring(API_KEY_SCHEME.length()).trim());
+            return;
+        }
+
         // Validate the Authorization header
         if (!isTokenBasedAuthentication(authHeader)) {
             abortWithUnauthorized(requestContext);
@@ -40,14 +66,15 @@ public class FirebaseAuthFilter implements ContainerRequestFilter {
         String token = authHeader.substring(AUTHENTICATION_SCHEME.length()).trim();
 
         try {
-            // Validate the token using Firebase
-            FirebaseToken decodedToken = FirebaseConfig.verifyToken(token);
+            // Validate the token, from the cache of verified tokens when it has been seen before
+            VerifiedToken verifiedToken = tokenAuthenticator.authenticate(token);
             
             // Store user information in the request context
-            requestContext.setProperty("userId", decodedToken.getUid());
-            requestContext.setProperty("userPhone", decodedToken.getClaims().get("phone_number"));
+            requestContext.setProperty("userId", verifiedToken.getUid());
+            requestContext.setProperty("userPhone", verifiedToken.getPhoneNumber());
+            requestContext.setProperty(ADMIN_PROPERTY, verifiedToken.isAdmin());
             
-            logger.info("Authenticated user: {}", decodedToken.getUid());
+            logger.debug("Authenticated user: {}", verifiedToken.getUid());
             
         } catch (Exception e) {
             logger.error("Authentication failed: {}", e.getMessage());
@@ -55,9 +82,42 @@ public class FirebaseAuthFilter implements ContainerRequestFilter {
         }
     }
 
+    static boolean isHealthCheck(String path) {
+        return path.equals("health") || path.startsWith("health/");
+    }
+
+    private void authenticateApiKey(ContainerRequestContext requestContext, String credential) {
+        ApiKeyPrincipal principal;
+        try {
+            principal = apiKeyAuthenticator.authenticate(credential);
+        } catch (Exception e) {
+            logger.error("API key authentication failed: {}", e.getMessage());
+            abortWithUnauthorized(requestContext);
+            return;
+        }
+
+        // A key only reaches its own organization's resources
+        String orgId = requestContext.getUriInfo().getPathParameters().getFirst("orgId");
+        if (orgId == null || !orgId.equals(principal.getOrganizationId().toString())) {
+            logger.warn("API key {} refused access to {}", principal.getKeyId(), requestContext.getUriInfo().getPath());
+            requestContext.abortWith(Response.status(Response.Status.FORBIDDEN)
+                .entity(Map.of("error", "API key is not valid for this resource"))
+                .build());
+            return;
+        }
+
+        requestContext.setProperty("userId", "apikey:" + principal.getKeyId());
+        requestContext.setProperty(API_KEY_ID_PROPERTY, principal.getKeyId());
+        requestContext.setProperty(API_KEY_ORGANIZATION_PROPERTY, principal.getOrganizationId());
+        logger.debug("Authenticated API key: {}", principal.getKeyId());
+    }
+
     private boolean isTokenBasedAuthentication(String authHeader) {
-        return authHeader != null && authHeader.toLowerCase()
-            .startsWith(AUTHENTICATION_SCHEME.toLowerCase() + " ");
+        return hasScheme(authHeader, AUTHENTICATION_SCHEME);
+    }
+
+    private static boolean hasScheme(String authHeader, String scheme) {
+        return authHeader != null && authHeader.regionMatches(true, 0, scheme + " ", 0, scheme.length() + 1);
     }
 
     private void abortWithUnauthorized(ContainerRequestContext requestContext) {
@@ -0,0 +1,80 @@
+package com.khatabook.web.filter;
+
+import com.khatabook.core.concurrent.RequestRateLimiter;
+import com.khatabook.core.concurrent.RequestRateLimiter.RequestKind;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Priority;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refuses requests over the caller's or organization's rate with 429 and a Retry-After header.
+ * Runs after authentication, so the user is known, and before the unit of work, so a refused
+ * request never borrows a connection.
+ */
+@Provider
+@Priority(Priorities.AUTHORIZATION)
+public class RateLimitFilter implements ContainerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final RequestRateLimiter rateLimiter;
+
+    public RateLimitFilter(RequestRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        String path = requestContext.getUriInfo().getPath();
+        if (FirebaseAuthFilter.isHealthCheck(path)) {
+            return;
+        }
+
+        String userId = (String) requestContext.getProperty("userId");
+        Long organizationId = getOrganizationId(requestContext, path);
+        long waitNanos = rateLimiter.acquire(userId, organizationId, getKind(requestContext.getMethod(), path));
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            logger.warn("Rate limited {} {} for user {} in organization {}", requestContext.getMethod(), path,
+                userId, organizationId);
+            requestContext.abortWith(Response.status(TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds)
+                .entity(Map.of("error", "Too many requests, retry in " + retryAfterSeconds + " seconds"))
+                .build());
+        }
+    }
+
+    // Reports are the expensive endpoints; polling a report job's status is only a read
+    static RequestKind getKind(String method, String path) {
+        boolean read = HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method);
+        if (path.contains("/reports/") && !(read && path.contains("/reports/jobs/"))) {
+            return RequestKind.REPORT;
+        }
+        return read ? RequestKind.READ : RequestKind.WRITE;
+    }
+
+    // Nested resources name the organization orgId; the organization resource itself calls it id
+    private static Long getOrganizationId(ContainerRequestContext requestContext, String path) {
+        MultivaluedMap<String, String> parameters = requestContext.getUriInfo().getPathParameters();
+        String orgId = parameters.getFirst("orgId");
+        if (orgId == null && path.startsWith("organizations/")) {
+            orgId = parameters.getFirst("id");
+        }
+        try {
+            return orgId == null ? null : Long.valueOf(orgId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
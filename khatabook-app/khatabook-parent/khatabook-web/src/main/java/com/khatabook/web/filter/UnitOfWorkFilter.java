@@ -0,0 +1,91 @@
+package com.khatabook.web.filter;
+
+import com.khatabook.core.config.DatabaseConfig;
+import com.khatabook.core.repository.UnitOfWork;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+import java.util.Map;
+
+/**
+ * Wraps each authenticated request in a unit of work: one session, one first-level cache and one
+ * commit for everything the request does. The unit commits when the response is successful and rolls
+ * back when the status is 400 or above or a repository marked it rollback-only. The unit borrows a
+ * connection only when a repository first uses it, so an asynchronous request holds none while it
+ * waits for a bulkhead.
+ */
+@Provider
+@Priority(Priorities.USER)
+public class UnitOfWorkFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    private static final Logger logger = LoggerFactory.getLogger(UnitOfWorkFilter.class);
+    private static final String UNIT_OF_WORK_PROPERTY = UnitOfWork.class.getName();
+    public static final Map<String, String> COMMIT_FAILED = Map.of("error", "Changes could not be saved");
+
+    private final SessionFactory sessionFactory;
+
+    public UnitOfWorkFilter() {
+        this(DatabaseConfig.getSessionFactory());
+    }
+
+    public UnitOfWorkFilter(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        // A unit left behind by an earlier request on this worker thread must not leak into this one
+        UnitOfWork.current().ifPresent(stale -> {
+            logger.warn("Rolling back a unit of work that was never ended");
+            stale.rollback();
+        });
+        // Probes must answer without borrowing a connection, even when the pool is exhausted
+        if (FirebaseAuthFilter.isHealthCheck(requestContext.getUriInfo().getPath())) {
+            return;
+        }
+        requestContext.setProperty(UNIT_OF_WORK_PROPERTY, UnitOfWork.begin(sessionFactory));
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        Object property = requestContext.getProperty(UNIT_OF_WORK_PROPERTY);
+        if (!(property instanceof UnitOfWork)) {
+            // The request was aborted before the unit of work began, e.g. by authentication
+            return;
+        }
+        requestContext.removeProperty(UNIT_OF_WORK_PROPERTY);
+
+        UnitOfWork unitOfWork = (UnitOfWork) property;
+        if (unitOfWork.isDetached()) {
+            // An asynchronous resource moved it to a worker thread, which has ended it or will
+            return;
+        }
+        if (!end(unitOfWork, responseContext.getStatus())) {
+            responseContext.setStatus(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode());
+            responseContext.setEntity(COMMIT_FAILED);
+        }
+    }
+
+    // Commits for a successful status and rolls back otherwise; false when the commit failed
+    public static boolean end(UnitOfWork unitOfWork, int status) {
+        if (status >= 400) {
+            unitOfWork.rollback();
+            return true;
+        }
+        try {
+            unitOfWork.commit();
+            return true;
+        } catch (RuntimeException e) {
+            logger.error("Request failed to commit: {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.khatabook.web.filter;
+
+import com.khatabook.core.event.DataScope;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a GET under /organizations/{orgId} whose response only depends on the given scopes of that
+ * organization's data, so it can be answered with an ETag and revalidated by {@link ConditionalGetFilter}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Versioned {
+    DataScope[] value();
+}
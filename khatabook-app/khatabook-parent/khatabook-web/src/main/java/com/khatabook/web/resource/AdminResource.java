@@ -0,0 +1,133 @@
+package com.khatabook.web.resource;
+
+import com.khatabook.core.auth.TokenAuthenticator;
+import com.khatabook.core.cache.ReportCache;
+import com.khatabook.core.concurrent.Bulkheads;
+import com.khatabook.core.concurrent.RequestRateLimiter;
+import com.khatabook.core.config.DatabaseConfig;
+import com.khatabook.core.repository.ReadRouter;
+import com.khatabook.web.filter.AdminOnly;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Operational endpoints that act on the whole node, so only callers with the admin claim reach them
+@Path("/admin")
+@AdminOnly
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class AdminResource {
+    private static final Logger logger = LoggerFactory.getLogger(AdminResource.class);
+
+    private final ReportCache reportCache;
+    private final ReadRouter readRouter;
+    private final TokenAuthenticator tokenAuthenticator;
+    private final RequestRateLimiter requestRateLimiter;
+    private final Bulkheads bulkheads;
+
+    @Inject
+    public AdminResource(ReportCache reportCache, ReadRouter readRouter, TokenAuthenticator tokenAuthenticator,
+            RequestRateLimiter requestRateLimiter, Bulkheads bulkheads) {
+        this.reportCache = reportCache;
+        this.readRouter = readRouter;
+        this.tokenAuthenticator = tokenAuthenticator;
+        this.requestRateLimiter = requestRateLimiter;
+        this.bulkheads = bulkheads;
+    }
+
+    @GET
+    @Path("/report-cache")
+    public Response getReportCacheStats() {
+        Map<String, Object> stats = reportCache.getStats();
+        logger.info("Retrieved report cache stats: {}", stats);
+        return Response.ok(stats).build();
+    }
+
+    @DELETE
+    @Path("/report-cache")
+    public Response clearReportCache() {
+        reportCache.clear();
+        logger.info("Report cache cleared");
+        return Response.noContent().build();
+    }
+
+    @GET
+    @Path("/connection-pool")
+    public Response getConnectionPoolStats() {
+        Map<String, Object> stats = DatabaseConfig.getConnectionPoolStats();
+        logger.info("Retrieved connection pool stats: {}", stats);
+        return Response.ok(stats).build();
+    }
+
+    @GET
+    @Path("/entity-cache")
+    public Response getEntityCacheStats() {
+        Map<String, Object> stats = DatabaseConfig.getSecondLevelCacheStats();
+        logger.info("Retrieved entity cache stats: {}", stats);
+        return Response.ok(stats).build();
+    }
+
+    @DELETE
+    @Path("/entity-cache")
+    public Response clearEntityCache() {
+        DatabaseConfig.evictSecondLevelCache();
+        logger.info("Entity cache cleared");
+        return Response.noContent().build();
+    }
+
+    @GET
+    @Path("/read-routing")
+    public Response getReadRoutingStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(readRouter.getStats());
+        DatabaseConfig.getReplicaConnectionPoolStats().ifPresent(pool -> stats.put("replicaPool", pool));
+        logger.info("Retrieved read routing stats: {}", stats);
+        return Response.ok(stats).build();
+    }
+
+    @DELETE
+    @Path("/connection-pool/acquire-times")
+    public Response resetConnectionAcquireTimes() {
+        DatabaseConfig.resetConnectionAcquireTimes();
+        logger.info("Connection acquire times reset");
+        return Response.noContent().build();
+    }
+
+    @GET
+    @Path("/token-cache")
+    public Response getTokenCacheStats() {
+        Map<String, Object> stats = tokenAuthenticator.getStats();
+        logger.info("Retrieved token cache stats: {}", stats);
+        return Response.ok(stats).build();
+    }
+
+    // Revocation hook for this node, e.g. after the user's refresh tokens were revoked in Firebase
+    @DELETE
+    @Path("/token-cache/users/{uid}")
+    public Response revokeUserTokens(@PathParam("uid") String uid) {
+        tokenAuthenticator.revokeUser(uid);
+        logger.info("Tokens of user {} revoked", uid);
+        return Response.noContent().build();
+    }
+
+    @GET
+    @Path("/rate-limits")
+    public Response getRateLimitStats() {
+        Map<String, Object> stats = requestRateLimiter.getStats();
+        logger.info("Retrieved rate limit stats: {}", stats);
+        return Response.ok(stats).build();
+    }
+
+    @GET
+    @Path("/bulkheads")
+    public Response getBulkheadStats() {
+        Map<String, Object> stats = bulkheads.getStats();
+        logger.info("Retrieved bulkhead stats: {}", stats);
+        return Response.ok(stats).build();
+    }
+}
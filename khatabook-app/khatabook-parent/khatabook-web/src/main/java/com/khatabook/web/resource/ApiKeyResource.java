@@ -0,0 +1,175 @@
+package com.khatabook.web.resource;
+
+import com.khatabook.core.dto.IssuedApiKey;
+import com.khatabook.core.model.ApiKey;
+import com.khatabook.core.model.Organization;
+import com.khatabook.core.service.ApiKeyService;
+import com.khatabook.core.service.OrganizationService;
+import com.khatabook.web.filter.FirebaseAuthFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.ws.rs.*;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// API keys are managed by signed-in users only; a key cannot create, rotate or revoke keys
+@Path("/organizations/{orgId}/api-keys")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class ApiKeyResource {
+    private static final Logger logger = LoggerFactory.getLogger(ApiKeyResource.class);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_DATE_TIME;
+    private static final long DEFAULT_ROTATION_GRACE_SECONDS = 86_400;
+
+    private final ApiKeyService apiKeyService;
+    private final OrganizationService organizationService;
+
+    @Inject
+    public ApiKeyResource(ApiKeyService apiKeyService, OrganizationService organizationService) {
+        this.apiKeyService = apiKeyService;
+        this.organizationService = organizationService;
+    }
+
+    @POST
+    public Response createKey(
+        @PathParam("orgId") Long orgId,
+        Map<String, String> request,
+        @Context ContainerRequestContext requestContext
+    ) {
+        if (isApiKeyRequest(requestContext)) {
+            return forbidden();
+        }
+        try {
+            Organization organization = getOrganization(orgId);
+            String expiresAt = request == null ? null : request.get("expiresAt");
+            IssuedApiKey issued = apiKeyService.createKey(organization, request == null ? null : request.get("name"),
+                expiresAt == null ? null : LocalDateTime.parse(expiresAt, DATE_FORMATTER));
+
+            logger.info("API key {} created for organization {}", issued.getApiKey().getKeyId(), orgId);
+            return Response.status(Response.Status.CREATED)
+                .entity(toIssuedView(issued))
+                .build();
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            logger.error("Failed to create API key: {}", e.getMessage());
+            return badRequest(e.getMessage());
+        } catch (IllegalStateException e) {
+            logger.error("Failed to create API key: {}", e.getMessage());
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .entity(Map.of("error", e.getMessage()))
+                .build();
+        }
+    }
+
+    @GET
+    public Response getKeys(@PathParam("orgId") Long orgId, @Context ContainerRequestContext requestContext) {
+        if (isApiKeyRequest(requestContext)) {
+            return forbidden();
+        }
+        try {
+            List<Map<String, Object>> keys = apiKeyService.getKeys(getOrganization(orgId)).stream()
+                .map(ApiKeyResource::toView)
+                .collect(Collectors.toList());
+            return Response.ok(keys).build();
+        } catch (IllegalArgumentException e) {
+            logger.error("Failed to list API keys: {}", e.getMessage());
+            return badRequest(e.getMessage());
+        }
+    }
+
+    // The old key keeps working for graceSeconds (default one day) so clients can switch over
+    @POST
+    @Path("/{keyId}/rotate")
+    public Response rotateKey(
+        @PathParam("orgId") Long orgId,
+        @PathParam("keyId") String keyId,
+        @QueryParam("graceSeconds") Long graceSeconds,
+        @Context ContainerRequestContext requestContext
+    ) {
+        if (isApiKeyRequest(requestContext)) {
+            return forbidden();
+        }
+        try {
+            Duration grace = Duration.ofSeconds(graceSeconds == null ? DEFAULT_ROTATION_GRACE_SECONDS : graceSeconds);
+            IssuedApiKey issued = apiKeyService.rotateKey(getOrganization(orgId), keyId, grace);
+            return Response.status(Response.Status.CREATED)
+                .entity(toIssuedView(issued))
+                .build();
+        } catch (IllegalArgumentException e) {
+            logger.error("Failed to rotate API key {}: {}", keyId, e.getMessage());
+            return badRequest(e.getMessage());
+        }
+    }
+
+    @DELETE
+    @Path("/{keyId}")
+    public Response revokeKey(
+        @PathParam("orgId") Long orgId,
+        @PathParam("keyId") String keyId,
+        @Context ContainerRequestContext requestContext
+    ) {
+        if (isApiKeyRequest(requestContext)) {
+            return forbidden();
+        }
+        try {
+            apiKeyService.revokeKey(getOrganization(orgId), keyId);
+            return Response.noContent().build();
+        } catch (IllegalArgumentException e) {
+            logger.error("Failed to revoke API key {}: {}", keyId, e.getMessage());
+            return badRequest(e.getMessage());
+        }
+    }
+
+    private Organization getOrganization(Long orgId) {
+        return organizationService.getOrganization(orgId)
+            .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
+    }
+
+    private static boolean isApiKeyRequest(ContainerRequestContext requestContext) {
+        return requestContext.getProperty(FirebaseAuthFilter.API_KEY_ID_PROPERTY) != null;
+    }
+
+    // The secret hash never leaves the server
+    private static Map<String, Object> toView(ApiKey apiKey) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("keyId", apiKey.getKeyId());
+        view.put("name", apiKey.getName());
+        view.put("createdAt", format(apiKey.getCreatedAt()));
+        view.put("expiresAt", format(apiKey.getExpiresAt()));
+        view.put("revokedAt", format(apiKey.getRevokedAt()));
+        return view;
+    }
+
+    private static Map<String, Object> toIssuedView(IssuedApiKey issued) {
+        Map<String, Object> view = toView(issued.getApiKey());
+        view.put("apiKey", issued.getCredential());
+        return view;
+    }
+
+    private static String format(LocalDateTime dateTime) {
+        return dateTime == null ? null : dateTime.format(DATE_FORMATTER);
+    }
+
+    private static Response forbidden() {
+        return Response.status(Response.Status.FORBIDDEN)
+            .entity(Map.of("error", "API keys cannot manage API keys"))
+            .build();
+    }
+
+    private static Response badRequest(String message) {
+        return Response.status(Response.Status.BAD_REQUEST)
+            .entity(Map.of("error", message))
+            .build();
+    }
+}
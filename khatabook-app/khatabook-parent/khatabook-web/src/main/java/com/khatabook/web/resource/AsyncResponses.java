@@ -0,0 +1,139 @@
+package com.khatabook.web.resource;
+
+import com.khatabook.core.concurrent.Bulkhead;
+import com.khatabook.core.repository.UnitOfWork;
+import com.khatabook.web.filter.UnitOfWorkFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.Response;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Runs a resource method's body on a bulkhead instead of the container's request thread.
+ *
+ * The request's unit of work moves to the worker thread and is committed or rolled back there, before
+ * the response is sent, exactly as {@link UnitOfWorkFilter} would have. The unit opens its session on
+ * first use, so a request waiting in the bulkhead's queue holds no connection. Whichever comes first, the
+ * worker's response or the bulkhead's timeout, answers the request, and a worker that loses rolls back
+ * its unit. Work still queued when the timeout fires does not run at all.
+ *
+ * Group-committed writes commit outside the unit and cannot be rolled back with it. Before submitting
+ * one the worker claims the answer (UnitOfWork.claimCommit): from then on the timeout waits for the
+ * worker instead of answering 503, and once the timeout has answered, the write is refused unsaved.
+ */
+final class AsyncResponses {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncResponses.class);
+
+    private AsyncResponses() {}
+
+    static void run(AsyncResponse asyncResponse, Bulkhead bulkhead, Supplier<Response> work) {
+        UnitOfWork unitOfWork = UnitOfWork.current().map(UnitOfWork::detach).orElse(null);
+        Answer answered = new Answer();
+
+        asyncResponse.setTimeoutHandler(timedOut -> {
+            if (answered.takeForRefusal()) {
+                bulkhead.recordTimeout();
+                logger.warn("Request timed out after {} ms", bulkhead.getTimeoutMillis());
+                timedOut.resume(unavailable("Request timed out, try again later"));
+            } else {
+                // The worker is committing or owns a group commit; without more time the container would
+                // answer 503 itself
+                try {
+                    timedOut.setTimeout(bulkhead.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+                } catch (IllegalStateException e) {
+                    logger.debug("Request was answered while timing out");
+                }
+            }
+        });
+        asyncResponse.setTimeout(bulkhead.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+
+        try {
+            bulkhead.execute(() -> respond(asyncResponse, unitOfWork, answered, work));
+        } catch (RejectedExecutionException e) {
+            if (unitOfWork != null) {
+                unitOfWork.rollback();
+            }
+            if (answered.takeForRefusal()) {
+                logger.warn("Request rejected: {}", e.getMessage());
+                asyncResponse.resume(unavailable("Server is busy, try again later"));
+            }
+        }
+    }
+
+    private static void respond(AsyncResponse asyncResponse, UnitOfWork unitOfWork, Answer answered,
+            Supplier<Response> work) {
+        if (answered.isTaken()) {
+            if (unitOfWork != null) {
+                unitOfWork.rollback();
+            }
+            return;
+        }
+        if (unitOfWork != null) {
+            unitOfWork.attach();
+            unitOfWork.onCommitClaim(answered::takeForWorker);
+        }
+
+        Response response;
+        try {
+            response = work.get();
+        } catch (RuntimeException e) {
+            if (unitOfWork != null) {
+                unitOfWork.rollback();
+            }
+            // Mapped to a response by the exception mappers, as for synchronous resources
+            if (answered.takeForWorker()) {
+                asyncResponse.resume(e);
+            }
+            return;
+        }
+
+        if (!answered.takeForWorker()) {
+            if (unitOfWork != null) {
+                unitOfWork.rollback();
+            }
+            return;
+        }
+        if (unitOfWork != null && !UnitOfWorkFilter.end(unitOfWork, response.getStatus())) {
+            response = Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                .entity(UnitOfWorkFilter.COMMIT_FAILED)
+                .build();
+        }
+        asyncResponse.resume(response);
+    }
+
+    // Decided once: the worker answers the request, or the timeout (or a full bulkhead) does
+    private static final class Answer {
+        private final AtomicBoolean taken = new AtomicBoolean();
+        // Read and written by the worker thread only
+        private boolean takenByWorker;
+
+        boolean takeForRefusal() {
+            return taken.compareAndSet(false, true);
+        }
+
+        // Idempotent for the worker, which may claim the answer for a group commit before it responds
+        boolean takeForWorker() {
+            if (!takenByWorker) {
+                takenByWorker = taken.compareAndSet(false, true);
+            }
+            return takenByWorker;
+        }
+
+        boolean isTaken() {
+            return taken.get();
+        }
+    }
+
+    private static Response unavailable(String message) {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+            .header("Retry-After", "1")
+            .entity(Map.of("error", message))
+            .build();
+    }
+}
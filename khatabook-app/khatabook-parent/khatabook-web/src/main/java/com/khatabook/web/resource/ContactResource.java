@@ -1,13 +1,20 @@
 package com.khatabook.web.resource;
 
+import com.khatabook.core.concurrent.Bulkheads;
+import com.khatabook.core.event.DataScope;
 import com.khatabook.core.model.Contact;
 import com.khatabook.core.model.Organization;
 import com.khatabook.core.service.ContactService;
 import com.khatabook.core.service.OrganizationService;
+import com.khatabook.web.config.SmileProvider;
+import com.khatabook.web.filter.Versioned;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.inject.Inject;
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -18,219 +25,253 @@ import java.util.List;
 import java.util.Map;
 
 @Path("/organizations/{orgId}/contacts")
-@Produces(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, SmileProvider.APPLICATION_SMILE_ALTERNATIVE})
 @Consumes(MediaType.APPLICATION_JSON)
 public class ContactResource {
     private static final Logger logger = LoggerFactory.getLogger(ContactResource.class);
     
     private final ContactService contactService;
     private final OrganizationService organizationService;
+    private final Bulkheads bulkheads;
 
-    public ContactResource(ContactService contactService, OrganizationService organizationService) {
+    @Inject
+    public ContactResource(ContactService contactService, OrganizationService organizationService,
+            Bulkheads bulkheads) {
         this.contactService = contactService;
         this.organizationService = organizationService;
+        this.bulkheads = bulkheads;
     }
 
     @POST
-    public Response createContact(
+    public void createContact(
         @PathParam("orgId") Long orgId,
         Contact contact,
-        @Context UriInfo uriInfo
+        @Context UriInfo uriInfo,
+        @Suspended AsyncResponse asyncResponse
     ) {
-        try {
-            Organization organization = organizationService.getOrganization(orgId)
-                .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
+        AsyncResponses.run(asyncResponse, bulkheads.getWrites(), () -> {
+            try {
+                Organization organization = organizationService.getOrganization(orgId)
+                    .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
 
-            Contact createdContact = contactService.createContact(contact, organization);
+                Contact createdContact = contactService.createContact(contact, organization);
             
-            URI location = uriInfo.getAbsolutePathBuilder()
-                .path(String.valueOf(createdContact.getId()))
-                .build();
+                URI location = uriInfo.getAbsolutePathBuilder()
+                    .path(String.valueOf(createdContact.getId()))
+                    .build();
             
-            logger.info("Contact created successfully: {} for organization: {}", 
-                createdContact.getName(), organization.getOrgName());
+                logger.info("Contact created successfully: {} for organization: {}", 
+                    createdContact.getName(), organization.getOrgName());
             
-            return Response.created(location)
-                .entity(createdContact)
-                .build();
+                return Response.created(location)
+                    .entity(createdContact)
+                    .build();
                 
-        } catch (IllegalArgumentException e) {
-            logger.error("Failed to create contact: {}", e.getMessage());
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(Map.of("error", e.getMessage()))
-                .build();
-        }
+            } catch (IllegalArgumentException e) {
+                logger.error("Failed to create contact: {}", e.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+            }
+        });
     }
 
     @GET
     @Path("/{id}")
-    public Response getContact(@PathParam("orgId") Long orgId, @PathParam("id") Long id) {
-        try {
-            Organization organization = organizationService.getOrganization(orgId)
-                .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
-
-            return contactService.getContact(id)
-                .map(contact -> {
-                    // Verify contact belongs to the organization
-                    if (!contact.getOrganization().getId().equals(organization.getId())) {
-                        return Response.status(Response.Status.FORBIDDEN)
-                            .entity(Map.of("error", "Contact does not belong to the organization"))
-                            .build();
-                    }
+    public void getContact(
+        @PathParam("orgId") Long orgId,
+        @PathParam("id") Long id,
+        @Suspended AsyncResponse asyncResponse
+    ) {
+        AsyncResponses.run(asyncResponse, bulkheads.getReads(), () -> {
+            try {
+                Organization organization = organizationService.getOrganization(orgId)
+                    .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
+
+                return contactService.getContact(id)
+                    .map(contact -> {
+                        // Verify contact belongs to the organization
+                        if (!contact.getOrganization().getId().equals(organization.getId())) {
+                            return Response.status(Response.Status.FORBIDDEN)
+                                .entity(Map.of("error", "Contact does not belong to the organization"))
+                                .build();
+                        }
                     
-                    logger.info("Retrieved contact: {}", contact.getName());
-                    return Response.ok(contact).build();
-                })
-                .orElseGet(() -> {
-                    logger.warn("Contact not found with id: {}", id);
-                    return Response.status(Response.Status.NOT_FOUND)
-                        .entity(Map.of("error", "Contact not found"))
-                        .build();
-                });
+                        logger.info("Retrieved contact: {}", contact.getName());
+                        return Response.ok(contact).build();
+                    })
+                    .orElseGet(() -> {
+                        logger.warn("Contact not found with id: {}", id);
+                        return Response.status(Response.Status.NOT_FOUND)
+                            .entity(Map.of("error", "Contact not found"))
+                            .build();
+                    });
                 
-        } catch (IllegalArgumentException e) {
-            logger.error("Failed to retrieve contact: {}", e.getMessage());
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(Map.of("error", e.getMessage()))
-                .build();
-        }
+            } catch (IllegalArgumentException e) {
+                logger.error("Failed to retrieve contact: {}", e.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+            }
+        });
     }
 
     @GET
-    public Response getContactsByOrganization(@PathParam("orgId") Long orgId) {
-        try {
-            Organization organization = organizationService.getOrganization(orgId)
-                .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
-
-            List<Contact> contacts = contactService.getContactsByOrganization(organization);
-            logger.info("Retrieved {} contacts for organization: {}", 
-                contacts.size(), organization.getOrgName());
+    @Versioned({DataScope.ORGANIZATION, DataScope.CONTACTS})
+    public void getContactsByOrganization(@PathParam("orgId") Long orgId, @Suspended AsyncResponse asyncResponse) {
+        AsyncResponses.run(asyncResponse, bulkheads.getReads(), () -> {
+            try {
+                Organization organization = organizationService.getOrganization(orgId)
+                    .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
+
+                List<Contact> contacts = contactService.getContactsByOrganization(organization);
+                logger.info("Retrieved {} contacts for organization: {}", 
+                    contacts.size(), organization.getOrgName());
             
-            return Response.ok(contacts).build();
+                return Response.ok(contacts).build();
             
-        } catch (IllegalArgumentException e) {
-            logger.error("Failed to retrieve contacts: {}", e.getMessage());
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(Map.of("error", e.getMessage()))
-                .build();
-        }
+            } catch (IllegalArgumentException e) {
+                logger.error("Failed to retrieve contacts: {}", e.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+            }
+        });
     }
 
     @PUT
     @Path("/{id}")
-    public Response updateContact(
+    public void updateContact(
         @PathParam("orgId") Long orgId,
         @PathParam("id") Long id,
-        Contact contact
+        Contact contact,
+        @Suspended AsyncResponse asyncResponse
     ) {
-        try {
-            Organization organization = organizationService.getOrganization(orgId)
-                .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
+        AsyncResponses.run(asyncResponse, bulkheads.getWrites(), () -> {
+            try {
+                Organization organization = organizationService.getOrganization(orgId)
+                    .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
 
-            // Ensure the contact exists and belongs to the organization
-            Contact existingContact = contactService.getContact(id)
-                .orElseThrow(() -> new IllegalArgumentException("Contact not found"));
+                // Ensure the contact exists and belongs to the organization
+                Contact existingContact = contactService.getContact(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Contact not found"));
 
-            if (!existingContact.getOrganization().getId().equals(organization.getId())) {
-                return Response.status(Response.Status.FORBIDDEN)
-                    .entity(Map.of("error", "Contact does not belong to the organization"))
-                    .build();
-            }
+                if (!existingContact.getOrganization().getId().equals(organization.getId())) {
+                    return Response.status(Response.Status.FORBIDDEN)
+                        .entity(Map.of("error", "Contact does not belong to the organization"))
+                        .build();
+                }
 
-            // Set the ID and update
-            contact.setId(id);
-            Contact updatedContact = contactService.updateContact(contact);
+                // Set the ID and update
+                contact.setId(id);
+                Contact updatedContact = contactService.updateContact(contact);
             
-            logger.info("Contact updated successfully: {}", updatedContact.getName());
-            return Response.ok(updatedContact).build();
+                logger.info("Contact updated successfully: {}", updatedContact.getName());
+                return Response.ok(updatedContact).build();
             
-        } catch (IllegalArgumentException e) {
-            logger.error("Failed to update contact: {}", e.getMessage());
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(Map.of("error", e.getMessage()))
-                .build();
-        }
+            } catch (IllegalArgumentException e) {
+                logger.error("Failed to update contact: {}", e.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+            }
+        });
     }
 
     @DELETE
     @Path("/{id}")
-    public Response deleteContact(@PathParam("orgId") Long orgId, @PathParam("id") Long id) {
-        try {
-            Organization organization = organizationService.getOrganization(orgId)
-                .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
-
-            // Ensure the contact exists and belongs to the organization
-            Contact contact = contactService.getContact(id)
-                .orElseThrow(() -> new IllegalArgumentException("Contact not found"));
-
-            if (!contact.getOrganization().getId().equals(organization.getId())) {
-                return Response.status(Response.Status.FORBIDDEN)
-                    .entity(Map.of("error", "Contact does not belong to the organization"))
-                    .build();
-            }
+    public void deleteContact(
+        @PathParam("orgId") Long orgId,
+        @PathParam("id") Long id,
+        @Suspended AsyncResponse asyncResponse
+    ) {
+        AsyncResponses.run(asyncResponse, bulkheads.getWrites(), () -> {
+            try {
+                Organization organization = organizationService.getOrganization(orgId)
+                    .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
 
-            contactService.deleteContact(id);
-            logger.info("Contact deleted successfully with id: {}", id);
+                // Ensure the contact exists and belongs to the organization
+                Contact contact = contactService.getContact(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Contact not found"));
+
+                if (!contact.getOrganization().getId().equals(organization.getId())) {
+                    return Response.status(Response.Status.FORBIDDEN)
+                        .entity(Map.of("error", "Contact does not belong to the organization"))
+                        .build();
+                }
+
+                contactService.deleteContact(id);
+                logger.info("Contact deleted successfully with id: {}", id);
             
-            return Response.noContent().build();
+                return Response.noContent().build();
             
-        } catch (IllegalArgumentException e) {
-            logger.error("Failed to delete contact: {}", e.getMessage());
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(Map.of("error", e.getMessage()))
-                .build();
-        }
+            } catch (IllegalArgumentException e) {
+                logger.error("Failed to delete contact: {}", e.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+            }
+        });
     }
 
     @GET
     @Path("/search")
-    public Response searchContacts(
+    public void searchContacts(
         @PathParam("orgId") Long orgId,
-        @QueryParam("term") String searchTerm
+        @QueryParam("term") String searchTerm,
+        @Suspended AsyncResponse asyncResponse
     ) {
-        try {
-            Organization organization = organizationService.getOrganization(orgId)
-                .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
+        AsyncResponses.run(asyncResponse, bulkheads.getReads(), () -> {
+            try {
+                Organization organization = organizationService.getOrganization(orgId)
+                    .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
 
-            List<Contact> contacts = contactService.searchContacts(searchTerm, organization);
-            logger.info("Found {} contacts matching search term: {}", contacts.size(), searchTerm);
+                List<Contact> contacts = contactService.searchContacts(searchTerm, organization);
+                logger.info("Found {} contacts matching search term: {}", contacts.size(), searchTerm);
             
-            return Response.ok(contacts).build();
+                return Response.ok(contacts).build();
             
-        } catch (IllegalArgumentException e) {
-            logger.error("Failed to search contacts: {}", e.getMessage());
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(Map.of("error", e.getMessage()))
-                .build();
-        }
+            } catch (IllegalArgumentException e) {
+                logger.error("Failed to search contacts: {}", e.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+            }
+        });
     }
 
     @GET
     @Path("/{id}/balance")
-    public Response getContactBalance(@PathParam("orgId") Long orgId, @PathParam("id") Long id) {
-        try {
-            Organization organization = organizationService.getOrganization(orgId)
-                .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
+    public void getContactBalance(
+        @PathParam("orgId") Long orgId,
+        @PathParam("id") Long id,
+        @Suspended AsyncResponse asyncResponse
+    ) {
+        AsyncResponses.run(asyncResponse, bulkheads.getReads(), () -> {
+            try {
+                Organization organization = organizationService.getOrganization(orgId)
+                    .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
 
-            Contact contact = contactService.getContact(id)
-                .orElseThrow(() -> new IllegalArgumentException("Contact not found"));
+                Contact contact = contactService.getContact(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Contact not found"));
 
-            if (!contact.getOrganization().getId().equals(organization.getId())) {
-                return Response.status(Response.Status.FORBIDDEN)
-                    .entity(Map.of("error", "Contact does not belong to the organization"))
-                    .build();
-            }
+                if (!contact.getOrganization().getId().equals(organization.getId())) {
+                    return Response.status(Response.Status.FORBIDDEN)
+                        .entity(Map.of("error", "Contact does not belong to the organization"))
+                        .build();
+                }
 
-            BigDecimal balance = contactService.getContactBalance(id);
-            logger.info("Retrieved balance for contact {}: {}", contact.getName(), balance);
+                BigDecimal balance = contactService.getContactBalance(id);
+                logger.info("Retrieved balance for contact {}: {}", contact.getName(), balance);
             
-            return Response.ok(Map.of("balance", balance)).build();
+                return Response.ok(Map.of("balance", balance)).build();
             
-        } catch (IllegalArgumentException e) {
-            logger.error("Failed to get contact balance: {}", e.getMessage());
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(Map.of("error", e.getMessage()))
-                .build();
-        }
+            } catch (IllegalArgumentException e) {
+                logger.error("Failed to get contact balance: {}", e.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+            }
+        });
     }
 }
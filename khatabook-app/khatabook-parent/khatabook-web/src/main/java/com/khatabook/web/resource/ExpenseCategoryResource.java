@@ -1,12 +1,16 @@
 package com.khatabook.web.resource;
 
+import com.khatabook.core.event.DataScope;
 import com.khatabook.core.model.ExpenseCategory;
 import com.khatabook.core.model.Organization;
 import com.khatabook.core.service.ExpenseCategoryService;
 import com.khatabook.core.service.OrganizationService;
+import com.khatabook.web.config.SmileProvider;
+import com.khatabook.web.filter.Versioned;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.inject.Inject;
 import javax.ws.rs.*;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
@@ -17,7 +21,7 @@ import java.util.List;
 import java.util.Map;
 
 @Path("/organizations/{orgId}/expense-categories")
-@Produces(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, SmileProvider.APPLICATION_SMILE_ALTERNATIVE})
 @Consumes(MediaType.APPLICATION_JSON)
 public class ExpenseCategoryResource {
     private static final Logger logger = LoggerFactory.getLogger(ExpenseCategoryResource.class);
@@ -25,6 +29,7 @@ public class ExpenseCategoryResource {
     private final ExpenseCategoryService expenseCategoryService;
     private final OrganizationService organizationService;
 
+    @Inject
     public ExpenseCategoryResource(
         ExpenseCategoryService expenseCategoryService,
         OrganizationService organizationService
@@ -99,6 +104,7 @@ public class ExpenseCategoryResource {
     }
 
     @GET
+    @Versioned({DataScope.ORGANIZATION, DataScope.EXPENSE_CATEGORIES})
     public Response getCategoriesByOrganization(@PathParam("orgId") Long orgId) {
         try {
             Organization organization = organizationService.getOrganization(orgId)
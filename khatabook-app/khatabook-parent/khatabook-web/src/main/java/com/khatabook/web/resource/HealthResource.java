@@ -0,0 +1,43 @@
+package com.khatabook.web.resource;
+
+import com.khatabook.web.config.AppBootstrap;
+
+import javax.inject.Inject;
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Probes for load balancers and orchestrators. Neither requires authentication or opens a database
+ * session: liveness only shows the application was deployed, readiness that startup and warm-up are done.
+ */
+@Path("/health")
+@Produces(MediaType.APPLICATION_JSON)
+public class HealthResource {
+    private final AppBootstrap bootstrap;
+
+    @Inject
+    public HealthResource(AppBootstrap bootstrap) {
+        this.bootstrap = bootstrap;
+    }
+
+    @GET
+    @Path("/live")
+    public Response live() {
+        return Response.ok(Map.of("status", "UP")).build();
+    }
+
+    @GET
+    @Path("/ready")
+    public Response ready() {
+        boolean ready = bootstrap.isReady();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", ready ? "READY" : "STARTING");
+        response.put("phaseMillis", bootstrap.getPhaseTimings());
+        return Response.status(ready ? Response.Status.OK : Response.Status.SERVICE_UNAVAILABLE)
+            .entity(response)
+            .build();
+    }
+}
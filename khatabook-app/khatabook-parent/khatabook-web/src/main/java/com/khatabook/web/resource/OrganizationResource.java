@@ -5,6 +5,7 @@ import com.khatabook.core.service.OrganizationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.inject.Inject;
 import javax.ws.rs.*;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
@@ -22,6 +23,7 @@ public class OrganizationResource {
     
     private final OrganizationService organizationService;
 
+    @Inject
     public OrganizationResource(OrganizationService organizationService) {
         this.organizationService = organizationService;
     }
@@ -1,20 +1,35 @@
 package com.khatabook.web.resource;
 
+import com.khatabook.core.concurrent.Bulkheads;
+import com.khatabook.core.event.DataScope;
+import com.khatabook.core.job.ReportJob;
+import com.khatabook.core.job.ReportJobService;
+import com.khatabook.core.model.Contact;
 import com.khatabook.core.model.Organization;
+import com.khatabook.core.service.ContactService;
 import com.khatabook.core.service.OrganizationService;
 import com.khatabook.core.service.ReportService;
+import com.khatabook.web.config.SmileProvider;
+import com.khatabook.web.filter.Versioned;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.inject.Inject;
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 @Path("/organizations/{orgId}/reports")
-@Produces(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, SmileProvider.APPLICATION_SMILE_ALTERNATIVE})
 @Consumes(MediaType.APPLICATION_JSON)
 public class ReportResource {
     private static final Logger logger = LoggerFactory.getLogger(ReportResource.class);
@@ -22,164 +37,366 @@ public class ReportResource {
     
     private final ReportService reportService;
     private final OrganizationService organizationService;
+    private final ContactService contactService;
+    private final ReportJobService reportJobService;
+    private final Bulkheads bulkheads;
 
-    public ReportResource(ReportService reportService, OrganizationService organizationService) {
+    @Inject
+    public ReportResource(
+        ReportService reportService,
+        OrganizationService organizationService,
+        ContactService contactService,
+        ReportJobService reportJobService,
+        Bulkheads bulkheads
+    ) {
         this.reportService = reportService;
         this.organizationService = organizationService;
+        this.contactService = contactService;
+        this.reportJobService = reportJobService;
+        this.bulkheads = bulkheads;
     }
 
     @GET
     @Path("/contact-balance-summary")
-    public Response getContactBalanceSummary(@PathParam("orgId") Long orgId) {
-        try {
-            Organization organization = organizationService.getOrganization(orgId)
-                .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
+    @Versioned({DataScope.ORGANIZATION, DataScope.CONTACTS})
+    public void getContactBalanceSummary(@PathParam("orgId") Long orgId, @Suspended AsyncResponse asyncResponse) {
+        AsyncResponses.run(asyncResponse, bulkheads.getReports(), () -> {
+            try {
+                Organization organization = organizationService.getOrganization(orgId)
+                    .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
 
-            Map<String, Object> summary = Map.of(
-                "balanceSummary", reportService.getContactBalanceSummary(organization)
-            );
+                Map<String, Object> summary = Map.of(
+                    "balanceSummary", reportService.getContactBalanceSummary(organization)
+                );
             
-            logger.info("Generated contact balance summary for organization: {}", 
-                organization.getOrgName());
+                logger.info("Generated contact balance summary for organization: {}", 
+                    organization.getOrgName());
             
-            return Response.ok(summary).build();
+                return Response.ok(summary).build();
             
-        } catch (IllegalArgumentException e) {
-            logger.error("Failed to generate contact balance summary: {}", e.getMessage());
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(Map.of("error", e.getMessage()))
-                .build();
-        }
+            } catch (IllegalArgumentException e) {
+                logger.error("Failed to generate contact balance summary: {}", e.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+            }
+        });
     }
 
     @GET
     @Path("/contact-statement/{contactId}")
-    public Response getContactStatement(
+    public void getContactStatement(
         @PathParam("orgId") Long orgId,
         @PathParam("contactId") Long contactId,
         @QueryParam("startDate") String startDateStr,
-        @QueryParam("endDate") String endDateStr
+        @QueryParam("endDate") String endDateStr,
+        @QueryParam("stream") @DefaultValue("false") boolean stream,
+        @Suspended AsyncResponse asyncResponse
     ) {
-        try {
-            Organization organization = organizationService.getOrganization(orgId)
-                .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
+        AsyncResponses.run(asyncResponse, bulkheads.getReports(), () -> {
+            try {
+                Organization organization = organizationService.getOrganization(orgId)
+                    .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
 
-            LocalDateTime startDate = LocalDateTime.parse(startDateStr, DATE_FORMATTER);
-            LocalDateTime endDate = LocalDateTime.parse(endDateStr, DATE_FORMATTER);
+                // Resolved and checked before any output, so an unknown or foreign contact is refused rather
+                // than streamed as a truncated 200
+                Contact contact = contactService.getContact(contactId)
+                    .orElseThrow(() -> new IllegalArgumentException("Contact not found"));
+                if (!contact.getOrganization().getId().equals(organization.getId())) {
+                    return Response.status(Response.Status.FORBIDDEN)
+                        .entity(Map.of("error", "Contact does not belong to the organization"))
+                        .build();
+                }
 
-            Map<String, Object> statement = reportService.getContactStatement(
-                contactId, startDate, endDate
-            );
+                LocalDateTime startDate = LocalDateTime.parse(startDateStr, DATE_FORMATTER);
+                LocalDateTime endDate = LocalDateTime.parse(endDateStr, DATE_FORMATTER);
+
+                if (stream) {
+                    StreamingOutput output = out -> reportService.writeContactStatement(
+                        contact, startDate, endDate, out
+                    );
+                    logger.info("Streaming statement for contact {} between {} and {}", 
+                        contactId, startDate, endDate);
+                    return Response.ok(output, MediaType.APPLICATION_JSON_TYPE).build();
+                }
+
+                Map<String, Object> statement = reportService.getContactStatement(
+                    contact, startDate, endDate
+                );
             
-            logger.info("Generated statement for contact {} between {} and {}", 
-                contactId, startDate, endDate);
+                logger.info("Generated statement for contact {} between {} and {}", 
+                    contactId, startDate, endDate);
             
-            return Response.ok(statement).build();
+                return Response.ok(statement).build();
             
-        } catch (IllegalArgumentException e) {
-            logger.error("Failed to generate contact statement: {}", e.getMessage());
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(Map.of("error", e.getMessage()))
-                .build();
-        }
+            } catch (IllegalArgumentException e) {
+                logger.error("Failed to generate contact statement: {}", e.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+            }
+        });
     }
 
     @GET
     @Path("/overall-statement")
-    public Response getOverallStatement(
+    public void getOverallStatement(
         @PathParam("orgId") Long orgId,
         @QueryParam("startDate") String startDateStr,
-        @QueryParam("endDate") String endDateStr
+        @QueryParam("endDate") String endDateStr,
+        @Suspended AsyncResponse asyncResponse
     ) {
-        try {
-            Organization organization = organizationService.getOrganization(orgId)
-                .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
+        AsyncResponses.run(asyncResponse, bulkheads.getReports(), () -> {
+            try {
+                Organization organization = organizationService.getOrganization(orgId)
+                    .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
 
-            LocalDateTime startDate = LocalDateTime.parse(startDateStr, DATE_FORMATTER);
-            LocalDateTime endDate = LocalDateTime.parse(endDateStr, DATE_FORMATTER);
+                LocalDateTime startDate = LocalDateTime.parse(startDateStr, DATE_FORMATTER);
+                LocalDateTime endDate = LocalDateTime.parse(endDateStr, DATE_FORMATTER);
 
-            Map<String, Object> statement = reportService.getOverallStatement(
-                organization, startDate, endDate
-            );
+                Map<String, Object> statement = reportService.getOverallStatement(
+                    organization, startDate, endDate
+                );
             
-            logger.info("Generated overall statement for organization {} between {} and {}", 
-                organization.getOrgName(), startDate, endDate);
+                logger.info("Generated overall statement for organization {} between {} and {}", 
+                    organization.getOrgName(), startDate, endDate);
             
-            return Response.ok(statement).build();
+                return Response.ok(statement).build();
             
-        } catch (IllegalArgumentException e) {
-            logger.error("Failed to generate overall statement: {}", e.getMessage());
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(Map.of("error", e.getMessage()))
-                .build();
-        }
+            } catch (IllegalArgumentException e) {
+                logger.error("Failed to generate overall statement: {}", e.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+            }
+        });
     }
 
     @GET
     @Path("/expense-summary")
-    public Response getExpenseSummary(
+    public void getExpenseSummary(
         @PathParam("orgId") Long orgId,
         @QueryParam("startDate") String startDateStr,
-        @QueryParam("endDate") String endDateStr
+        @QueryParam("endDate") String endDateStr,
+        @QueryParam("stream") @DefaultValue("false") boolean stream,
+        @QueryParam("includeDetails") @DefaultValue("true") boolean includeDetails,
+        @Suspended AsyncResponse asyncResponse
     ) {
-        try {
-            Organization organization = organizationService.getOrganization(orgId)
-                .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
+        AsyncResponses.run(asyncResponse, bulkheads.getReports(), () -> {
+            try {
+                Organization organization = organizationService.getOrganization(orgId)
+                    .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
 
-            LocalDateTime startDate = LocalDateTime.parse(startDateStr, DATE_FORMATTER);
-            LocalDateTime endDate = LocalDateTime.parse(endDateStr, DATE_FORMATTER);
+                LocalDateTime startDate = LocalDateTime.parse(startDateStr, DATE_FORMATTER);
+                LocalDateTime endDate = LocalDateTime.parse(endDateStr, DATE_FORMATTER);
 
-            Map<String, Object> summary = reportService.getExpenseSummary(
-                organization, startDate, endDate
-            );
+                if (stream) {
+                    StreamingOutput output = out -> reportService.writeExpenseSummary(
+                        organization, startDate, endDate, out
+                    );
+                    logger.info("Streaming expense summary for organization {} between {} and {}", 
+                        organization.getOrgName(), startDate, endDate);
+                    return Response.ok(output, MediaType.APPLICATION_JSON_TYPE).build();
+                }
+
+                Map<String, Object> summary = reportService.getExpenseSummary(
+                    organization, startDate, endDate, includeDetails
+                );
             
-            logger.info("Generated expense summary for organization {} between {} and {}", 
-                organization.getOrgName(), startDate, endDate);
+                logger.info("Generated expense summary for organization {} between {} and {}", 
+                    organization.getOrgName(), startDate, endDate);
             
-            return Response.ok(summary).build();
+                return Response.ok(summary).build();
             
-        } catch (IllegalArgumentException e) {
-            logger.error("Failed to generate expense summary: {}", e.getMessage());
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(Map.of("error", e.getMessage()))
-                .build();
-        }
+            } catch (IllegalArgumentException e) {
+                logger.error("Failed to generate expense summary: {}", e.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+            }
+        });
     }
 
     @GET
     @Path("/period-wise-expense-summary")
-    public Response getPeriodWiseExpenseSummary(
+    public void getPeriodWiseExpenseSummary(
         @PathParam("orgId") Long orgId,
         @QueryParam("startDate") String startDateStr,
         @QueryParam("endDate") String endDateStr,
-        @QueryParam("groupBy") @DefaultValue("monthly") String groupBy
+        @QueryParam("groupBy") @DefaultValue("monthly") String groupBy,
+        @Suspended AsyncResponse asyncResponse
     ) {
+        AsyncResponses.run(asyncResponse, bulkheads.getReports(), () -> {
+            try {
+                Organization organization = organizationService.getOrganization(orgId)
+                    .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
+
+                LocalDateTime startDate = LocalDateTime.parse(startDateStr, DATE_FORMATTER);
+                LocalDateTime endDate = LocalDateTime.parse(endDateStr, DATE_FORMATTER);
+
+                // Validate groupBy parameter
+                if (!groupBy.matches("(?i)daily|weekly|monthly")) {
+                    throw new IllegalArgumentException("Invalid groupBy parameter. Must be 'daily', 'weekly', or 'monthly'");
+                }
+
+                Map<String, Object> summary = reportService.getPeriodWiseExpenseSummary(
+                    organization, startDate, endDate, groupBy.toLowerCase()
+                );
+            
+                logger.info("Generated period-wise expense summary for organization {} between {} and {} grouped by {}", 
+                    organization.getOrgName(), startDate, endDate, groupBy);
+            
+                return Response.ok(summary).build();
+            
+            } catch (IllegalArgumentException e) {
+                logger.error("Failed to generate period-wise expense summary: {}", e.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+            }
+        });
+    }
+
+    @POST
+    @Path("/jobs")
+    public Response submitReportJob(@PathParam("orgId") Long orgId, Map<String, Object> request) {
         try {
             Organization organization = organizationService.getOrganization(orgId)
                 .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
 
-            LocalDateTime startDate = LocalDateTime.parse(startDateStr, DATE_FORMATTER);
-            LocalDateTime endDate = LocalDateTime.parse(endDateStr, DATE_FORMATTER);
-
-            // Validate groupBy parameter
-            if (!groupBy.matches("(?i)daily|weekly|monthly")) {
-                throw new IllegalArgumentException("Invalid groupBy parameter. Must be 'daily', 'weekly', or 'monthly'");
+            if (request == null || request.get("report") == null) {
+                throw new IllegalArgumentException("Report type is required");
             }
+            String reportType = request.get("report").toString();
+            Supplier<Map<String, Object>> report = toReport(organization, reportType, request);
 
-            Map<String, Object> summary = reportService.getPeriodWiseExpenseSummary(
-                organization, startDate, endDate, groupBy.toLowerCase()
-            );
+            ReportJob job = reportJobService.submit(orgId, reportType, report);
             
-            logger.info("Generated period-wise expense summary for organization {} between {} and {} grouped by {}", 
-                organization.getOrgName(), startDate, endDate, groupBy);
+            logger.info("Submitted {} job {} for organization {}", 
+                reportType, job.getId(), organization.getOrgName());
             
-            return Response.ok(summary).build();
+            return Response.status(Response.Status.ACCEPTED)
+                .entity(job.toSummary())
+                .build();
             
-        } catch (IllegalArgumentException e) {
-            logger.error("Failed to generate period-wise expense summary: {}", e.getMessage());
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            logger.error("Failed to submit report job: {}", e.getMessage());
             return Response.status(Response.Status.BAD_REQUEST)
                 .entity(Map.of("error", e.getMessage()))
                 .build();
+        } catch (RejectedExecutionException e) {
+            logger.error("Failed to submit report job: {}", e.getMessage());
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "30")
+                .entity(Map.of("error", "Too many report jobs in progress, try again later"))
+                .build();
+        }
+    }
+
+    @GET
+    @Path("/jobs/{jobId}")
+    public Response getReportJob(@PathParam("orgId") Long orgId, @PathParam("jobId") String jobId) {
+        return reportJobService.getJob(orgId, jobId)
+            .map(job -> Response.ok(job.toSummary()).build())
+            .orElse(Response.status(Response.Status.NOT_FOUND)
+                .entity(Map.of("error", "Report job not found"))
+                .build());
+    }
+
+    @GET
+    @Path("/jobs/{jobId}/result")
+    public Response getReportJobResult(@PathParam("orgId") Long orgId, @PathParam("jobId") String jobId) {
+        ReportJob job = reportJobService.getJob(orgId, jobId).orElse(null);
+        if (job == null) {
+            return Response.status(Response.Status.NOT_FOUND)
+                .entity(Map.of("error", "Report job not found"))
+                .build();
+        }
+
+        switch (job.getStatus()) {
+            case SUCCEEDED:
+                return Response.ok(job.getResult()).build();
+            case FAILED:
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(job.toSummary())
+                    .build();
+            case CANCELLED:
+                return Response.status(Response.Status.GONE)
+                    .entity(job.toSummary())
+                    .build();
+            default:
+                // Still queued or running; the client keeps polling
+                return Response.status(Response.Status.ACCEPTED)
+                    .header("Retry-After", "5")
+                    .entity(job.toSummary())
+                    .build();
+        }
+    }
+
+    @DELETE
+    @Path("/jobs/{jobId}")
+    public Response cancelReportJob(@PathParam("orgId") Long orgId, @PathParam("jobId") String jobId) {
+        try {
+            if (!reportJobService.cancel(orgId, jobId)) {
+                return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("error", "Report job has already finished"))
+                    .build();
+            }
+            return Response.noContent().build();
+            
+        } catch (IllegalArgumentException e) {
+            logger.error("Failed to cancel report job: {}", e.getMessage());
+            return Response.status(Response.Status.NOT_FOUND)
+                .entity(Map.of("error", e.getMessage()))
+                .build();
+        }
+    }
+
+    // Validates a job request up front and returns the report to run on the job executor
+    private Supplier<Map<String, Object>> toReport(
+        Organization organization,
+        String reportType,
+        Map<String, Object> request
+    ) {
+        if (reportType.equals("contact-balance-summary")) {
+            return () -> Map.of("balanceSummary", reportService.getContactBalanceSummary(organization));
+        }
+
+        LocalDateTime startDate = LocalDateTime.parse(requireParameter(request, "startDate"), DATE_FORMATTER);
+        LocalDateTime endDate = LocalDateTime.parse(requireParameter(request, "endDate"), DATE_FORMATTER);
+
+        switch (reportType) {
+            case "contact-statement":
+                Long contactId = Long.valueOf(requireParameter(request, "contactId"));
+                Contact contact = contactService.getContact(contactId)
+                    .orElseThrow(() -> new IllegalArgumentException("Contact not found"));
+                if (!contact.getOrganization().getId().equals(organization.getId())) {
+                    throw new IllegalArgumentException("Contact does not belong to the organization");
+                }
+                return () -> reportService.getContactStatement(contact, startDate, endDate);
+            case "overall-statement":
+                return () -> reportService.getOverallStatement(organization, startDate, endDate);
+            case "expense-summary":
+                boolean includeDetails = !"false".equals(String.valueOf(request.get("includeDetails")));
+                return () -> reportService.getExpenseSummary(organization, startDate, endDate, includeDetails);
+            case "period-wise-expense-summary":
+                String groupBy = String.valueOf(request.getOrDefault("groupBy", "monthly"));
+                if (!groupBy.matches("(?i)daily|weekly|monthly")) {
+                    throw new IllegalArgumentException("Invalid groupBy parameter. Must be 'daily', 'weekly', or 'monthly'");
+                }
+                return () -> reportService.getPeriodWiseExpenseSummary(
+                    organization, startDate, endDate, groupBy.toLowerCase()
+                );
+            default:
+                throw new IllegalArgumentException("Unknown report type: " + reportType);
+        }
+    }
+
+    private static String requireParameter(Map<String, Object> request, String name) {
+        Object value = request.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException(name + " is required");
         }
+        return value.toString();
     }
 }
@@ -1,234 +1,392 @@
 package com.khatabook.web.resource;
 
+import com.khatabook.core.concurrent.Bulkheads;
+import com.khatabook.core.dto.BulkItemResult;
+import com.khatabook.core.dto.NewTransaction;
+import com.khatabook.core.dto.TransactionFilter;
+import com.khatabook.core.dto.TransactionPage;
+import com.khatabook.core.dto.TransactionRow;
 import com.khatabook.core.model.*;
 import com.khatabook.core.service.ContactService;
 import com.khatabook.core.service.ExpenseCategoryService;
 import com.khatabook.core.service.OrganizationService;
 import com.khatabook.core.service.TransactionService;
+import com.khatabook.web.config.SmileProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.inject.Inject;
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 import java.math.BigDecimal;
 import java.net.URI;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 @Path("/organizations/{orgId}/transactions")
-@Produces(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, SmileProvider.APPLICATION_SMILE_ALTERNATIVE})
 @Consumes(MediaType.APPLICATION_JSON)
 public class TransactionResource {
     private static final Logger logger = LoggerFactory.getLogger(TransactionResource.class);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_DATE_TIME;
     
     private final TransactionService transactionService;
     private final OrganizationService organizationService;
     private final ContactService contactService;
     private final ExpenseCategoryService expenseCategoryService;
+    private final Bulkheads bulkheads;
 
+    @Inject
     public TransactionResource(
         TransactionService transactionService,
         OrganizationService organizationService,
         ContactService contactService,
-        ExpenseCategoryService expenseCategoryService
+        ExpenseCategoryService expenseCategoryService,
+        Bulkheads bulkheads
     ) {
         this.transactionService = transactionService;
         this.organizationService = organizationService;
         this.contactService = contactService;
         this.expenseCategoryService = expenseCategoryService;
+        this.bulkheads = bulkheads;
     }
 
     @POST
     @Path("/expenses")
-    public Response createExpenseTransaction(
+    public void createExpenseTransaction(
         @PathParam("orgId") Long orgId,
         Map<String, Object> request,
-        @Context UriInfo uriInfo
+        @Context UriInfo uriInfo,
+        @Suspended AsyncResponse asyncResponse
     ) {
-        try {
-            Organization organization = organizationService.getOrganization(orgId)
-                .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
-
-            // Extract and validate request parameters
-            BigDecimal amount = new BigDecimal(request.get("amount").toString());
-            Long categoryId = Long.valueOf(request.get("categoryId").toString());
-            Long contactId = Long.valueOf(request.get("contactId").toString());
-            String notes = (String) request.get("notes");
-
-            // Validate that category and contact belong to the organization
-            expenseCategoryService.validateCategoryBelongsToOrganization(categoryId, organization);
-            Contact contact = contactService.getContact(contactId)
-                .orElseThrow(() -> new IllegalArgumentException("Contact not found"));
-            if (!contact.getOrganization().getId().equals(organization.getId())) {
-                throw new IllegalArgumentException("Contact does not belong to the organization");
-            }
+        AsyncResponses.run(asyncResponse, bulkheads.getWrites(), () -> {
+            try {
+                Organization organization = organizationService.getOrganization(orgId)
+                    .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
+
+                // Extract and validate request parameters
+                BigDecimal amount = new BigDecimal(request.get("amount").toString());
+                Long categoryId = Long.valueOf(request.get("categoryId").toString());
+                Long contactId = Long.valueOf(request.get("contactId").toString());
+                String notes = (String) request.get("notes");
+
+                // Validate that category and contact belong to the organization
+                expenseCategoryService.validateCategoryBelongsToOrganization(categoryId, organization);
+                Contact contact = contactService.getContact(contactId)
+                    .orElseThrow(() -> new IllegalArgumentException("Contact not found"));
+                if (!contact.getOrganization().getId().equals(organization.getId())) {
+                    throw new IllegalArgumentException("Contact does not belong to the organization");
+                }
 
-            ExpenseTransaction transaction = transactionService.createExpenseTransaction(
-                amount, categoryId, contactId, notes
-            );
+                ExpenseTransaction transaction = transactionService.createExpenseTransaction(
+                    amount, categoryId, contactId, notes
+                );
             
-            URI location = uriInfo.getAbsolutePathBuilder()
-                .path(String.valueOf(transaction.getId()))
-                .build();
+                URI location = uriInfo.getAbsolutePathBuilder()
+                    .path(String.valueOf(transaction.getId()))
+                    .build();
             
-            logger.info("Expense transaction created successfully for amount: {} in category: {}", 
-                amount, categoryId);
+                logger.info("Expense transaction created successfully for amount: {} in category: {}", 
+                    amount, categoryId);
             
-            return Response.created(location)
-                .entity(transaction)
-                .build();
+                return Response.created(location)
+                    .entity(transaction)
+                    .build();
                 
-        } catch (IllegalArgumentException e) {
-            logger.error("Failed to create expense transaction: {}", e.getMessage());
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(Map.of("error", e.getMessage()))
-                .build();
-        }
+            } catch (IllegalArgumentException e) {
+                logger.error("Failed to create expense transaction: {}", e.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+            }
+        });
     }
 
     @POST
     @Path("/give-take")
-    public Response createGiveTakeTransaction(
+    public void createGiveTakeTransaction(
         @PathParam("orgId") Long orgId,
         Map<String, Object> request,
-        @Context UriInfo uriInfo
+        @Context UriInfo uriInfo,
+        @Suspended AsyncResponse asyncResponse
     ) {
-        try {
-            Organization organization = organizationService.getOrganization(orgId)
-                .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
-
-            // Extract and validate request parameters
-            BigDecimal amount = new BigDecimal(request.get("amount").toString());
-            TransactionType type = TransactionType.valueOf(request.get("type").toString());
-            Long contactId = Long.valueOf(request.get("contactId").toString());
-            String notes = (String) request.get("notes");
-
-            // Validate that contact belongs to the organization
-            Contact contact = contactService.getContact(contactId)
-                .orElseThrow(() -> new IllegalArgumentException("Contact not found"));
-            if (!contact.getOrganization().getId().equals(organization.getId())) {
-                throw new IllegalArgumentException("Contact does not belong to the organization");
-            }
+        AsyncResponses.run(asyncResponse, bulkheads.getWrites(), () -> {
+            try {
+                Organization organization = organizationService.getOrganization(orgId)
+                    .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
 
-            GiveTakeTransaction transaction = transactionService.createGiveTakeTransaction(
-                amount, type, contactId, notes
-            );
+                // Extract and validate request parameters
+                BigDecimal amount = new BigDecimal(request.get("amount").toString());
+                TransactionType type = TransactionType.valueOf(request.get("type").toString());
+                Long contactId = Long.valueOf(request.get("contactId").toString());
+                String notes = (String) request.get("notes");
+
+                // Validate that contact belongs to the organization
+                Contact contact = contactService.getContact(contactId)
+                    .orElseThrow(() -> new IllegalArgumentException("Contact not found"));
+                if (!contact.getOrganization().getId().equals(organization.getId())) {
+                    throw new IllegalArgumentException("Contact does not belong to the organization");
+                }
+
+                GiveTakeTransaction transaction = transactionService.createGiveTakeTransaction(
+                    amount, type, contactId, notes
+                );
             
-            URI location = uriInfo.getAbsolutePathBuilder()
-                .path(String.valueOf(transaction.getId()))
-                .build();
+                URI location = uriInfo.getAbsolutePathBuilder()
+                    .path(String.valueOf(transaction.getId()))
+                    .build();
             
-            logger.info("Give/Take transaction created successfully for amount: {} of type: {}", 
-                amount, type);
+                logger.info("Give/Take transaction created successfully for amount: {} of type: {}", 
+                    amount, type);
             
-            return Response.created(location)
-                .entity(transaction)
-                .build();
+                return Response.created(location)
+                    .entity(transaction)
+                    .build();
                 
-        } catch (IllegalArgumentException e) {
-            logger.error("Failed to create give/take transaction: {}", e.getMessage());
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(Map.of("error", e.getMessage()))
-                .build();
-        }
+            } catch (IllegalArgumentException e) {
+                logger.error("Failed to create give/take transaction: {}", e.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+            }
+        });
+    }
+
+    @POST
+    @Path("/bulk")
+    public void createTransactions(
+        @PathParam("orgId") Long orgId,
+        Map<String, Object> request,
+        @Suspended AsyncResponse asyncResponse
+    ) {
+        AsyncResponses.run(asyncResponse, bulkheads.getWrites(), () -> {
+            try {
+                Organization organization = organizationService.getOrganization(orgId)
+                    .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
+
+                if (request == null || !(request.get("transactions") instanceof List)) {
+                    throw new IllegalArgumentException("A transactions array is required");
+                }
+                List<?> entries = (List<?>) request.get("transactions");
+
+                // Entries that cannot be parsed are rejected here; the rest are validated and saved together
+                List<BulkItemResult> results = new ArrayList<>();
+                List<NewTransaction> items = new ArrayList<>();
+                for (int index = 0; index < entries.size(); index++) {
+                    try {
+                        items.add(toNewTransaction(index, entries.get(index)));
+                    } catch (IllegalArgumentException e) {
+                        results.add(BulkItemResult.rejected(index, e.getMessage()));
+                    }
+                }
+                results.addAll(transactionService.createTransactions(organization, items));
+                results.sort(Comparator.comparingInt(BulkItemResult::getIndex));
+
+                long created = results.stream()
+                    .filter(result -> BulkItemResult.CREATED.equals(result.getStatus()))
+                    .count();
+            
+                logger.info("Bulk request for organization {}: {} of {} transactions created", 
+                    organization.getOrgName(), created, entries.size());
+            
+                return Response.ok(Map.of(
+                    "created", created,
+                    "rejected", results.size() - created,
+                    "results", results
+                )).build();
+            
+            } catch (IllegalArgumentException e) {
+                logger.error("Failed to process bulk transactions: {}", e.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+            }
+        });
+    }
+
+    @GET
+    public void findTransactions(
+        @PathParam("orgId") Long orgId,
+        @QueryParam("contactId") Long contactId,
+        @QueryParam("type") String type,
+        @QueryParam("categoryId") Long categoryId,
+        @QueryParam("minAmount") String minAmountStr,
+        @QueryParam("maxAmount") String maxAmountStr,
+        @QueryParam("startDate") String startDateStr,
+        @QueryParam("endDate") String endDateStr,
+        @QueryParam("cursor") String cursor,
+        @QueryParam("limit") @DefaultValue("50") int limit,
+        @Suspended AsyncResponse asyncResponse
+    ) {
+        AsyncResponses.run(asyncResponse, bulkheads.getReads(), () -> {
+            try {
+                Organization organization = organizationService.getOrganization(orgId)
+                    .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
+
+                TransactionFilter filter = new TransactionFilter();
+                filter.setContactId(contactId);
+                filter.setType(type == null ? null : type.toUpperCase());
+                filter.setCategoryId(categoryId);
+                filter.setMinAmount(minAmountStr == null ? null : new BigDecimal(minAmountStr));
+                filter.setMaxAmount(maxAmountStr == null ? null : new BigDecimal(maxAmountStr));
+                filter.setStartDate(startDateStr == null ? null : LocalDateTime.parse(startDateStr, DATE_FORMATTER));
+                filter.setEndDate(endDateStr == null ? null : LocalDateTime.parse(endDateStr, DATE_FORMATTER));
+
+                TransactionPage page = transactionService.findTransactions(organization, filter, cursor, limit);
+
+                // nextCursor is null on the last page, which Map.of does not allow
+                Map<String, Object> response = new HashMap<>();
+                response.put("transactions", page.getTransactions());
+                response.put("nextCursor", page.getNextCursor());
+            
+                return Response.ok(response).build();
+            
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                logger.error("Failed to list transactions: {}", e.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+            }
+        });
     }
 
     @GET
     @Path("/{id}")
-    public Response getTransaction(@PathParam("orgId") Long orgId, @PathParam("id") Long id) {
-        try {
-            Organization organization = organizationService.getOrganization(orgId)
-                .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
-
-            return transactionService.getTransaction(id)
-                .map(transaction -> {
-                    // Verify transaction belongs to the organization
-                    if (!transaction.getContact().getOrganization().getId().equals(organization.getId())) {
-                        return Response.status(Response.Status.FORBIDDEN)
-                            .entity(Map.of("error", "Transaction does not belong to the organization"))
-                            .build();
-                    }
+    public void getTransaction(
+        @PathParam("orgId") Long orgId,
+        @PathParam("id") Long id,
+        @Suspended AsyncResponse asyncResponse
+    ) {
+        AsyncResponses.run(asyncResponse, bulkheads.getReads(), () -> {
+            try {
+                Organization organization = organizationService.getOrganization(orgId)
+                    .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
+
+                return transactionService.getTransaction(id)
+                    .map(transaction -> {
+                        // Verify transaction belongs to the organization
+                        if (!transaction.getContact().getOrganization().getId().equals(organization.getId())) {
+                            return Response.status(Response.Status.FORBIDDEN)
+                                .entity(Map.of("error", "Transaction does not belong to the organization"))
+                                .build();
+                        }
                     
-                    logger.info("Retrieved transaction with id: {}", id);
-                    return Response.ok(transaction).build();
-                })
-                .orElseGet(() -> {
-                    logger.warn("Transaction not found with id: {}", id);
-                    return Response.status(Response.Status.NOT_FOUND)
-                        .entity(Map.of("error", "Transaction not found"))
-                        .build();
-                });
+                        logger.info("Retrieved transaction with id: {}", id);
+                        return Response.ok(transaction).build();
+                    })
+                    .orElseGet(() -> {
+                        logger.warn("Transaction not found with id: {}", id);
+                        return Response.status(Response.Status.NOT_FOUND)
+                            .entity(Map.of("error", "Transaction not found"))
+                            .build();
+                    });
                 
-        } catch (IllegalArgumentException e) {
-            logger.error("Failed to retrieve transaction: {}", e.getMessage());
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(Map.of("error", e.getMessage()))
-                .build();
-        }
+            } catch (IllegalArgumentException e) {
+                logger.error("Failed to retrieve transaction: {}", e.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+            }
+        });
     }
 
     @GET
     @Path("/contact/{contactId}")
-    public Response getTransactionsByContact(
+    public void getTransactionsByContact(
         @PathParam("orgId") Long orgId,
-        @PathParam("contactId") Long contactId
+        @PathParam("contactId") Long contactId,
+        @Suspended AsyncResponse asyncResponse
     ) {
-        try {
-            Organization organization = organizationService.getOrganization(orgId)
-                .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
+        AsyncResponses.run(asyncResponse, bulkheads.getReads(), () -> {
+            try {
+                Organization organization = organizationService.getOrganization(orgId)
+                    .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
 
-            Contact contact = contactService.getContact(contactId)
-                .orElseThrow(() -> new IllegalArgumentException("Contact not found"));
+                Contact contact = contactService.getContact(contactId)
+                    .orElseThrow(() -> new IllegalArgumentException("Contact not found"));
 
-            if (!contact.getOrganization().getId().equals(organization.getId())) {
-                return Response.status(Response.Status.FORBIDDEN)
-                    .entity(Map.of("error", "Contact does not belong to the organization"))
-                    .build();
-            }
+                if (!contact.getOrganization().getId().equals(organization.getId())) {
+                    return Response.status(Response.Status.FORBIDDEN)
+                        .entity(Map.of("error", "Contact does not belong to the organization"))
+                        .build();
+                }
 
-            List<Transaction> transactions = transactionService.getTransactionsByContact(contact);
-            logger.info("Retrieved {} transactions for contact: {}", 
-                transactions.size(), contact.getName());
+                List<TransactionRow> transactions = transactionService.getTransactionsByContact(contact);
+                logger.info("Retrieved {} transactions for contact: {}", 
+                    transactions.size(), contact.getName());
             
-            return Response.ok(transactions).build();
+                return Response.ok(transactions).build();
             
-        } catch (IllegalArgumentException e) {
-            logger.error("Failed to retrieve transactions: {}", e.getMessage());
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(Map.of("error", e.getMessage()))
-                .build();
-        }
+            } catch (IllegalArgumentException e) {
+                logger.error("Failed to retrieve transactions: {}", e.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+            }
+        });
     }
 
     @DELETE
     @Path("/{id}")
-    public Response deleteTransaction(@PathParam("orgId") Long orgId, @PathParam("id") Long id) {
-        try {
-            Organization organization = organizationService.getOrganization(orgId)
-                .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
+    public void deleteTransaction(
+        @PathParam("orgId") Long orgId,
+        @PathParam("id") Long id,
+        @Suspended AsyncResponse asyncResponse
+    ) {
+        AsyncResponses.run(asyncResponse, bulkheads.getWrites(), () -> {
+            try {
+                Organization organization = organizationService.getOrganization(orgId)
+                    .orElseThrow(() -> new IllegalArgumentException("Organization not found"));
 
-            Transaction transaction = transactionService.getTransaction(id)
-                .orElseThrow(() -> new IllegalArgumentException("Transaction not found"));
+                Transaction transaction = transactionService.getTransaction(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Transaction not found"));
 
-            if (!transaction.getContact().getOrganization().getId().equals(organization.getId())) {
-                return Response.status(Response.Status.FORBIDDEN)
-                    .entity(Map.of("error", "Transaction does not belong to the organization"))
-                    .build();
-            }
+                if (!transaction.getContact().getOrganization().getId().equals(organization.getId())) {
+                    return Response.status(Response.Status.FORBIDDEN)
+                        .entity(Map.of("error", "Transaction does not belong to the organization"))
+                        .build();
+                }
 
-            transactionService.deleteTransaction(id);
-            logger.info("Transaction deleted successfully with id: {}", id);
+                transactionService.deleteTransaction(id);
+                logger.info("Transaction deleted successfully with id: {}", id);
             
-            return Response.noContent().build();
+                return Response.noContent().build();
             
-        } catch (IllegalArgumentException e) {
-            logger.error("Failed to delete transaction: {}", e.getMessage());
-            return Response.status(Response.Status.BAD_REQUEST)
-                .entity(Map.of("error", e.getMessage()))
-                .build();
+            } catch (IllegalArgumentException e) {
+                logger.error("Failed to delete transaction: {}", e.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+            }
+        });
+    }
+
+    private static NewTransaction toNewTransaction(int index, Object entry) {
+        if (!(entry instanceof Map)) {
+            throw new IllegalArgumentException("Transaction must be an object");
+        }
+        Map<?, ?> fields = (Map<?, ?>) entry;
+        if (fields.get("type") == null || fields.get("amount") == null || fields.get("contactId") == null) {
+            throw new IllegalArgumentException("type, amount and contactId are required");
         }
+        return new NewTransaction(
+            index,
+            fields.get("type").toString().toUpperCase(),
+            new BigDecimal(fields.get("amount").toString()),
+            Long.valueOf(fields.get("contactId").toString()),
+            fields.get("categoryId") == null ? null : Long.valueOf(fields.get("categoryId").toString()),
+            fields.get("notes") == null ? null : fields.get("notes").toString()
+        );
     }
 }
@@ -0,0 +1,191 @@
+package com.khatabook.web.filter;
+
+import com.khatabook.core.repository.UnitOfWork;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.core.UriInfo;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UnitOfWorkFilterTest {
+    private static SessionFactory sessionFactory;
+    private final UnitOfWorkFilter filter = new UnitOfWorkFilter(sessionFactory);
+
+    @BeforeAll
+    static void openDatabase() {
+        Configuration configuration = new Configuration();
+        configuration.setProperty(Environment.DRIVER, "org.h2.Driver");
+        configuration.setProperty(Environment.URL, "jdbc:h2:mem:unit_of_work_filter;DB_CLOSE_DELAY=-1");
+        configuration.setProperty(Environment.USER, "sa");
+        configuration.setProperty(Environment.DIALECT, "org.hibernate.dialect.H2Dialect");
+        sessionFactory = configuration.buildSessionFactory();
+        execute("CREATE TABLE notes (text VARCHAR(100))");
+    }
+
+    @AfterAll
+    static void closeDatabase() {
+        sessionFactory.close();
+    }
+
+    @BeforeEach
+    void clearNotes() {
+        execute("DELETE FROM notes");
+    }
+
+    @AfterEach
+    void unbindLeftoverUnit() {
+        UnitOfWork.current().ifPresent(UnitOfWork::rollback);
+    }
+
+    private static void execute(String sql) {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.createNativeQuery(sql).executeUpdate();
+            session.getTransaction().commit();
+        }
+    }
+
+    // Inserts through the thread's unit of work, as a repository would
+    private static void insertNote(String text) {
+        Session session = UnitOfWork.openSession(sessionFactory);
+        session.createNativeQuery("INSERT INTO notes VALUES (:text)").setParameter("text", text).executeUpdate();
+    }
+
+    private static long countNotes() {
+        try (Session session = sessionFactory.openSession()) {
+            return ((Number) session.createNativeQuery("SELECT COUNT(*) FROM notes").uniqueResult()).longValue();
+        }
+    }
+
+    @Test
+    void commitsASuccessfulRequest() {
+        ContainerRequestContext request = request("organizations/1/contacts");
+        filter.filter(request);
+        insertNote("saved");
+
+        ResponseStub response = new ResponseStub(200);
+        filter.filter(request, response.context);
+
+        assertEquals(1, countNotes());
+        assertEquals(200, response.status);
+        assertFalse(UnitOfWork.current().isPresent());
+    }
+
+    @Test
+    void rollsBackAFailedRequest() {
+        ContainerRequestContext request = request("organizations/1/contacts");
+        filter.filter(request);
+        insertNote("discarded");
+
+        filter.filter(request, new ResponseStub(400).context);
+
+        assertEquals(0, countNotes());
+        assertFalse(UnitOfWork.current().isPresent());
+    }
+
+    @Test
+    void rollsBackAUnitLeftOnTheThreadByAnEarlierRequest() {
+        UnitOfWork stale = UnitOfWork.begin(sessionFactory);
+        insertNote("left behind");
+
+        ContainerRequestContext request = request("organizations/1/contacts");
+        filter.filter(request);
+        UnitOfWork current = UnitOfWork.current().orElseThrow();
+        assertNotSame(stale, current);
+        insertNote("saved");
+        filter.filter(request, new ResponseStub(201).context);
+
+        assertEquals(1, countNotes(), "the stale unit's write must be rolled back, not committed");
+    }
+
+    @Test
+    void healthChecksRunWithoutAUnit() {
+        ContainerRequestContext request = request("health");
+        filter.filter(request);
+
+        assertFalse(UnitOfWork.current().isPresent());
+        filter.filter(request, new ResponseStub(200).context);
+    }
+
+    @Test
+    void leavesADetachedUnitToTheThreadThatTookIt() {
+        ContainerRequestContext request = request("organizations/1/reports");
+        filter.filter(request);
+        UnitOfWork detached = UnitOfWork.current().orElseThrow().detach();
+
+        filter.filter(request, new ResponseStub(200).context);
+        detached.attach();
+        insertNote("from worker");
+        detached.commit();
+
+        assertEquals(1, countNotes());
+    }
+
+    private static ContainerRequestContext request(String path) {
+        UriInfo uriInfo = stub(UriInfo.class, (method, args) ->
+            method.getName().equals("getPath") ? path : null);
+        Map<String, Object> properties = new HashMap<>();
+        return stub(ContainerRequestContext.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getUriInfo":
+                    return uriInfo;
+                case "getProperty":
+                    return properties.get(args[0]);
+                case "setProperty":
+                    properties.put((String) args[0], args[1]);
+                    return null;
+                case "removeProperty":
+                    properties.remove(args[0]);
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static final class ResponseStub {
+        private int status;
+        private final ContainerResponseContext context;
+
+        private ResponseStub(int status) {
+            this.status = status;
+            this.context = stub(ContainerResponseContext.class, (method, args) -> {
+                switch (method.getName()) {
+                    case "getStatus":
+                        return this.status;
+                    case "setStatus":
+                        this.status = (Integer) args[0];
+                        return null;
+                    case "setEntity":
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+    }
+
+    private interface Answer {
+        Object answer(Method method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, Answer answer) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+            (proxy, method, args) -> answer.answer(method, args));
+    }
+}